@@ -0,0 +1,88 @@
+package com.tv.expense_tracker.configs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency, after the gradient algorithm: the
+ * limit is scaled by {@code tolerance * longRtt / shortRtt}, clamped to [0.5, 1], plus a
+ * small allowance of {@code sqrt(limit)} for queueing. While latency stays near its
+ * long-term average the allowance lets the limit grow; when latency rises the gradient
+ * drops below 1 and the limit shrinks, so excess requests are rejected instead of queued.
+ * Samples taken while fewer than half the permits were in use say nothing about capacity
+ * and do not move the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double longRtt;
+    private double shortRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("concurrency limits must satisfy 1 <= min <= initial <= max");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a permit if fewer than {@link #getLimit()} requests are in flight.
+     *
+     * @return the number in flight including this one, or 0 if rejected.
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit)
+                return 0;
+            if (inflight.compareAndSet(current, current + 1))
+                return current + 1;
+        }
+    }
+
+    /**
+     * Returns the permit and feeds the request's latency into the limit.
+     *
+     * @param inflightAtStart the value returned by {@link #tryAcquire()}.
+     */
+    public void release(long rttNanos, int inflightAtStart) {
+        inflight.decrementAndGet();
+        onSample(rttNanos, inflightAtStart);
+    }
+
+    synchronized void onSample(long rttNanos, int inflightAtStart) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRtt == 0) {
+            longRtt = rtt;
+            shortRtt = rtt;
+        }
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        // latency fell well below the long-term average: let the baseline catch up quickly
+        if (longRtt / shortRtt > 2)
+            longRtt *= 0.95;
+        if (inflightAtStart < limit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        next = limit * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
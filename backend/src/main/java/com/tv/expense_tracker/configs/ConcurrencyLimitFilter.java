@@ -0,0 +1,157 @@
+package com.tv.expense_tracker.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sheds load per endpoint class. Each class from {@code concurrency-limit.classes} has its
+ * own {@link AdaptiveConcurrencyLimiter}, so slow aggregate endpoints saturate their own
+ * limit without taking request threads from cheap ones. Requests over the limit get an
+ * immediate 503 with Retry-After. The permit is held until the response completes,
+ * including asynchronous (streaming) responses.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final List<EndpointClass> classes = new ArrayList<>();
+
+    /**
+     * @param specs entries of the form {@code NAME PATTERN[|PATTERN...] INITIAL MIN MAX};
+     *              the first class with a matching pattern applies.
+     */
+    public ConcurrencyLimitFilter(String[] specs, MeterRegistry meterRegistry) {
+        for (String spec : specs)
+            if (!spec.isBlank())
+                classes.add(EndpointClass.parse(spec.trim(), meterRegistry));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request.getRequestURI());
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = endpointClass.limiter;
+        int inflight = limiter.tryAcquire();
+        if (inflight == 0) {
+            endpointClass.rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Server busy, retry shortly\"}");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter, start, inflight));
+            }
+        } finally {
+            if (!async)
+                limiter.release(System.nanoTime() - start, inflight);
+        }
+    }
+
+    private EndpointClass classify(String path) {
+        if (classes.isEmpty())
+            return null;
+        PathContainer container = PathContainer.parsePath(path);
+        for (EndpointClass endpointClass : classes)
+            for (PathPattern pattern : endpointClass.patterns)
+                if (pattern.matches(container))
+                    return endpointClass;
+        return null;
+    }
+
+    private static final class EndpointClass {
+        private final List<PathPattern> patterns;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Counter rejected;
+
+        private EndpointClass(List<PathPattern> patterns, AdaptiveConcurrencyLimiter limiter, Counter rejected) {
+            this.patterns = patterns;
+            this.limiter = limiter;
+            this.rejected = rejected;
+        }
+
+        static EndpointClass parse(String spec, MeterRegistry meterRegistry) {
+            String[] parts = spec.split("\\s+");
+            if (parts.length != 5)
+                throw new IllegalArgumentException(
+                        "concurrency-limit class must be 'NAME PATTERNS INITIAL MIN MAX': " + spec);
+            List<PathPattern> patterns = new ArrayList<>();
+            for (String pattern : parts[1].split("\\|"))
+                patterns.add(PathPatternParser.defaultInstance.parse(pattern));
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4]));
+            meterRegistry.gauge("concurrency_limit.limit", Tags.of("class", parts[0]), limiter, AdaptiveConcurrencyLimiter::getLimit);
+            meterRegistry.gauge("concurrency_limit.inflight", Tags.of("class", parts[0]), limiter, AdaptiveConcurrencyLimiter::getInflight);
+            Counter rejected = meterRegistry.counter("concurrency_limit.rejected", "class", parts[0]);
+            return new EndpointClass(patterns, limiter, rejected);
+        }
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long start;
+        private final int inflight;
+        private boolean released;
+
+        ReleaseOnComplete(AdaptiveConcurrencyLimiter limiter, long start, int inflight) {
+            this.limiter = limiter;
+            this.start = start;
+            this.inflight = inflight;
+        }
+
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                limiter.release(System.nanoTime() - start, inflight);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tv.expense_tracker.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataSource wrapper that lets at most {@code permits} callers hold or wait for a pool
+ * connection at once. With virtual threads the number of request threads is effectively
+ * unbounded, so without it thousands of them could queue inside the pool for the full
+ * connection timeout. Callers wait on a fair semaphore instead (which parks a virtual
+ * thread without pinning its carrier) and fail fast after {@code acquireTimeoutMs}.
+ * Each pool gets its own guard; the meters are tagged with the pool's name.
+ */
+public class ConnectionGuardDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Counter rejected;
+
+    public ConnectionGuardDataSource(DataSource target, String pool, int permits, long acquireTimeoutMs,
+            MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        Tags tags = Tags.of("pool", pool);
+        this.rejected = meterRegistry.counter("db.connection.guard.rejected", tags);
+        meterRegistry.gauge("db.connection.guard.available", tags, this.permits, Semaphore::availablePermits);
+        meterRegistry.gauge("db.connection.guard.waiting", tags, this.permits, Semaphore::getQueueLength);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS))
+                return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted waiting for a database connection", ex);
+        }
+        rejected.increment();
+        throw new SQLTransientConnectionException(
+                "no database connection available within " + acquireTimeoutMs + "ms");
+    }
+
+    private Connection guard(Connection target) {
+        boolean[] closed = { false };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !closed[0]) {
+                        closed[0] = true;
+                        permits.release();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.tv.expense_tracker.configs;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level and query cache for the low-churn entities read on nearly every
+ * request: customers (looked up by email for each authenticated call), budgets and
+ * savings. Each region is a bounded Caffeine cache with a time-to-live, so data changed
+ * behind Hibernate's back is never served for longer than the TTL; writers that bypass
+ * Hibernate evict explicitly through {@code EntityCacheInvalidator}.
+ * <p>
+ * Not used with sharding: entity ids are only unique within a shard.
+ */
+@Configuration
+@ConditionalOnExpression("${entity-cache.enabled:true} and !${sharding.enabled:false}")
+public class EntityCacheConfig {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String BUDGETS = "budgets";
+    public static final String SAVINGS = "savings";
+
+    @Bean
+    public CacheManager entityCacheManager(MeterRegistry meterRegistry,
+            @Value("${entity-cache.max-entries:10000}") long maxEntries,
+            @Value("${entity-cache.ttl-seconds:600}") long ttlSeconds,
+            @Value("${entity-cache.query-max-entries:5000}") long queryMaxEntries,
+            @Value("${entity-cache.query-ttl-seconds:300}") long queryTtlSeconds) {
+        // a manager per context, so test contexts with different settings do not share caches
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("entity-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : new String[] { CUSTOMERS, BUDGETS, SAVINGS })
+            monitor(meterRegistry, manager.createCache(region, configuration(maxEntries, ttlSeconds)));
+        monitor(meterRegistry, manager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                configuration(queryMaxEntries, queryTtlSeconds)));
+        // one entry per table; must outlive the query results it validates
+        monitor(meterRegistry, manager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                configuration(0, 0)));
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheSettings(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * @param maxEntries 0 for unbounded.
+     * @param ttlSeconds 0 for no expiry.
+     */
+    private static CaffeineConfiguration<Object, Object> configuration(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maxEntries > 0)
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        if (ttlSeconds > 0)
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return configuration;
+    }
+
+    private static void monitor(MeterRegistry meterRegistry, Cache<Object, Object> cache) {
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tv.expense_tracker.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends read-only transactions to the replica and everything else (writes, and work
+ * outside a transaction) to the primary. After a write commits, the same caller (the
+ * authenticated user, or the client address for anonymous requests such as signup) reads
+ * from the primary for {@code readYourWritesMs}, so replication lag never hides their own
+ * changes. The decision needs the transaction's read-only flag, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers
+ * fetching the connection until the first statement.
+ * <p>
+ * The write window is kept per node; with several nodes it holds only if a client keeps
+ * hitting the same one for the length of the window.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private final long readYourWritesNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+    private final Counter writes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long readYourWritesMs,
+            MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.readYourWritesNanos = readYourWritesMs * 1_000_000;
+        this.primaryReads = meterRegistry.counter("db.routing", "target", "primary", "access", "read");
+        this.replicaReads = meterRegistry.counter("db.routing", "target", "replica", "access", "read");
+        this.writes = meterRegistry.counter("db.routing", "target", "primary", "access", "write");
+        meterRegistry.gaugeMapSize("db.routing.recent-writers", Tags.empty(), lastWrites);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route(System.nanoTime());
+    }
+
+    Target route(long now) {
+        String caller = currentCaller();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            if (caller != null && TransactionSynchronizationManager.isSynchronizationActive())
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        lastWrites.put(caller, System.nanoTime());
+                    }
+                });
+            return Target.PRIMARY;
+        }
+        Long lastWrite = caller != null ? lastWrites.get(caller) : null;
+        if (lastWrite != null && now - lastWrite < readYourWritesNanos) {
+            primaryReads.increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    /**
+     * Forgets writers whose window has passed.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(at -> now - at >= readYourWritesNanos);
+    }
+
+    static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken))
+            return "user:" + authentication.getName();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            return "ip:" + request.getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.services.TokenService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Loads the revocations other nodes wrote at startup and every
+ * {@code jwt.revocation-refresh-ms}. On by default; {@code jwt.revocation-refresh-enabled=false}
+ * turns it off where the revoked_tokens table is not there to read.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jwt.revocation-refresh-enabled", havingValue = "true", matchIfMissing = true)
+public class RevocationRefreshConfig {
+
+    private final TokenService tokenService;
+
+    public RevocationRefreshConfig(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-ms:5000}")
+    public void refreshRevocations() {
+        tokenService.loadRevocations();
+    }
+}
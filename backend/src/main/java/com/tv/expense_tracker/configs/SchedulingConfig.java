@@ -0,0 +1,12 @@
+package com.tv.expense_tracker.configs;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs such as the nightly interest accrual.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,81 @@
+package com.tv.expense_tracker.configs;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's persistence work goes to. Unset means the home shard
+ * (shard 0), which holds customers, tokens and the shard directory. Set per request by
+ * {@link ShardContextFilter} and per shard by background jobs; work handed to other
+ * threads must be wrapped with {@link #propagate(Callable)}.
+ */
+public final class ShardContext {
+
+    public static final int HOME = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * @return the current shard, or null for the home shard.
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Switches the current thread to a shard.
+     *
+     * @return the previous shard, to be passed to {@link #exit(Integer)}.
+     */
+    public static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void exit(Integer previous) {
+        restore(previous);
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> work) {
+        Integer previous = enter(shard);
+        try {
+            return work.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    public static void runOn(int shard, Runnable work) {
+        callOn(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wraps a task so it runs on the caller's shard, whichever thread executes it.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Integer shard = CURRENT.get();
+        return () -> {
+            Integer previous = CURRENT.get();
+            restore(shard);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Integer shard) {
+        if (shard == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(shard);
+    }
+}
@@ -0,0 +1,73 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.services.ShardDirectory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each authenticated request on its customer's shard. Account and auth endpoints
+ * stay on the home shard, where customers and tokens live. While a customer is being
+ * moved their writes are refused with 503 and Retry-After; reads continue from the old
+ * shard. Writes are counted while they run so a move can wait for those that got in
+ * before it started.
+ */
+public class ShardContextFilter extends OncePerRequestFilter {
+
+    private final ShardDirectory directory;
+
+    public ShardContextFilter(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/") || path.startsWith("/api/auth/") || path.startsWith("/api/users/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long customerId = authentication == null || authentication instanceof AnonymousAuthenticationToken
+                ? null : directory.customerIdFor(authentication.getName());
+        if (customerId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        if (write && !directory.beginWrite(customerId)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Account is being moved, retry shortly\"}");
+            return;
+        }
+        try {
+            Integer previous = ShardContext.enter(directory.shardFor(customerId));
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                ShardContext.exit(previous);
+            }
+        } finally {
+            if (write)
+                directory.endWrite(customerId);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.services.ShardDirectory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits persistence across the home database ({@code spring.datasource}, shard 0) and
+ * the databases in {@code sharding.shard-urls} when {@code sharding.enabled=true}. The
+ * extra shards share the home credentials and Hikari settings. Hibernate manages the
+ * home schema as usual; when {@code ddl-auto} creates or updates, the same mapping is
+ * applied to every other shard at startup. Not combinable with the read replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+    private static final Set<String> SCHEMA_WRITING_ACTIONS = Set.of("update", "create", "create-drop");
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final ObjectProvider<ShardDirectory> directory;
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    public ShardingConfig(ObjectProvider<ShardDirectory> directory) {
+        this.directory = directory;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${sharding.shard-urls}") String[] shardUrls) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(home));
+        home.setPoolName("shard-0");
+        pools.add(home);
+        for (String url : shardUrls) {
+            if (url.isBlank())
+                continue;
+            HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url.trim()).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("shard-" + pools.size());
+            pools.add(shard);
+        }
+        return new ShardRoutingDataSource(pools);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCapture() {
+        Integrator capture = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                    SessionFactoryImplementor sessionFactory) {
+                ShardingConfig.this.metadata = metadata;
+                ShardingConfig.this.sessionFactory = sessionFactory;
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                    SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(capture));
+    }
+
+    @Bean
+    public SmartInitializingSingleton shardSchemaInitializer(ShardDirectory directory,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return () -> {
+            if (metadata == null || !SCHEMA_WRITING_ACTIONS.contains(ddlAuto))
+                return;
+            Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+            settings.put(AvailableSettings.HBM2DDL_AUTO, "update");
+            settings.put(AvailableSettings.HBM2DDL_HALT_ON_ERROR, true);
+            directory.forEachShard(shard -> {
+                if (shard == ShardContext.HOME)
+                    return;
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings,
+                        action -> {
+                        });
+                logger.info("Schema updated on shard {}", shard);
+            });
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ShardContextFilter> shardContextFilter(ShardDirectory directory) {
+        FilterRegistrationBean<ShardContextFilter> registration = new FilterRegistrationBean<>(
+                new ShardContextFilter(directory));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 2);
+        return registration;
+    }
+
+    @Scheduled(fixedDelayString = "${sharding.directory-refresh-ms:5000}")
+    public void refreshDirectory() {
+        directory.getObject().refresh();
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,96 @@
+package com.tv.expense_tracker.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extras for the virtual-thread execution mode, active only when
+ * {@code spring.threads.virtual.enabled=true} on Java 21 or later (build with
+ * {@code -Pjava21}). Requests then run on virtual threads, so the database rather than
+ * the Tomcat pool becomes the bound: each pool's connections are guarded by
+ * {@link ConnectionGuardDataSource} and carrier pinning is reported by
+ * {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Guards every connection pool, each with as many permits as that pool has connections
+     * ({@code virtual-threads.db-permits} overrides the count for all of them). A routing
+     * DataSource (shards, read replica) is left in place and its target pools are guarded
+     * instead; one guard in front of the router would share a single pool's worth of
+     * permits across all of them.
+     */
+    @Bean
+    public static BeanPostProcessor connectionGuardPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+            Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionGuardDataSource)
+                    return bean;
+                AbstractRoutingDataSource routing = unwrap(dataSource, AbstractRoutingDataSource.class);
+                if (routing == null)
+                    return guard(dataSource, beanName);
+                DataSource fallback = routing.getResolvedDefaultDataSource();
+                Map<Object, Object> targets = new HashMap<>();
+                Object guardedFallback = fallback;
+                for (Map.Entry<Object, DataSource> target : routing.getResolvedDataSources().entrySet()) {
+                    DataSource guarded = guard(target.getValue(), String.valueOf(target.getKey()));
+                    targets.put(target.getKey(), guarded);
+                    if (target.getValue() == fallback)
+                        guardedFallback = guarded;
+                }
+                routing.setTargetDataSources(targets);
+                routing.setDefaultTargetDataSource(guardedFallback);
+                routing.afterPropertiesSet();
+                return bean;
+            }
+
+            private DataSource guard(DataSource target, String name) {
+                if (target instanceof ConnectionGuardDataSource)
+                    return target;
+                HikariDataSource pool = unwrap(target, HikariDataSource.class);
+                int poolSize = pool != null ? pool.getMaximumPoolSize()
+                        : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int permits = environment.getProperty("virtual-threads.db-permits", Integer.class, 0);
+                long timeoutMs = environment.getProperty("virtual-threads.db-acquire-timeout-ms", Long.class,
+                        2000L);
+                String poolName = pool != null && pool.getPoolName() != null ? pool.getPoolName() : name;
+                return new ConnectionGuardDataSource(target, poolName, permits > 0 ? permits : poolSize, timeoutMs,
+                        meterRegistry.getObject());
+            }
+        };
+    }
+
+    private static <T> T unwrap(DataSource dataSource, Class<T> type) {
+        while (dataSource != null) {
+            if (type.isInstance(dataSource))
+                return type.cast(dataSource);
+            dataSource = dataSource instanceof DelegatingDataSource delegating ? delegating.getTargetDataSource() : null;
+        }
+        return null;
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+            @Value("${virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(thresholdMs));
+    }
+}
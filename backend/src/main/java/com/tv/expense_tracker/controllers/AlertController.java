@@ -0,0 +1,61 @@
+package com.tv.expense_tracker.controllers;
+
+import com.tv.expense_tracker.models.BudgetAlert;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.repositories.BudgetAlertRepository;
+import com.tv.expense_tracker.repositories.CustomerRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final BudgetAlertRepository alertRepository;
+    private final CustomerRepository customerRepository;
+
+    public AlertController(BudgetAlertRepository alertRepository, CustomerRepository customerRepository) {
+        this.alertRepository = alertRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    private Customer getCurrentCustomer() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth != null ? auth.getName() : null;
+        if (email == null)
+            return null;
+        return customerRepository.findByEmail(email).orElse(null);
+    }
+
+    /**
+     * Budget alerts of the current customer. With {@code after}, the oldest alerts above that
+     * id in id order: clients poll with the highest id they have seen, so an idle poll is one
+     * index probe and a busy one pages forward without skipping any. Otherwise the newest
+     * alerts below {@code before} (all of them by default), newest first, for scrolling back.
+     */
+    @GetMapping
+    public ResponseEntity<List<BudgetAlert>> getAlerts(@RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before, @RequestParam(defaultValue = "50") int limit) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (limit < 1 || limit > MAX_PAGE_SIZE || after != null && before != null)
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        if (after != null)
+            return ResponseEntity.ok(alertRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(customer.getId(),
+                    after, Limit.of(limit)));
+        return ResponseEntity.ok(alertRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(customer.getId(),
+                before != null ? before : Long.MAX_VALUE, Limit.of(limit)));
+    }
+}
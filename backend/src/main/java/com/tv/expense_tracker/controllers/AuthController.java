@@ -3,14 +3,16 @@ package com.tv.expense_tracker.controllers;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.controllers.dtos.AuthResponse;
 import com.tv.expense_tracker.controllers.dtos.LoginRequest;
+import com.tv.expense_tracker.controllers.dtos.RefreshRequest;
 import com.tv.expense_tracker.controllers.dtos.SignupRequest;
-import com.tv.expense_tracker.securities.JwtUtil;
 import com.tv.expense_tracker.services.AuthService;
 import com.tv.expense_tracker.services.CustomerUserDetailsService;
+import com.tv.expense_tracker.services.TokenService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -19,7 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-    private final JwtUtil jwtUtil;
+    private final TokenService tokenService;
     private final AuthenticationManager authenticationManager;
     private final CustomerUserDetailsService customerUserDetailsService;
 
@@ -31,11 +33,7 @@ public class AuthController {
                 request.getPassword()
         );
 
-        UserDetails userDetails =
-                customerUserDetailsService.loadUserByUsername(customer.getEmail());
-
-        String token = jwtUtil.generateToken(userDetails);
-        return new AuthResponse(token);
+        return tokenService.issue(customer);
     }
 
     @PostMapping("/login")
@@ -47,10 +45,31 @@ public class AuthController {
                 )
         );
 
-        UserDetails userDetails =
-                customerUserDetailsService.loadUserByUsername(request.getEmail());
+        Customer customer = customerUserDetailsService.findCustomerByEmail(request.getEmail());
+        return tokenService.issue(customer);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and refresh token; the presented
+     * refresh token cannot be used again.
+     */
+    @PostMapping("/refresh")
+    public AuthResponse refresh(@RequestBody RefreshRequest request) {
+        return tokenService.refresh(request.getRefreshToken());
+    }
 
-        String token = jwtUtil.generateToken(userDetails);
-        return new AuthResponse(token);
+    /**
+     * Revokes the bearer access token and the refresh token's family, or every session of
+     * the user with {@code all=true}.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(defaultValue = "false") boolean all) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        tokenService.logout(accessToken, request != null ? request.getRefreshToken() : null, all);
+        return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
@@ -4,10 +4,13 @@ import com.tv.expense_tracker.models.Bill;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.BillRepository;
 import com.tv.expense_tracker.repositories.CustomerRepository;
+import com.tv.expense_tracker.services.DomainEvent;
+import com.tv.expense_tracker.services.DomainEventBus;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -20,10 +23,13 @@ public class BillController {
 
     private final BillRepository billRepository;
     private final CustomerRepository customerRepository;
+    private final DomainEventBus domainEvents;
 
-    public BillController(BillRepository billRepository, CustomerRepository customerRepository) {
+    public BillController(BillRepository billRepository, CustomerRepository customerRepository,
+            DomainEventBus domainEvents) {
         this.billRepository = billRepository;
         this.customerRepository = customerRepository;
+        this.domainEvents = domainEvents;
     }
 
     private Customer getCurrentCustomer() {
@@ -68,13 +74,10 @@ public class BillController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Bill> existingOpt = billRepository.findById(id);
+        Optional<Bill> existingOpt = billRepository.findByIdAndCustomerId(id, customer.getId());
         if (existingOpt.isEmpty())
             return ResponseEntity.notFound().build();
         Bill existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
 
         existing.setName(payload.getName());
         existing.setAmount(payload.getAmount());
@@ -93,33 +96,23 @@ public class BillController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Bill> existingOpt = billRepository.findById(id);
-        if (existingOpt.isEmpty())
+        if (billRepository.deleteByIdAndCustomerId(id, customer.getId()) == 0)
             return ResponseEntity.notFound().build();
-        Bill existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        billRepository.delete(existing);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/{id}/pay")
+    @Transactional
     public ResponseEntity<Bill> payBill(@PathVariable Long id) {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Bill> existingOpt = billRepository.findById(id);
-        if (existingOpt.isEmpty())
+        if (billRepository.updateStatusByIdAndCustomerId(id, customer.getId(), "paid", LocalDate.now()) == 0)
             return ResponseEntity.notFound().build();
-        Bill existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        existing.setStatus("paid");
-        existing.setPaidDate(LocalDate.now());
-        Bill saved = billRepository.save(existing);
-        return ResponseEntity.ok(saved);
+        Optional<Bill> paid = billRepository.findByIdAndCustomerId(id, customer.getId());
+        paid.ifPresent(bill -> domainEvents.publish(DomainEvent.BILL_PAID, customer.getId(), bill.getId(), "amount",
+                bill.getAmount(), "category", bill.getCategory(), "paidDate", bill.getPaidDate()));
+        return ResponseEntity.of(paid);
     }
 
     @PostMapping("/{id}/unpay")
@@ -127,16 +120,8 @@ public class BillController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Bill> existingOpt = billRepository.findById(id);
-        if (existingOpt.isEmpty())
+        if (billRepository.updateStatusByIdAndCustomerId(id, customer.getId(), "pending", null) == 0)
             return ResponseEntity.notFound().build();
-        Bill existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        existing.setStatus("pending");
-        existing.setPaidDate(null);
-        Bill saved = billRepository.save(existing);
-        return ResponseEntity.ok(saved);
+        return ResponseEntity.of(billRepository.findByIdAndCustomerId(id, customer.getId()));
     }
 }
@@ -2,10 +2,9 @@ package com.tv.expense_tracker.controllers;
 
 import com.tv.expense_tracker.models.Budget;
 import com.tv.expense_tracker.models.Customer;
-import com.tv.expense_tracker.models.Transaction;
-import com.tv.expense_tracker.repositories.BudgetRepository;
 import com.tv.expense_tracker.repositories.CustomerRepository;
-import com.tv.expense_tracker.repositories.TransactionRepository;
+import com.tv.expense_tracker.services.BudgetService;
+import com.tv.expense_tracker.services.BudgetService.BudgetEvaluation;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,15 +20,12 @@ import java.math.RoundingMode;
 @RequestMapping("/api/budgets")
 public class BudgetController {
 
-    private final BudgetRepository budgetRepository;
     private final CustomerRepository customerRepository;
-    private final TransactionRepository transactionRepository;
+    private final BudgetService budgetService;
 
-    public BudgetController(BudgetRepository budgetRepository, CustomerRepository customerRepository,
-            TransactionRepository transactionRepository) {
-        this.budgetRepository = budgetRepository;
+    public BudgetController(CustomerRepository customerRepository, BudgetService budgetService) {
         this.customerRepository = customerRepository;
-        this.transactionRepository = transactionRepository;
+        this.budgetService = budgetService;
     }
 
     private Customer getCurrentCustomer() {
@@ -65,23 +61,11 @@ public class BudgetController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        List<Budget> budgets = budgetRepository.findByCustomer(customer);
-
-        // load transactions for this customer once and compute sums by category
-        List<Transaction> txs = transactionRepository.findByCustomerOrderByDateDesc(customer);
-        Map<String, BigDecimal> spentByCategory = new HashMap<>();
-        for (Transaction t : txs) {
-            if ("expense".equalsIgnoreCase(t.getType())) {
-                String cat = t.getCategory() == null ? "" : t.getCategory();
-                spentByCategory.putIfAbsent(cat, BigDecimal.ZERO);
-                spentByCategory.put(cat, spentByCategory.get(cat).add(t.getAmount()));
-            }
-        }
+        BudgetEvaluation evaluation = budgetService.evaluate(customer);
 
-        List<BudgetResponse> resp = budgets.stream().map(b -> {
-            BigDecimal spent = spentByCategory.getOrDefault(b.getCategory(), BigDecimal.ZERO);
-            return new BudgetResponse(b, spent);
-        }).collect(Collectors.toList());
+        List<BudgetResponse> resp = evaluation.budgets().stream()
+                .map(b -> new BudgetResponse(b, evaluation.spentFor(b.getCategory())))
+                .collect(Collectors.toList());
 
         return ResponseEntity.ok(resp);
     }
@@ -91,8 +75,7 @@ public class BudgetController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        payload.setCustomer(customer);
-        Budget saved = budgetRepository.save(payload);
+        Budget saved = budgetService.createForCustomer(customer, payload);
         // spent = 0 initially
         BudgetResponse resp = new BudgetResponse(saved, BigDecimal.ZERO);
         return ResponseEntity.status(HttpStatus.CREATED).body(resp);
@@ -103,26 +86,13 @@ public class BudgetController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Budget> existingOpt = budgetRepository.findById(id);
-        if (existingOpt.isEmpty())
+        Optional<Budget> savedOpt = budgetService.updateForCustomer(id, customer, payload);
+        if (savedOpt.isEmpty())
             return ResponseEntity.notFound().build();
-        Budget existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-
-        existing.setCategory(payload.getCategory());
-        existing.setBudgetLimit(payload.getBudgetLimit());
-        existing.setPeriod(payload.getPeriod());
-
-        Budget saved = budgetRepository.save(existing);
+        Budget saved = savedOpt.get();
 
         // recompute spent for this category
-        List<Transaction> txs = transactionRepository.findByCustomerOrderByDateDesc(customer);
-        BigDecimal spent = txs.stream()
-                .filter(t -> "expense".equalsIgnoreCase(t.getType()) && t.getCategory() != null
-                        && t.getCategory().equals(saved.getCategory()))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal spent = budgetService.evaluate(customer).spentFor(saved.getCategory());
 
         return ResponseEntity.ok(new BudgetResponse(saved, spent));
     }
@@ -132,13 +102,8 @@ public class BudgetController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Budget> existingOpt = budgetRepository.findById(id);
-        if (existingOpt.isEmpty())
+        if (!budgetService.deleteForCustomer(id, customer))
             return ResponseEntity.notFound().build();
-        Budget existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        budgetRepository.delete(existing);
         return ResponseEntity.noContent().build();
     }
 
@@ -147,18 +112,13 @@ public class BudgetController {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        List<Budget> budgets = budgetRepository.findByCustomer(customer);
-        List<Transaction> txs = transactionRepository.findByCustomerOrderByDateDesc(customer);
+        BudgetEvaluation evaluation = budgetService.evaluate(customer);
+        List<Budget> budgets = evaluation.budgets();
 
         BigDecimal totalLimit = budgets.stream().map(Budget::getBudgetLimit).reduce(BigDecimal.ZERO, BigDecimal::add);
         BigDecimal totalSpent = BigDecimal.ZERO;
         for (Budget b : budgets) {
-            BigDecimal spent = txs.stream()
-                    .filter(t -> "expense".equalsIgnoreCase(t.getType()) && t.getCategory() != null
-                            && t.getCategory().equals(b.getCategory()))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            totalSpent = totalSpent.add(spent);
+            totalSpent = totalSpent.add(evaluation.spentFor(b.getCategory()));
         }
 
         int overallPercentage = 0;
@@ -0,0 +1,58 @@
+package com.tv.expense_tracker.controllers;
+
+import com.tv.expense_tracker.controllers.dtos.NetWorthPoint;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.repositories.CustomerRepository;
+import com.tv.expense_tracker.services.NetWorthService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/networth")
+public class NetWorthController {
+
+    private final NetWorthService netWorthService;
+    private final CustomerRepository customerRepository;
+
+    public NetWorthController(NetWorthService netWorthService, CustomerRepository customerRepository) {
+        this.netWorthService = netWorthService;
+        this.customerRepository = customerRepository;
+    }
+
+    private Customer getCurrentCustomer() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth != null ? auth.getName() : null;
+        if (email == null)
+            return null;
+        return customerRepository.findByEmail(email).orElse(null);
+    }
+
+    /**
+     * Daily net worth over a date range (default: the last 90 days), for charts.
+     */
+    @GetMapping
+    public ResponseEntity<List<NetWorthPoint>> getSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(89);
+        try {
+            return ResponseEntity.ok(netWorthService.series(customer.getId(), start, end));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+}
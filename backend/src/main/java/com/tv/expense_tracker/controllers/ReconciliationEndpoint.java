@@ -0,0 +1,56 @@
+package com.tv.expense_tracker.controllers;
+
+import com.tv.expense_tracker.controllers.dtos.LedgerMismatch;
+import com.tv.expense_tracker.models.ReconciliationRun;
+import com.tv.expense_tracker.repositories.ReconciliationMismatchRepository;
+import com.tv.expense_tracker.services.LedgerReconciliationService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operator view of the savings ledger reconciliation at {@code /actuator/reconciliation}:
+ * read the latest run with all of its mismatches, or start a new run. Like every other
+ * actuator endpoint except health it is only served over HTTP when added to
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+@AllArgsConstructor
+public class ReconciliationEndpoint {
+
+    private final LedgerReconciliationService reconciliationService;
+    private final ReconciliationMismatchRepository mismatchRepository;
+
+    @ReadOperation
+    public Map<String, Object> latest() {
+        return describe(reconciliationService.latestRun());
+    }
+
+    @WriteOperation
+    public Map<String, Object> run() {
+        return describe(reconciliationService.reconcile());
+    }
+
+    private Map<String, Object> describe(ReconciliationRun run) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (run == null)
+            return result;
+        result.put("runId", run.getId());
+        result.put("startedAt", run.getStartedAt());
+        result.put("finishedAt", run.getFinishedAt());
+        result.put("shards", run.getShards());
+        result.put("accountsChecked", run.getAccountsChecked());
+        result.put("mismatchCount", run.getMismatches());
+        List<LedgerMismatch> mismatches = mismatchRepository.findByRunIdOrderBySavingId(run.getId()).stream()
+                .map(LedgerMismatch::new).toList();
+        result.put("mismatches", mismatches);
+        return result;
+    }
+}
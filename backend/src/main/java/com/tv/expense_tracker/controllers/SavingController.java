@@ -1,26 +1,55 @@
 package com.tv.expense_tracker.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry;
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionSummary;
+import com.tv.expense_tracker.controllers.dtos.SavingGoalProgress;
 import com.tv.expense_tracker.controllers.dtos.SavingRequest;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionRequest;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionResult;
 import com.tv.expense_tracker.controllers.dtos.AmountRequest;
 import com.tv.expense_tracker.controllers.dtos.TransferRequest;
 import com.tv.expense_tracker.controllers.dtos.SavingResponse;
+import com.tv.expense_tracker.controllers.dtos.BalancePoint;
+import com.tv.expense_tracker.controllers.dtos.LedgerMismatch;
+import com.tv.expense_tracker.controllers.dtos.SavingBalanceResponse;
+import com.tv.expense_tracker.controllers.dtos.SavingTransactionPage;
+import com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse;
 import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.ReconciliationRun;
 import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.services.IdempotencyService;
+import com.tv.expense_tracker.services.LedgerReconciliationService;
+import com.tv.expense_tracker.services.SavingLedgerService;
 import com.tv.expense_tracker.services.SavingService;
+import com.tv.expense_tracker.services.ScenarioProjectionService;
 import com.tv.expense_tracker.repositories.CustomerRepository;
+import com.tv.expense_tracker.repositories.ReconciliationMismatchRepository;
 import com.tv.expense_tracker.repositories.SavingRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/savings")
@@ -29,8 +58,17 @@ public class SavingController {
 
     private final SavingRepository savingRepository;
     private final SavingService savingService;
+    private final ScenarioProjectionService scenarioProjectionService;
+    private final IdempotencyService idempotencyService;
+    private final SavingLedgerService ledgerService;
+    private final LedgerReconciliationService reconciliationService;
+    private final ReconciliationMismatchRepository mismatchRepository;
     private static final Logger logger = LoggerFactory.getLogger(SavingController.class);
     private final CustomerRepository customerRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final String NDJSON = "application/x-ndjson";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private Customer getCurrentCustomer() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -42,12 +80,33 @@ public class SavingController {
 
     @GetMapping
     @Transactional(readOnly = true)
-    public ResponseEntity<List<SavingResponse>> getSavings() {
+    public ResponseEntity<List<SavingResponse>> getSavings(
+            @RequestParam(defaultValue = "false") boolean includeDescription) {
         Customer customer = getCurrentCustomer();
         if (customer == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(savingService.getSavingsForCustomer(customer));
+        return ResponseEntity.ok(savingService.getSavingsForCustomer(customer, includeDescription));
+    }
+
+    /**
+     * Goal progress, contribution rate and projected completion for all of the customer's savings.
+     */
+    @GetMapping("/goals")
+    public ResponseEntity<List<SavingGoalProgress>> getGoals() {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(savingService.getGoalProgressForCustomer(customer));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SavingResponse> getSaving(@PathVariable Long id) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.of(savingRepository.findByIdAndCustomerId(id, customer.getId())
+                .map(savingService::getSaving));
     }
 
     @PostMapping
@@ -62,107 +121,247 @@ public class SavingController {
     }
 
     @PostMapping("/{id}/deposit")
-    public ResponseEntity<SavingResponse> deposit(@PathVariable Long id, @RequestBody AmountRequest request) {
+    public ResponseEntity<SavingResponse> deposit(@PathVariable Long id, @RequestBody AmountRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return idempotencyService.execute(customer.getEmail(), idempotencyKey, "POST /api/savings/" + id + "/deposit",
+                request, SavingResponse.class, () -> {
+                    Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
+                    if (existingOpt.isEmpty())
+                        return ResponseEntity.notFound().build();
+                    Saving existing = existingOpt.get();
+                    logger.info("Deposit request id={}, amount={}", id, request.getAmount());
+                    try {
+                        SavingResponse r = savingService.depositToSaving(existing, request.getAmount(),
+                                request.getDescription());
+                        logger.info("Deposit success id={}, newBalance={}", id, r.getBalance());
+                        return ResponseEntity.ok(r);
+                    } catch (IllegalArgumentException ex) {
+                        logger.warn("Deposit failed id={}, reason={}", id, ex.getMessage());
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+                    }
+                });
+    }
+
+    @PostMapping("/{id}/withdraw")
+    public ResponseEntity<SavingResponse> withdraw(@PathVariable Long id, @RequestBody AmountRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Saving> existingOpt = savingRepository.findById(id);
+        return idempotencyService.execute(customer.getEmail(), idempotencyKey, "POST /api/savings/" + id + "/withdraw",
+                request, SavingResponse.class, () -> {
+                    Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
+                    if (existingOpt.isEmpty())
+                        return ResponseEntity.notFound().build();
+                    Saving existing = existingOpt.get();
+                    logger.info("Withdraw request id={}, amount={}", id, request.getAmount());
+                    try {
+                        SavingResponse r = savingService.withdrawFromSaving(existing, request.getAmount(),
+                                request.getDescription());
+                        logger.info("Withdraw success id={}, newBalance={}", id, r.getBalance());
+                        return ResponseEntity.ok(r);
+                    } catch (IllegalArgumentException ex) {
+                        logger.warn("Withdraw failed id={}, reason={}", id, ex.getMessage());
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+                    }
+                });
+    }
+
+    /**
+     * Ledger of the saving, newest first, one page at a time. When more rows remain the
+     * cursor for the next page is returned in the {@code X-Next-Cursor} header.
+     */
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<List<SavingTransactionResponse>> getTransactions(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includeDescription) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
         if (existingOpt.isEmpty())
             return ResponseEntity.notFound().build();
-        Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        logger.info("Deposit request id={}, amount={}", id, request.getAmount());
+        SavingTransactionPage page;
         try {
-            SavingResponse r = savingService.depositToSaving(existing, request.getAmount(), request.getDescription());
-            logger.info("Deposit success id={}, newBalance={}", id, r.getBalance());
-            return ResponseEntity.ok(r);
+            page = savingService.getTransactionsForSaving(existingOpt.get(), from, to, cursor, limit,
+                    includeDescription);
         } catch (IllegalArgumentException ex) {
-            logger.warn("Deposit failed id={}, reason={}", id, ex.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+            logger.warn("Ledger request rejected id={}, reason={}", id, ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null)
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getItems());
     }
 
-    @PostMapping("/{id}/withdraw")
-    public ResponseEntity<SavingResponse> withdraw(@PathVariable Long id, @RequestBody AmountRequest request) {
+    /**
+     * Savings of the current customer whose balance disagreed with their ledger in the
+     * latest reconciliation run.
+     */
+    @GetMapping("/reconciliation")
+    public ResponseEntity<List<LedgerMismatch>> getReconciliationMismatches() {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Saving> existingOpt = savingRepository.findById(id);
-        if (existingOpt.isEmpty())
+        ReconciliationRun run = reconciliationService.latestRun();
+        if (run == null)
+            return ResponseEntity.ok(List.of());
+        return ResponseEntity.ok(mismatchRepository.findByRunIdAndCustomerId(run.getId(), customer.getId()).stream()
+                .map(LedgerMismatch::new).toList());
+    }
+
+    /**
+     * Balance of the saving at a moment in time, derived from the ledger and its snapshots.
+     */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<SavingBalanceResponse> getBalance(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant asOf) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (savingRepository.findByIdAndCustomerId(id, customer.getId()).isEmpty())
             return ResponseEntity.notFound().build();
-        Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        logger.info("Withdraw request id={}, amount={}", id, request.getAmount());
+        Instant at = asOf != null ? asOf : Instant.now();
+        return ResponseEntity.ok(new SavingBalanceResponse(id, at, ledgerService.balanceAsOf(id, at)));
+    }
+
+    /**
+     * End-of-day balances over a date range (default: the last 30 days), for charts.
+     */
+    @GetMapping("/{id}/balance/history")
+    public ResponseEntity<List<BalancePoint>> getBalanceHistory(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (savingRepository.findByIdAndCustomerId(id, customer.getId()).isEmpty())
+            return ResponseEntity.notFound().build();
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
         try {
-            SavingResponse r = savingService.withdrawFromSaving(existing, request.getAmount(),
-                    request.getDescription());
-            logger.info("Withdraw success id={}, newBalance={}", id, r.getBalance());
-            return ResponseEntity.ok(r);
+            return ResponseEntity.ok(ledgerService.dailyBalances(id, start, end, ZoneId.systemDefault()));
         } catch (IllegalArgumentException ex) {
-            logger.warn("Withdraw failed id={}, reason={}", id, ex.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
-    @GetMapping("/{id}/transactions")
-    public ResponseEntity<List<com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse>> getTransactions(
-            @PathVariable Long id) {
+    @GetMapping("/{id}/projection")
+    public ResponseEntity<List<com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry>> getProjection(
+            @PathVariable Long id, @RequestParam(defaultValue = "12") int months) {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Saving> existingOpt = savingRepository.findById(id);
+        Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
         if (existingOpt.isEmpty())
             return ResponseEntity.notFound().build();
         Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        List<com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse> tr = savingService
-                .getTransactionsForSaving(existing);
-        return ResponseEntity.ok(tr);
+        try {
+            List<com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry> proj = savingService
+                    .getInterestProjection(existing, months);
+            return ResponseEntity.ok(proj);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Projection rejected id={}, months={}, reason={}", id, months, ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
-    @GetMapping("/{id}/projection")
-    public ResponseEntity<List<com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry>> getProjection(
+    /**
+     * Same projection as newline-delimited JSON, written month by month so long horizons
+     * are never materialized in memory.
+     */
+    @GetMapping(value = "/{id}/projection", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProjection(
             @PathVariable Long id, @RequestParam(defaultValue = "12") int months) {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Saving> existingOpt = savingRepository.findById(id);
+        Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
         if (existingOpt.isEmpty())
             return ResponseEntity.notFound().build();
-        Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId()))
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        List<com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry> proj = savingService
-                .getInterestProjection(existing, months);
-        return ResponseEntity.ok(proj);
+        Stream<InterestProjectionEntry> entries;
+        try {
+            entries = savingService.streamInterestProjection(existingOpt.get(), months);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (InterestProjectionEntry entry : (Iterable<InterestProjectionEntry>) entries::iterator) {
+                writer.write(objectMapper.writeValueAsString(entry));
+                writer.write('\n');
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
-    @PostMapping("/transfer")
-    public ResponseEntity<Void> transfer(@RequestBody TransferRequest request) {
+    @GetMapping("/{id}/projection/summary")
+    public ResponseEntity<InterestProjectionSummary> getProjectionSummary(
+            @PathVariable Long id, @RequestParam(defaultValue = "12") int months) {
         Customer customer = getCurrentCustomer();
         if (customer == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        Optional<Saving> fromOpt = savingRepository.findById(request.getFromId());
-        Optional<Saving> toOpt = savingRepository.findById(request.getToId());
-        if (fromOpt.isEmpty() || toOpt.isEmpty())
+        Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
+        if (existingOpt.isEmpty())
             return ResponseEntity.notFound().build();
-        Saving from = fromOpt.get();
-        Saving to = toOpt.get();
-        if (!from.getCustomer().getId().equals(customer.getId())
-                || !to.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        try {
+            return ResponseEntity.ok(savingService.getInterestProjectionSummary(existingOpt.get(), months));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+    }
+
+    /**
+     * Evaluates a batch of what-if scenarios over one or more of the customer's savings.
+     */
+    @PostMapping("/projections")
+    public ResponseEntity<List<ScenarioProjectionResult>> projectScenarios(
+            @RequestBody ScenarioProjectionRequest request) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         try {
-            savingService.transferBetweenSavings(from, to, request.getAmount(), request.getDescription());
-            return ResponseEntity.noContent().build();
+            return ResponseEntity.ok(scenarioProjectionService.project(customer, request));
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.notFound().build();
         } catch (IllegalArgumentException ex) {
+            logger.warn("Scenario projection rejected reason={}", ex.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
+    @PostMapping("/transfer")
+    public ResponseEntity<Void> transfer(@RequestBody TransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        Customer customer = getCurrentCustomer();
+        if (customer == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return idempotencyService.execute(customer.getEmail(), idempotencyKey, "POST /api/savings/transfer", request,
+                Void.class, () -> {
+                    Optional<Saving> fromOpt = savingRepository.findByIdAndCustomerId(request.getFromId(),
+                            customer.getId());
+                    Optional<Saving> toOpt = savingRepository.findByIdAndCustomerId(request.getToId(),
+                            customer.getId());
+                    if (fromOpt.isEmpty() || toOpt.isEmpty())
+                        return ResponseEntity.notFound().build();
+                    try {
+                        savingService.transferBetweenSavings(fromOpt.get(), toOpt.get(), request.getAmount(),
+                                request.getDescription());
+                        return ResponseEntity.noContent().build();
+                    } catch (IllegalArgumentException ex) {
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                    }
+                });
+    }
+
     @PutMapping("/{id}")
     @Transactional
     public ResponseEntity<SavingResponse> updateSaving(@PathVariable Long id, @RequestBody SavingRequest payload) {
@@ -170,14 +369,11 @@ public class SavingController {
         if (customer == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        Optional<Saving> existingOpt = savingRepository.findById(id);
+        Optional<Saving> existingOpt = savingRepository.findByIdAndCustomerId(id, customer.getId());
         if (existingOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
 
         SavingResponse r = savingService.updateForCustomer(existing, payload);
         return ResponseEntity.ok(r);
@@ -189,15 +385,9 @@ public class SavingController {
         if (customer == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        Optional<Saving> existingOpt = savingRepository.findById(id);
-        if (existingOpt.isEmpty()) {
+        if (!savingService.deleteForCustomer(id, customer)) {
             return ResponseEntity.notFound().build();
         }
-        Saving existing = existingOpt.get();
-        if (!existing.getCustomer().getId().equals(customer.getId())) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        savingRepository.delete(existing);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
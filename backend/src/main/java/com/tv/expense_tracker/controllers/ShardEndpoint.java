@@ -0,0 +1,44 @@
+package com.tv.expense_tracker.controllers;
+
+import com.tv.expense_tracker.services.ShardDirectory;
+import com.tv.expense_tracker.services.ShardMigrationService;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operator view of the shards at {@code /actuator/shards}: customers per shard, and the
+ * resharding tool that moves one customer ({@code {"customerId": 42, "shard": 1}}). Only
+ * served over HTTP when added to {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "shards")
+@AllArgsConstructor
+public class ShardEndpoint {
+
+    private final ShardDirectory directory;
+    private final ShardMigrationService migrationService;
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", directory.isEnabled());
+        result.put("shards", directory.getShardCount());
+        result.put("customersPerShard", directory.customersPerShard());
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> move(long customerId, int shard) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("customerId", customerId);
+        result.put("shard", shard);
+        result.put("rowsCopied", migrationService.moveCustomer(customerId, shard));
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.tv.expense_tracker.controllers;
 import com.tv.expense_tracker.controllers.dtos.TransactionDTO;
 import com.tv.expense_tracker.controllers.dtos.TransactionRequest;
 import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.services.IdempotencyService;
 import com.tv.expense_tracker.services.TransactionService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,27 +21,33 @@ import java.util.stream.Collectors;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Endpoint to create a new transaction for the authenticated user.
      * 
      * @param request The transaction details.
+     * @param idempotencyKey Optional key; a retry with the same key returns the first result.
      * @return The created transaction.
      */
     @PostMapping
-    public ResponseEntity<TransactionDTO> createTransaction(@RequestBody TransactionRequest request) {
+    public ResponseEntity<TransactionDTO> createTransaction(@RequestBody TransactionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
 
-        Transaction transaction = new Transaction();
-        transaction.setDescription(request.getDescription());
-        transaction.setAmount(request.getAmount());
-        transaction.setDate(request.getDate());
-        transaction.setCategory(request.getCategory());
-        transaction.setType(request.getType());
+        return idempotencyService.execute(userEmail, idempotencyKey, "POST /api/transactions", request,
+                TransactionDTO.class, () -> {
+                    Transaction transaction = new Transaction();
+                    transaction.setDescription(request.getDescription());
+                    transaction.setAmount(request.getAmount());
+                    transaction.setDate(request.getDate());
+                    transaction.setCategory(request.getCategory());
+                    transaction.setType(request.getType());
 
-        Transaction createdTransaction = transactionService.createTransaction(transaction, userEmail);
-        return ResponseEntity.status(HttpStatus.CREATED).body(new TransactionDTO(createdTransaction));
+                    Transaction createdTransaction = transactionService.createTransaction(transaction, userEmail);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(new TransactionDTO(createdTransaction));
+                });
     }
 
     /**
@@ -2,9 +2,14 @@ package com.tv.expense_tracker.controllers.dtos;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // access token lifetime in seconds
+    private long expiresIn;
 }
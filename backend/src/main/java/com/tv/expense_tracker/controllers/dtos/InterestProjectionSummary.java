@@ -0,0 +1,13 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class InterestProjectionSummary {
+    private int months;
+    private BigDecimal finalBalance;
+    private BigDecimal totalInterest;
+}
@@ -0,0 +1,26 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import com.tv.expense_tracker.models.ReconciliationMismatch;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class LedgerMismatch {
+    private Long savingId;
+    private BigDecimal storedBalance;
+    private BigDecimal ledgerBalance;
+    private BigDecimal difference;
+    private Instant detectedAt;
+
+    public LedgerMismatch(ReconciliationMismatch mismatch) {
+        this.savingId = mismatch.getSavingId();
+        this.storedBalance = mismatch.getStoredBalance();
+        this.ledgerBalance = mismatch.getLedgerBalance();
+        this.difference = mismatch.getStoredBalance().subtract(mismatch.getLedgerBalance());
+        this.detectedAt = mismatch.getDetectedAt();
+    }
+}
@@ -0,0 +1,18 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetWorthPoint {
+    private LocalDate date;
+    private BigDecimal savings;
+    private BigDecimal cash;
+    private BigDecimal netWorth;
+}
@@ -0,0 +1,8 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
@@ -0,0 +1,15 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class SavingBalanceResponse {
+    private Long savingId;
+    private Instant asOf;
+    private BigDecimal balance;
+}
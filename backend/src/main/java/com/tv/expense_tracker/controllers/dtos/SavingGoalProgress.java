@@ -0,0 +1,33 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+public class SavingGoalProgress {
+    private Long id;
+    private String name;
+    private BigDecimal balance;
+    private BigDecimal interestRate;
+    private BigDecimal goal;
+    // net deposits and transfers in over the trailing window; excludes interest and edits
+    private BigDecimal recentContributions;
+    private BigDecimal monthlyContribution;
+    private BigDecimal progressPercent;
+    private Integer monthsToGoal;
+    private LocalDate projectedCompletionDate;
+
+    public SavingGoalProgress(Long id, String name, BigDecimal balance, BigDecimal interestRate, BigDecimal goal,
+            BigDecimal recentContributions) {
+        this.id = id;
+        this.name = name;
+        this.balance = balance;
+        this.interestRate = interestRate;
+        this.goal = goal;
+        this.recentContributions = recentContributions;
+    }
+}
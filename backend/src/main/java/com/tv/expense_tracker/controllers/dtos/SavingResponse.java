@@ -1,10 +1,13 @@
 package com.tv.expense_tracker.controllers.dtos;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Data
+@NoArgsConstructor
 public class SavingResponse {
     private Long id;
     private String name;
@@ -15,4 +18,16 @@ public class SavingResponse {
     private String description;
     private Instant createdAt;
     private Instant updatedAt;
-}
\ No newline at end of file
+
+    public SavingResponse(Long id, String name, String accountType, BigDecimal balance, BigDecimal interestRate,
+            BigDecimal goal, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.accountType = accountType;
+        this.balance = balance;
+        this.interestRate = interestRate;
+        this.goal = goal;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+}
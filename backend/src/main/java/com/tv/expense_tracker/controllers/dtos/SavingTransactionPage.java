@@ -0,0 +1,12 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SavingTransactionPage {
+    private List<SavingTransactionResponse> items;
+    private String nextCursor;
+}
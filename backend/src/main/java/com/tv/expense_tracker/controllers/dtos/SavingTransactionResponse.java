@@ -1,14 +1,24 @@
 package com.tv.expense_tracker.controllers.dtos;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Data
+@NoArgsConstructor
 public class SavingTransactionResponse {
     private Long id;
     private String type;
     private BigDecimal amount;
     private String description;
     private Instant createdAt;
-}
\ No newline at end of file
+
+    public SavingTransactionResponse(Long id, String type, BigDecimal amount, Instant createdAt) {
+        this.id = id;
+        this.type = type;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+}
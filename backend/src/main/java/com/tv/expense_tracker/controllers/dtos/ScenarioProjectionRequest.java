@@ -0,0 +1,19 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class ScenarioProjectionRequest {
+    private List<Long> savingIds;
+    private List<Scenario> scenarios;
+
+    @Data
+    public static class Scenario {
+        private String name;
+        private BigDecimal interestRate; // annual %, null = the saving's own rate
+        private BigDecimal monthlyContribution;
+        private int months;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tv.expense_tracker.controllers.dtos;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class ScenarioProjectionResult {
+    private Long savingId;
+    private String scenario;
+    private BigDecimal interestRate;
+    private BigDecimal monthlyContribution;
+    private int months;
+    private BigDecimal finalBalance;
+    private BigDecimal totalContributions;
+    private BigDecimal totalInterest;
+    private List<BigDecimal> balances; // end-of-month balance, one per month
+}
@@ -2,11 +2,13 @@ package com.tv.expense_tracker.controllers.dtos;
 
 import com.tv.expense_tracker.models.Transaction;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
 public class TransactionDTO {
     private Long id;
     private String description;
@@ -1,5 +1,6 @@
 package com.tv.expense_tracker.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -37,6 +38,9 @@ public class Bill {
 
     private LocalDate paidDate;
 
+    // Not serialized: outside a session this is an uninitialized proxy, and ownership
+    // checks only need the foreign key.
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
@@ -1,14 +1,19 @@
 package com.tv.expense_tracker.models;
 
+import com.tv.expense_tracker.configs.EntityCacheConfig;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.BUDGETS)
 @Table(name = "budgets")
 public class Budget {
 
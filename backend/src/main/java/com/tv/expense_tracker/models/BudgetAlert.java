@@ -0,0 +1,55 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A notification that spending in a budget's category reached a threshold percentage of
+ * its limit during one period. At most one per budget, period and threshold.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "budget_alerts", uniqueConstraints = @UniqueConstraint(name = "uk_budget_alerts_budget_period_threshold",
+        columnNames = { "budget_id", "period_start", "threshold" }), indexes = @Index(name = "idx_budget_alerts_customer",
+        columnList = "customer_id, id"))
+public class BudgetAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "budget_id", nullable = false)
+    private Long budgetId;
+
+    private String category;
+
+    @Column(nullable = false)
+    private String period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    private int threshold;
+
+    @Column(nullable = false)
+    private BigDecimal spent;
+
+    @Column(name = "budget_limit", nullable = false)
+    private BigDecimal budgetLimit;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public BudgetAlert() {
+    }
+}
@@ -0,0 +1,52 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * The stored outcome of a request made with an {@code Idempotency-Key}. Keys are scoped to
+ * the authenticated principal; the request hash detects a key reused for another request.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_principal_key",
+        columnNames = { "principal", "idempotency_key" }))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String principal;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String principal, String idempotencyKey, String requestHash) {
+        this.principal = principal;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+    }
+}
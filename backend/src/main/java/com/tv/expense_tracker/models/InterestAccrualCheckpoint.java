@@ -0,0 +1,43 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Progress of the interest accrual run for one accrual date. Savings are processed in id
+ * order, so a restarted run resumes after {@code lastSavingId}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "interest_accrual_checkpoints")
+public class InterestAccrualCheckpoint {
+
+    @Id
+    @Column(name = "accrual_date")
+    private LocalDate accrualDate;
+
+    @Column(name = "last_saving_id", nullable = false)
+    private long lastSavingId;
+
+    @Column(name = "accounts_accrued", nullable = false)
+    private long accountsAccrued;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public InterestAccrualCheckpoint() {
+    }
+
+    public InterestAccrualCheckpoint(LocalDate accrualDate) {
+        this.accrualDate = accrualDate;
+        this.updatedAt = Instant.now();
+    }
+}
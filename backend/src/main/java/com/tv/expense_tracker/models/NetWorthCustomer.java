@@ -0,0 +1,29 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A customer whose net_worth_daily rows are maintained. Net-worth updates lock this row
+ * rather than the customer's, so they only wait for each other and for back-fills;
+ * {@code rebuiltAt} stays null until the first back-fill has written the rows.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "net_worth_customers")
+public class NetWorthCustomer {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "rebuilt_at")
+    private Instant rebuiltAt;
+
+    public NetWorthCustomer() {
+    }
+}
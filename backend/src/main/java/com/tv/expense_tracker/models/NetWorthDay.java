@@ -0,0 +1,39 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A customer's cumulative savings and cash-flow totals at the end of a day. Rows exist
+ * only for days on which something changed; a missing day carries the previous row.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "net_worth_daily", uniqueConstraints = @UniqueConstraint(name = "uk_net_worth_daily_customer_day",
+        columnNames = { "customer_id", "balance_date" }))
+public class NetWorthDay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "savings_total", nullable = false)
+    private BigDecimal savingsTotal;
+
+    @Column(name = "cash_total", nullable = false)
+    private BigDecimal cashTotal;
+
+    public NetWorthDay() {
+    }
+}
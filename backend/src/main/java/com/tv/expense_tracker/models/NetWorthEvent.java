@@ -0,0 +1,27 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An outbox event the customer's net_worth_daily rows already include, so its delivery
+ * or redelivery is skipped. Rows up to the net-worth consumer's stored offset are deleted
+ * as the bus never delivers those again.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "net_worth_events")
+public class NetWorthEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    public NetWorthEvent() {
+    }
+}
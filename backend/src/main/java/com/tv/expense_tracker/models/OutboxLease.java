@@ -0,0 +1,37 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Which node dispatches domain events. The owner renews the lease while it runs; another
+ * node takes over once it has expired.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_leases")
+public class OutboxLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public OutboxLease() {
+    }
+
+    public OutboxLease(String name, String owner, Instant expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A saving whose stored balance disagreed with its ledger during a reconciliation run.
+ * The saving id is kept without a foreign key so findings survive the saving's deletion.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "reconciliation_mismatches", indexes = @Index(name = "idx_reconciliation_mismatches_run",
+        columnList = "run_id, saving_id"))
+public class ReconciliationMismatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "run_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private ReconciliationRun run;
+
+    @Column(name = "saving_id", nullable = false)
+    private Long savingId;
+
+    @Column(name = "stored_balance", nullable = false)
+    private BigDecimal storedBalance;
+
+    @Column(name = "ledger_balance", nullable = false)
+    private BigDecimal ledgerBalance;
+
+    @Column(name = "detected_at", nullable = false)
+    private Instant detectedAt;
+
+    public ReconciliationMismatch() {
+    }
+
+    public ReconciliationMismatch(ReconciliationRun run, Long savingId, BigDecimal storedBalance,
+            BigDecimal ledgerBalance, Instant detectedAt) {
+        this.run = run;
+        this.savingId = savingId;
+        this.storedBalance = storedBalance;
+        this.ledgerBalance = ledgerBalance;
+        this.detectedAt = detectedAt;
+    }
+}
@@ -1,8 +1,11 @@
 package com.tv.expense_tracker.models;
 
+import com.tv.expense_tracker.configs.EntityCacheConfig;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,6 +15,8 @@ import java.time.Instant;
 @Setter
 @Getter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.SAVINGS)
 @Table(name = "savings")
 public class Saving {
 
@@ -33,7 +38,8 @@ public class Saving {
 
     private BigDecimal goal;
 
-    @Lob
+    // TEXT, not @Lob: on Postgres @Lob maps to an oid large object read through a separate stream
+    @Column(columnDefinition = "text")
     private String description;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,50 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Balance of a saving after every ledger entry up to and including
+ * {@code lastTransactionId}; {@code asOf} is that entry's timestamp.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "saving_balance_snapshots", indexes = @Index(name = "idx_saving_balance_snapshots_as_of",
+        columnList = "saving_id, as_of"))
+public class SavingBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "saving_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Saving saving;
+
+    @Column(name = "last_transaction_id", nullable = false)
+    private long lastTransactionId;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "as_of", nullable = false)
+    private Instant asOf;
+
+    public SavingBalanceSnapshot() {
+    }
+
+    public SavingBalanceSnapshot(Saving saving, long lastTransactionId, BigDecimal balance, Instant asOf) {
+        this.saving = saving;
+        this.lastTransactionId = lastTransactionId;
+        this.balance = balance;
+        this.asOf = asOf;
+    }
+}
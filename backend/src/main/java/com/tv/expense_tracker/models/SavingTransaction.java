@@ -4,12 +4,14 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "saving_transactions")
+@Table(name = "saving_transactions", indexes = @Index(name = "idx_saving_transactions_ledger", columnList = "saving_id, created_at DESC, id DESC"))
 @Getter
 @Setter
 public class SavingTransaction {
@@ -19,15 +21,16 @@ public class SavingTransaction {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "saving_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Saving saving;
 
     @Column(nullable = false)
-    private String type; // deposit, withdrawal, transfer_in, transfer_out
+    private String type; // opening, adjustment, deposit, withdrawal, transfer_in, transfer_out, interest
 
     @Column(nullable = false)
     private BigDecimal amount;
 
-    @Lob
+    @Column(columnDefinition = "text")
     private String description;
 
     @CreationTimestamp
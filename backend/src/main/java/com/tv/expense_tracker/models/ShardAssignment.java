@@ -0,0 +1,34 @@
+package com.tv.expense_tracker.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Which shard holds a customer's data. Kept on the home shard; a customer gets a row the
+ * first time they are routed, and moves between shards only by updating it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "shard_directory")
+public class ShardAssignment {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(nullable = false)
+    private int shard;
+
+    @Column(nullable = false)
+    private boolean moving;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ShardAssignment() {
+    }
+}
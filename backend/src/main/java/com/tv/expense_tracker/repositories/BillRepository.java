@@ -3,14 +3,44 @@ package com.tv.expense_tracker.repositories;
 import com.tv.expense_tracker.models.Bill;
 import com.tv.expense_tracker.models.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
     List<Bill> findByCustomerOrderByDueDateAsc(Customer customer);
 
     List<Bill> findByCustomerAndDueDateAfterOrderByDueDateAsc(Customer customer, LocalDate from);
+
+    /**
+     * Loads a bill only if it belongs to the given customer.
+     * @return empty when the bill does not exist or is owned by someone else.
+     */
+    Optional<Bill> findByIdAndCustomerId(Long id, Long customerId);
+
+    /**
+     * Deletes a bill owned by the given customer in a single statement.
+     * @return the number of rows deleted (0 when missing or not owned).
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Bill b where b.id = :id and b.customer.id = :customerId")
+    int deleteByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
+
+    /**
+     * Sets status and paid date of a bill owned by the given customer without loading it.
+     * @return the number of rows updated (0 when missing or not owned).
+     */
+    @Modifying
+    @Transactional
+    @Query("update Bill b set b.status = :status, b.paidDate = :paidDate where b.id = :id and b.customer.id = :customerId")
+    int updateStatusByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId,
+            @Param("status") String status, @Param("paidDate") LocalDate paidDate);
 }
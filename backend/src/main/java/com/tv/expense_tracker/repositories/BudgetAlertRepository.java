@@ -0,0 +1,19 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.BudgetAlert;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BudgetAlertRepository extends JpaRepository<BudgetAlert, Long> {
+
+    List<BudgetAlert> findByCustomerIdAndIdGreaterThanOrderByIdAsc(Long customerId, Long afterId, Limit limit);
+
+    List<BudgetAlert> findByCustomerIdAndIdLessThanOrderByIdDesc(Long customerId, Long beforeId, Limit limit);
+
+    boolean existsByBudgetIdAndPeriodStartAndThreshold(Long budgetId, LocalDate periodStart, int threshold);
+}
@@ -2,12 +2,28 @@ package com.tv.expense_tracker.repositories;
 
 import com.tv.expense_tracker.models.Budget;
 import com.tv.expense_tracker.models.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Budget> findByCustomer(Customer customer);
+
+    Optional<Budget> findByIdAndCustomerId(Long id, Long customerId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Budget b where b.id = :id and b.customer.id = :customerId")
+    int deleteByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
 }
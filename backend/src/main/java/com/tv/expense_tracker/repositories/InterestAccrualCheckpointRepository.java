@@ -0,0 +1,11 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.InterestAccrualCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface InterestAccrualCheckpointRepository extends JpaRepository<InterestAccrualCheckpoint, LocalDate> {
+}
@@ -0,0 +1,10 @@
+package com.tv.expense_tracker.repositories;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A saving ledger entry reduced to its timestamp and signed effect on the balance.
+ */
+public record LedgerEntry(Instant createdAt, BigDecimal amount) {
+}
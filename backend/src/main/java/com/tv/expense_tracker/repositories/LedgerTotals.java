@@ -0,0 +1,10 @@
+package com.tv.expense_tracker.repositories;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Signed sum, count, highest id and latest timestamp of a range of saving ledger entries.
+ */
+public record LedgerTotals(BigDecimal total, Long count, Long lastId, Instant lastAt) {
+}
@@ -0,0 +1,18 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.NetWorthDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NetWorthDayRepository extends JpaRepository<NetWorthDay, Long> {
+    boolean existsByCustomerId(Long customerId);
+
+    Optional<NetWorthDay> findFirstByCustomerIdAndDayLessThanOrderByDayDesc(Long customerId, LocalDate day);
+
+    List<NetWorthDay> findByCustomerIdAndDayBetweenOrderByDay(Long customerId, LocalDate from, LocalDate to);
+}
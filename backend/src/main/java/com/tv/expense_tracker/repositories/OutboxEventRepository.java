@@ -0,0 +1,33 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByIdGreaterThanOrderById(Long id, Limit limit);
+
+    List<OutboxEvent> findByIdInOrderById(Collection<Long> ids);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    long findMaxId();
+
+    /**
+     * Deletes events every consumer has handled that are older than the cutoff.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEvent e where e.id <= :handledUpTo and e.createdAt < :cutoff")
+    int deleteHandledBefore(@Param("handledUpTo") long handledUpTo, @Param("cutoff") Instant cutoff);
+}
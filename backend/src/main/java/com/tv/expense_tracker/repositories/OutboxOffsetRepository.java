@@ -0,0 +1,9 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.OutboxOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+}
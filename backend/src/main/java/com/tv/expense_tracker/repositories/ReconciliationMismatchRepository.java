@@ -0,0 +1,19 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.ReconciliationMismatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReconciliationMismatchRepository extends JpaRepository<ReconciliationMismatch, Long> {
+    List<ReconciliationMismatch> findByRunIdOrderBySavingId(Long runId);
+
+    @Query("select m from ReconciliationMismatch m, Saving s where m.savingId = s.id and m.run.id = :runId "
+            + "and s.customer.id = :customerId order by m.savingId")
+    List<ReconciliationMismatch> findByRunIdAndCustomerId(@Param("runId") Long runId,
+            @Param("customerId") Long customerId);
+}
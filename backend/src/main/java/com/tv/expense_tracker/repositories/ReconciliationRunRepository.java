@@ -0,0 +1,12 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+    Optional<ReconciliationRun> findFirstByFinishedAtIsNotNullOrderByIdDesc();
+}
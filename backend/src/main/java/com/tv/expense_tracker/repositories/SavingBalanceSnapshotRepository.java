@@ -0,0 +1,40 @@
+package com.tv.expense_tracker.repositories;
+
+import com.tv.expense_tracker.models.SavingBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface SavingBalanceSnapshotRepository extends JpaRepository<SavingBalanceSnapshot, Long> {
+    boolean existsBySavingId(Long savingId);
+
+    Optional<SavingBalanceSnapshot> findFirstBySavingIdOrderByLastTransactionIdDesc(Long savingId);
+
+    Optional<SavingBalanceSnapshot> findFirstBySavingIdAndAsOfLessThanEqualOrderByLastTransactionIdDesc(
+            Long savingId, Instant asOf);
+
+    Optional<SavingBalanceSnapshot> findFirstBySavingIdAndAsOfGreaterThanOrderByLastTransactionIdAsc(
+            Long savingId, Instant asOf);
+
+    /**
+     * Writes a baseline snapshot of the stored balance, as of {@code asOf}, for every saving
+     * in {@code [fromId, toId)} that has neither a snapshot nor an opening entry.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into saving_balance_snapshots (saving_id, last_transaction_id, balance, as_of) "
+            + "select s.id, coalesce((select max(t.id) from saving_transactions t where t.saving_id = s.id), 0), "
+            + "s.balance, :asOf from savings s "
+            + "where s.id >= :fromId and s.id < :toId "
+            + "and not exists (select 1 from saving_balance_snapshots x where x.saving_id = s.id) "
+            + "and not exists (select 1 from saving_transactions o where o.saving_id = s.id and o.type = 'opening')",
+            nativeQuery = true)
+    int insertMissingBaselines(@Param("fromId") long fromId, @Param("toId") long toId, @Param("asOf") Instant asOf);
+}
@@ -1,13 +1,61 @@
 package com.tv.expense_tracker.repositories;
 
+import com.tv.expense_tracker.controllers.dtos.SavingGoalProgress;
+import com.tv.expense_tracker.controllers.dtos.SavingResponse;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.models.Saving;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SavingRepository extends JpaRepository<Saving, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Saving> findByCustomer(Customer customer);
+
+    /**
+     * The customer's savings without their descriptions.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.tv.expense_tracker.controllers.dtos.SavingResponse(s.id, s.name, s.accountType, s.balance, "
+            + "s.interestRate, s.goal, s.createdAt, s.updatedAt) from Saving s where s.customer.id = :customerId "
+            + "order by s.id")
+    List<SavingResponse> findSummariesByCustomerId(@Param("customerId") Long customerId);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select s.id, s.description from Saving s where s.id in :ids and s.description is not null")
+    List<Object[]> findDescriptionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The customer's savings with their net contributions (deposits and transfers in, less
+     * withdrawals and transfers out) since the given instant, in one grouped query.
+     */
+    @Query("select new com.tv.expense_tracker.controllers.dtos.SavingGoalProgress(s.id, s.name, s.balance, "
+            + "s.interestRate, s.goal, coalesce(sum(case when t.type in ('deposit', 'transfer_in') then t.amount "
+            + "when t.type in ('withdrawal', 'transfer_out') then -t.amount else 0 end), 0)) "
+            + "from Saving s left join SavingTransaction t on t.saving = s and t.createdAt >= :since "
+            + "where s.customer.id = :customerId group by s.id, s.name, s.balance, s.interestRate, s.goal "
+            + "order by s.id")
+    List<SavingGoalProgress> findGoalProgressByCustomerId(@Param("customerId") Long customerId,
+            @Param("since") Instant since);
+
+    Optional<Saving> findByIdAndCustomerId(Long id, Long customerId);
+
+    List<Saving> findByIdInAndCustomerId(Collection<Long> ids, Long customerId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Saving s where s.id = :id and s.customer.id = :customerId")
+    int deleteByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
 }
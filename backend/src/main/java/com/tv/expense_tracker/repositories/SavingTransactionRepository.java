@@ -1,13 +1,60 @@
 package com.tv.expense_tracker.repositories;
 
-import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse;
 import com.tv.expense_tracker.models.SavingTransaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SavingTransactionRepository extends JpaRepository<SavingTransaction, Long> {
-    List<SavingTransaction> findBySavingOrderByCreatedAtDesc(Saving saving);
-}
\ No newline at end of file
+    /**
+     * Effect of an entry on the balance: withdrawals and outgoing transfers are stored as
+     * positive amounts and debit the saving; every other type, including signed
+     * adjustments, is added as is.
+     */
+    String SIGNED_AMOUNT = "case when t.type in ('withdrawal', 'transfer_out') then -t.amount else t.amount end";
+
+    /**
+     * One keyset page of the ledger, newest first, without the description LOB. Rows are
+     * limited to {@code [from, to)} and to those strictly after the cursor
+     * {@code (cursorAt, cursorId)} in (created_at desc, id desc) order.
+     */
+    @Query("select new com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse(t.id, t.type, t.amount, t.createdAt) "
+            + "from SavingTransaction t where t.saving.id = :savingId "
+            + "and t.createdAt >= :from and t.createdAt < :to "
+            + "and (t.createdAt < :cursorAt or (t.createdAt = :cursorAt and t.id < :cursorId)) "
+            + "order by t.createdAt desc, t.id desc")
+    List<SavingTransactionResponse> findLedgerPage(@Param("savingId") Long savingId, @Param("from") Instant from,
+            @Param("to") Instant to, @Param("cursorAt") Instant cursorAt, @Param("cursorId") Long cursorId,
+            Limit limit);
+
+    @Query("select t.id, t.description from SavingTransaction t where t.id in :ids and t.description is not null")
+    List<Object[]> findDescriptionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsBySavingIdAndType(Long savingId, String type);
+
+    @Query("select new com.tv.expense_tracker.repositories.LedgerTotals(sum(" + SIGNED_AMOUNT + "), count(t), max(t.id), "
+            + "max(t.createdAt)) "
+            + "from SavingTransaction t where t.saving.id = :savingId and t.id > :afterId and t.createdAt <= :upTo")
+    LedgerTotals totalsAfter(@Param("savingId") Long savingId, @Param("afterId") long afterId,
+            @Param("upTo") Instant upTo);
+
+    @Query("select new com.tv.expense_tracker.repositories.LedgerTotals(sum(" + SIGNED_AMOUNT + "), count(t), max(t.id), "
+            + "max(t.createdAt)) "
+            + "from SavingTransaction t where t.saving.id = :savingId and t.id <= :upToId and t.createdAt > :after")
+    LedgerTotals totalsBetween(@Param("savingId") Long savingId, @Param("after") Instant after,
+            @Param("upToId") long upToId);
+
+    @Query("select new com.tv.expense_tracker.repositories.LedgerEntry(t.createdAt, " + SIGNED_AMOUNT + ") "
+            + "from SavingTransaction t where t.saving.id = :savingId and t.createdAt >= :from and t.createdAt < :to "
+            + "order by t.createdAt, t.id")
+    List<LedgerEntry> findEntriesBetween(@Param("savingId") Long savingId, @Param("from") Instant from,
+            @Param("to") Instant to);
+}
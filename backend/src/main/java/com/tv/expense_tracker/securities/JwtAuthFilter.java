@@ -1,6 +1,8 @@
 package com.tv.expense_tracker.securities;
 
 import com.tv.expense_tracker.services.CustomerUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,17 +35,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtUtil.extractEmail(token);
+            try {
+                claims = jwtUtil.parse(authHeader.substring(7));
+            } catch (JwtException | IllegalArgumentException ex) {
+                // expired or invalid: continue unauthenticated so the client gets a 401 and can refresh
+                claims = null;
+            }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = customerUserDetailsService.loadUserByUsername(username);
-            if (jwtUtil.isValid(token, userDetails)) {
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = customerUserDetailsService.loadUserByUsername(claims.getSubject());
+            if (jwtUtil.isValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
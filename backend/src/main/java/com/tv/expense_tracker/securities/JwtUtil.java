@@ -7,7 +7,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -16,6 +19,21 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.access-token-minutes:15}")
+    private long accessTokenMinutes;
+
+    private final RevokedTokenIndex revokedTokens;
+
+    public JwtUtil(RevokedTokenIndex revokedTokens) {
+        this.revokedTokens = revokedTokens;
+    }
+
+    /**
+     * An access token with its id and expiry, as needed to revoke it later.
+     */
+    public record AccessToken(String token, String tokenId, Instant expiresAt) {
+    }
+
     private Key getKey() {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
@@ -33,29 +51,51 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifies the signature and expiry and returns the claims.
+     *
+     * @throws JwtException if the token is malformed, forged or expired.
+     */
+    public Claims parse(String token) {
+        return extractAllClaims(token);
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts.parserBuilder().setSigningKey(getKey()).build().parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Duration getAccessTokenLifetime() {
+        return Duration.ofMinutes(accessTokenMinutes);
     }
 
     public String generateToken(UserDetails userDetails) {
-        return createToken(userDetails.getUsername());
+        return issueAccessToken(userDetails.getUsername()).token();
     }
 
-    private String createToken(String subject) {
-        return Jwts.builder()
+    public AccessToken issueAccessToken(String subject) {
+        String tokenId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(getAccessTokenLifetime());
+        String token = Jwts.builder()
+                .setId(tokenId)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expiresAt))
                 .signWith(getKey(), SignatureAlgorithm.HS256)
                 .compact();
+        return new AccessToken(token, tokenId, expiresAt);
     }
 
     public Boolean isValid(String token, UserDetails userDetails) {
-        final String username = extractEmail(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isValid(extractAllClaims(token), userDetails);
+    }
+
+    /**
+     * True if the already parsed token belongs to the user and has not been revoked.
+     * Tokens without an id predate revocation and are rejected.
+     */
+    public boolean isValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && claims.getExpiration().after(new Date())
+                && !revokedTokens.isRevoked(claims.getId());
     }
 }
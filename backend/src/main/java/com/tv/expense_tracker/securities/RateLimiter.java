@@ -0,0 +1,144 @@
+package com.tv.expense_tracker.securities;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route token buckets keyed by client IP or by authenticated user. Each policy is one
+ * entry of {@code rate-limit.policies}:
+ *
+ * <pre>
+ * METHODS PATH-PATTERN KEY BURST PER-MINUTE
+ * POST /api/auth/login ip 10 10
+ * POST|PUT|PATCH|DELETE /api/** customer 60 120
+ * </pre>
+ *
+ * The first policy matching the request applies; {@code customer} falls back to the IP
+ * for anonymous requests. A bucket is a single {@link AtomicLong} holding its theoretical
+ * arrival time (GCRA), updated with a CAS loop, so checks never lock. Buckets that have
+ * refilled completely carry no state and are evicted.
+ */
+@Component
+public class RateLimiter {
+
+    private final List<Policy> policies = new ArrayList<>();
+    private final boolean enabled;
+
+    public RateLimiter(MeterRegistry meterRegistry,
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.policies:}") String[] policies) {
+        this.enabled = enabled;
+        for (String spec : policies)
+            if (!spec.isBlank())
+                this.policies.add(Policy.parse(spec.trim(), meterRegistry));
+        meterRegistry.gauge("rate_limit.buckets", this.policies,
+                list -> list.stream().mapToInt(p -> p.buckets.size()).sum());
+    }
+
+    /**
+     * Takes a token for the request if a policy applies.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it would be allowed.
+     */
+    public long acquire(String method, String path, String clientIp, String principal, long nowNanos) {
+        if (!enabled || policies.isEmpty())
+            return 0;
+        PathContainer container = null;
+        for (Policy policy : policies) {
+            if (!policy.appliesTo(method))
+                continue;
+            if (container == null)
+                container = PathContainer.parsePath(path);
+            if (!policy.pattern.matches(container))
+                continue;
+            String key = policy.byCustomer && principal != null ? principal : clientIp;
+            return policy.acquire(key, nowNanos);
+        }
+        return 0;
+    }
+
+    /**
+     * Drops buckets that have fully refilled; they are recreated on the next request.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Policy policy : policies)
+            policy.buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    private static final class Policy {
+        private final Set<String> methods;
+        private final PathPattern pattern;
+        private final boolean byCustomer;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Counter limited;
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        private Policy(Set<String> methods, PathPattern pattern, boolean byCustomer, int burst, int perMinute,
+                Counter limited) {
+            this.methods = methods;
+            this.pattern = pattern;
+            this.byCustomer = byCustomer;
+            this.intervalNanos = 60_000_000_000L / perMinute;
+            this.toleranceNanos = intervalNanos * (burst - 1);
+            this.limited = limited;
+        }
+
+        static Policy parse(String spec, MeterRegistry meterRegistry) {
+            String[] parts = spec.split("\\s+");
+            if (parts.length != 5)
+                throw new IllegalArgumentException("rate-limit policy must be 'METHODS PATH KEY BURST PER-MINUTE': "
+                        + spec);
+            if (!parts[2].equals("ip") && !parts[2].equals("customer"))
+                throw new IllegalArgumentException("rate-limit key must be ip or customer: " + spec);
+            int burst = Integer.parseInt(parts[3]);
+            int perMinute = Integer.parseInt(parts[4]);
+            if (burst < 1 || perMinute < 1)
+                throw new IllegalArgumentException("rate-limit burst and rate must be positive: " + spec);
+            Set<String> methods = parts[0].equals("*") ? Set.of() : Set.of(parts[0].toUpperCase(Locale.ROOT).split("\\|"));
+            Counter limited = meterRegistry.counter("rate_limit.rejected", "policy", parts[0] + " " + parts[1]);
+            return new Policy(methods, PathPatternParser.defaultInstance.parse(parts[1]), parts[2].equals("customer"),
+                    burst, perMinute, limited);
+        }
+
+        boolean appliesTo(String method) {
+            return methods.isEmpty() || methods.contains(method);
+        }
+
+        long acquire(String key, long now) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                AtomicLong created = new AtomicLong(now);
+                bucket = buckets.putIfAbsent(key, created);
+                if (bucket == null)
+                    bucket = created;
+            }
+            while (true) {
+                long tat = bucket.get();
+                long start = Math.max(tat, now);
+                long wait = start - toleranceNanos - now;
+                if (wait > 0) {
+                    limited.increment();
+                    return wait;
+                }
+                if (bucket.compareAndSet(tat, start + intervalNanos))
+                    return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.tv.expense_tracker.securities;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory set of revoked access-token ids ({@code jti}, a UUID). Ids are held as two
+ * longs in open-addressing arrays next to their expiry, so a lookup parses the id in place
+ * and probes primitive arrays: constant time and no allocation on the request path.
+ * Lookups are optimistic reads that only take the lock if a write raced them.
+ */
+@Component
+public class RevokedTokenIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * True if the id was revoked, or is not a well-formed UUID.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!isWellFormed(tokenId))
+            return true;
+        long h = parseHalf(tokenId, 0);
+        long l = parseHalf(tokenId, 19);
+        long stamp = lock.tryOptimisticRead();
+        boolean found = table.contains(h, l);
+        if (lock.validate(stamp))
+            return found;
+        stamp = lock.readLock();
+        try {
+            return table.contains(h, l);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the id is not a well-formed UUID.
+     */
+    public void revoke(String tokenId, long expiresAtEpochSecond) {
+        if (!isWellFormed(tokenId))
+            throw new IllegalArgumentException("token id must be a UUID");
+        long h = parseHalf(tokenId, 0);
+        long l = parseHalf(tokenId, 19);
+        long stamp = lock.writeLock();
+        try {
+            if ((table.size + 1) * 2 > table.capacity())
+                table = table.copy(table.capacity() * 2, Long.MIN_VALUE);
+            table.insert(h, l, expiresAtEpochSecond);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Drops ids whose tokens have expired on their own.
+     */
+    public void purgeExpired(long nowEpochSecond) {
+        long stamp = lock.writeLock();
+        try {
+            table = table.copy(table.capacity(), nowEpochSecond);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // 8-4-4-4-12 hex digits, and not the nil UUID, which marks empty slots
+    private static boolean isWellFormed(String id) {
+        if (id == null || id.length() != 36)
+            return false;
+        boolean nil = true;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    return false;
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            } else if (c != '0') {
+                nil = false;
+            }
+        }
+        return !nil;
+    }
+
+    // the 16 hex digits of one half of a UUID starting at from, skipping its dashes
+    private static long parseHalf(String id, int from) {
+        long value = 0;
+        for (int i = from, digits = 0; digits < 16; i++) {
+            char c = id.charAt(i);
+            if (c != '-') {
+                value = value << 4 | Character.digit(c, 16);
+                digits++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Open-addressing table kept at most half full, so every probe ends at an empty slot.
+     */
+    private static final class Table {
+        private final long[] high;
+        private final long[] low;
+        private final long[] expiresAt;
+        private int size;
+
+        Table(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+            expiresAt = new long[capacity];
+        }
+
+        int capacity() {
+            return high.length;
+        }
+
+        boolean contains(long h, long l) {
+            int mask = high.length - 1;
+            for (int i = slot(h, l, mask);; i = (i + 1) & mask) {
+                if (high[i] == h && low[i] == l)
+                    return true;
+                if (high[i] == 0 && low[i] == 0)
+                    return false;
+            }
+        }
+
+        void insert(long h, long l, long expiry) {
+            int mask = high.length - 1;
+            for (int i = slot(h, l, mask);; i = (i + 1) & mask) {
+                if (high[i] == h && low[i] == l) {
+                    expiresAt[i] = Math.max(expiresAt[i], expiry);
+                    return;
+                }
+                if (high[i] == 0 && low[i] == 0) {
+                    expiresAt[i] = expiry;
+                    low[i] = l;
+                    high[i] = h;
+                    size++;
+                    return;
+                }
+            }
+        }
+
+        Table copy(int capacity, long expiredBefore) {
+            Table copy = new Table(capacity);
+            for (int i = 0; i < high.length; i++)
+                if ((high[i] != 0 || low[i] != 0) && expiresAt[i] >= expiredBefore)
+                    copy.insert(high[i], low[i], expiresAt[i]);
+            return copy;
+        }
+
+        private static int slot(long h, long l, int mask) {
+            long x = h * 0x9e3779b97f4a7c15L ^ l;
+            return (int) (x ^ x >>> 32) & mask;
+        }
+    }
+}
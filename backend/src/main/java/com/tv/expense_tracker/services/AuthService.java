@@ -3,6 +3,7 @@ package com.tv.expense_tracker.services;
 import com.tv.expense_tracker.exceptions.EmailAlreadyExistsException;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.CustomerRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -11,14 +12,23 @@ public class AuthService {
 
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RegisteredEmailFilter registeredEmails;
 
-    public AuthService(CustomerRepository customerRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(CustomerRepository customerRepository, PasswordEncoder passwordEncoder,
+            RegisteredEmailFilter registeredEmails) {
         this.customerRepository = customerRepository;
         this.passwordEncoder = passwordEncoder;
+        this.registeredEmails = registeredEmails;
     }
 
+    /**
+     * Registers a customer. The email lookup before hashing is skipped when the filter
+     * knows the email is new; the unique constraint on email settles concurrent signups.
+     *
+     * @throws EmailAlreadyExistsException if the email is already registered.
+     */
     public Customer signup(String fullName, String email, String password) {
-        if (customerRepository.findByEmail(email).isPresent()) {
+        if (registeredEmails.mightContain(email) && customerRepository.findByEmail(email).isPresent()) {
             // Throw a well-typed exception to be handled by a global exception handler
             throw new EmailAlreadyExistsException("Email is already created");
         }
@@ -28,6 +38,18 @@ public class AuthService {
         customer.setEmail(email);
         customer.setPassword(passwordEncoder.encode(password));
 
-        return customerRepository.save(customer);
+        Customer saved;
+        try {
+            saved = customerRepository.save(customer);
+        } catch (DataIntegrityViolationException ex) {
+            // lost a race with a concurrent signup for the same email
+            if (customerRepository.findByEmail(email).isPresent()) {
+                registeredEmails.put(email);
+                throw new EmailAlreadyExistsException("Email is already created", ex);
+            }
+            throw ex;
+        }
+        registeredEmails.put(email);
+        return saved;
     }
-}
\ No newline at end of file
+}
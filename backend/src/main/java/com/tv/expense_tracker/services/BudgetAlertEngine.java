@@ -0,0 +1,354 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.ShardContext;
+import com.tv.expense_tracker.models.BudgetAlert;
+import com.tv.expense_tracker.repositories.BudgetAlertRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Budget threshold alerts, evaluated incrementally. Each budget's expense total for its
+ * current period (monthly, weekly or yearly; monthly when unset) is kept in memory and
+ * moved by every {@code transaction.created} event, so an expense costs a map lookup and
+ * an addition; crossing a threshold percentage of the limit records a {@link BudgetAlert}.
+ * <ul>
+ * <li>Totals are rebuilt from SQL when this node starts dispatching events, and per
+ * customer when their budgets change, when a period rolls over or when they move shards.
+ * A rebuild reads the totals in one snapshot together with the ids of the events already
+ * included in them: every event up to a settled position (the stored offset, or the
+ * {@link DomainEvent#committedUpTo()} of the event being handled) plus the committed
+ * events above it. Those are skipped when delivered; events whose transaction had not
+ * committed yet are added when they arrive, however late.</li>
+ * <li>Rebuilds also record alerts for thresholds already reached, and the unique key on
+ * (budget, period, threshold) turns repeats into no-ops, so redelivered events and
+ * several nodes never duplicate an alert.</li>
+ * </ul>
+ */
+@Service
+public class BudgetAlertEngine implements DomainEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetAlertEngine.class);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshot;
+    private final BudgetAlertRepository alertRepository;
+    private final ShardDirectory shardDirectory;
+    private final int[] thresholds;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<Long, CustomerBudgets> customers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public BudgetAlertEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            BudgetAlertRepository alertRepository, ShardDirectory shardDirectory, MeterRegistry meterRegistry,
+            @Value("${budget-alerts.thresholds:80,100}") int[] thresholds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        // not read-only: a lagging replica would miss events the totals are said to include
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.alertRepository = alertRepository;
+        this.shardDirectory = shardDirectory;
+        this.thresholds = Arrays.stream(thresholds).sorted().toArray();
+        if (this.thresholds.length == 0 || this.thresholds[0] <= 0)
+            throw new IllegalArgumentException("budget-alerts.thresholds must be positive percentages");
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("budget_alerts.tracked", customers,
+                map -> map.values().stream().mapToInt(c -> c.budgets.size()).sum())
+                .description("Budgets with an in-memory running total").register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "budget-alerts";
+    }
+
+    @Override
+    public boolean accepts(String type) {
+        return DomainEvent.TRANSACTION_CREATED.equals(type) || DomainEvent.BUDGETS_CHANGED.equals(type);
+    }
+
+    @Override
+    public void starting() {
+        rebuild();
+    }
+
+    @Override
+    public synchronized void handle(List<DomainEvent> events) {
+        LocalDate today = LocalDate.now(zone);
+        for (DomainEvent event : events) {
+            if (event.customerId() == null)
+                continue;
+            if (DomainEvent.BUDGETS_CHANGED.equals(event.type())) {
+                customers.put(event.customerId(), load(event.customerId(), event.shard(), today,
+                        event.committedUpTo()));
+                continue;
+            }
+            CustomerBudgets state = customers.get(event.customerId());
+            if (state == null || state.shard != event.shard() || !today.isBefore(state.validUntil)) {
+                state = load(event.customerId(), event.shard(), today, event.committedUpTo());
+                customers.put(event.customerId(), state);
+            }
+            if (!state.firstSighting(event) || !"expense".equalsIgnoreCase(event.text("type")))
+                continue;
+            try {
+                apply(state, event);
+            } catch (RuntimeException ex) {
+                // the retry skips this event as counted; reloading records any alert it missed
+                customers.remove(event.customerId());
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds every customer's totals shard by shard, as of the engine's stored offset.
+     */
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now(zone);
+        shardDirectory.forEachShard(shard -> {
+            long start = System.nanoTime();
+            Map<Long, CustomerBudgets> loaded = snapshot.execute(status -> {
+                pinSnapshot();
+                long settled = storedOffset();
+                Map<Long, CustomerBudgets> byCustomer = new HashMap<>();
+                jdbcTemplate.query("select id, customer_id, category, budget_limit, period from budgets", rs -> {
+                    Tracker tracker = new Tracker(rs.getLong(1), rs.getString(3), rs.getBigDecimal(4), rs.getString(5),
+                            today);
+                    byCustomer.computeIfAbsent(rs.getLong(2), id -> new CustomerBudgets(shard, settled))
+                            .add(tracker);
+                });
+                jdbcTemplate.query("select id, customer_id from outbox_events where type = ? and id > ?", rs -> {
+                    CustomerBudgets state = byCustomer.get(rs.getLong(2));
+                    if (state != null)
+                        state.counted.add(rs.getLong(1));
+                }, DomainEvent.TRANSACTION_CREATED, settled);
+                Map<String, Map<String, BigDecimal>> spentByWindow = new HashMap<>();
+                for (CustomerBudgets state : byCustomer.values())
+                    for (Tracker tracker : state.budgets)
+                        spentByWindow.computeIfAbsent(tracker.period, p -> spentInWindow(tracker));
+                byCustomer.forEach((customerId, state) -> state.budgets.forEach(tracker -> tracker.spent = spentByWindow
+                        .get(tracker.period).getOrDefault(customerId + " " + tracker.category, BigDecimal.ZERO)));
+                return byCustomer;
+            });
+            customers.entrySet().removeIf(entry -> entry.getValue().shard == shard
+                    && !loaded.containsKey(entry.getKey()));
+            customers.putAll(loaded);
+            loaded.forEach(this::reconcileAlerts);
+            logger.info("Budget alert totals rebuilt shard={} customers={} elapsedMs={}", shard, loaded.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    /**
+     * Loads one customer's totals; {@code settled} is a position every event up to which
+     * has committed.
+     */
+    private CustomerBudgets load(Long customerId, int shard, LocalDate today, long settled) {
+        CustomerBudgets state = ShardContext.callOn(shard, () -> snapshot.execute(status -> {
+            pinSnapshot();
+            CustomerBudgets budgets = new CustomerBudgets(shard, settled);
+            jdbcTemplate.query("select id, category, budget_limit, period from budgets where customer_id = ?",
+                    rs -> {
+                        budgets.add(new Tracker(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3), rs.getString(4),
+                                today));
+                    }, customerId);
+            for (Tracker tracker : budgets.budgets)
+                tracker.spent = jdbcTemplate.queryForObject("select coalesce(sum(amount), 0) from transactions "
+                        + "where customer_id = ? and lower(type) = 'expense' and coalesce(category, '') = ? "
+                        + "and date >= ? and date < ?", BigDecimal.class, customerId, tracker.category,
+                        Date.valueOf(tracker.periodStart), Date.valueOf(tracker.periodEnd));
+            budgets.counted.addAll(jdbcTemplate.queryForList("select id from outbox_events "
+                    + "where customer_id = ? and type = ? and id > ?", Long.class, customerId,
+                    DomainEvent.TRANSACTION_CREATED, settled));
+            return budgets;
+        }));
+        reconcileAlerts(customerId, state);
+        return state;
+    }
+
+    /**
+     * Fixes the snapshot of every table a load reads in one statement. PostgreSQL takes the
+     * snapshot at the first statement anyway, but H2 takes each table's on first use, so an
+     * expense committing between the totals query and the outbox query would be marked
+     * counted without being in the totals.
+     */
+    private void pinSnapshot() {
+        jdbcTemplate.queryForObject("select (select count(*) from budgets where id < 0) "
+                + "+ (select count(*) from transactions where id < 0) "
+                + "+ (select count(*) from outbox_events where id < 0) "
+                + "+ (select count(*) from outbox_offsets where last_event_id < 0)", Long.class);
+    }
+
+    /**
+     * Expense totals per "customerId category" inside the tracker's current period window.
+     */
+    private Map<String, BigDecimal> spentInWindow(Tracker tracker) {
+        Map<String, BigDecimal> spent = new HashMap<>();
+        jdbcTemplate.query("select customer_id, coalesce(category, ''), sum(amount) from transactions "
+                + "where lower(type) = 'expense' and date >= ? and date < ? group by customer_id, coalesce(category, '')",
+                rs -> {
+                    spent.put(rs.getLong(1) + " " + rs.getString(2), rs.getBigDecimal(3));
+                }, Date.valueOf(tracker.periodStart), Date.valueOf(tracker.periodEnd));
+        return spent;
+    }
+
+    /**
+     * The offset the bus resumes this consumer from; it stores one before calling
+     * {@link #starting()}, and the newest id stands in when there is none yet.
+     */
+    private long storedOffset() {
+        List<Long> offsets = jdbcTemplate.queryForList("select last_event_id from outbox_offsets where consumer = ?",
+                Long.class, name());
+        return !offsets.isEmpty() ? offsets.get(0)
+                : jdbcTemplate.queryForObject("select coalesce(max(id), 0) from outbox_events", Long.class);
+    }
+
+    private void apply(CustomerBudgets state, DomainEvent event) {
+        LocalDate date = event.date("date");
+        BigDecimal amount = event.decimal("amount");
+        if (date == null || amount == null)
+            return;
+        String category = event.text("category") == null ? "" : event.text("category");
+        for (Tracker tracker : state.byCategory.getOrDefault(category, List.of())) {
+            if (date.isBefore(tracker.periodStart) || !date.isBefore(tracker.periodEnd))
+                continue;
+            BigDecimal before = tracker.spent;
+            tracker.spent = before.add(amount);
+            for (int threshold : thresholds)
+                if (!reached(before, tracker.budgetLimit, threshold) && reached(tracker.spent, tracker.budgetLimit,
+                        threshold))
+                    record(event.customerId(), tracker, threshold);
+        }
+    }
+
+    private void reconcileAlerts(Long customerId, CustomerBudgets state) {
+        ShardContext.runOn(state.shard, () -> {
+            for (Tracker tracker : state.budgets)
+                for (int threshold : thresholds)
+                    if (reached(tracker.spent, tracker.budgetLimit, threshold)
+                            && !alertRepository.existsByBudgetIdAndPeriodStartAndThreshold(tracker.budgetId,
+                                    tracker.periodStart, threshold))
+                        record(customerId, tracker, threshold);
+        });
+    }
+
+    private void record(Long customerId, Tracker tracker, int threshold) {
+        BudgetAlert alert = new BudgetAlert();
+        alert.setCustomerId(customerId);
+        alert.setBudgetId(tracker.budgetId);
+        alert.setCategory(tracker.category);
+        alert.setPeriod(tracker.period);
+        alert.setPeriodStart(tracker.periodStart);
+        alert.setThreshold(threshold);
+        alert.setSpent(tracker.spent);
+        alert.setBudgetLimit(tracker.budgetLimit);
+        alert.setCreatedAt(Instant.now());
+        try {
+            alertRepository.save(alert);
+            meterRegistry.counter("budget_alerts.recorded", "threshold", String.valueOf(threshold)).increment();
+        } catch (DataIntegrityViolationException ex) {
+            // already recorded by a redelivery or another node
+        }
+    }
+
+    private static boolean reached(BigDecimal spent, BigDecimal limit, int threshold) {
+        return limit != null && limit.signum() > 0
+                && spent.multiply(HUNDRED).compareTo(limit.multiply(BigDecimal.valueOf(threshold))) >= 0;
+    }
+
+    /**
+     * One customer's budgets, with the events their totals include: every id up to
+     * {@code settled} and the ids in {@code counted}.
+     */
+    private static final class CustomerBudgets {
+        private final int shard;
+        private final List<Tracker> budgets = new ArrayList<>();
+        private final Map<String, List<Tracker>> byCategory = new HashMap<>();
+        private final TreeSet<Long> counted = new TreeSet<>();
+        private long settled;
+        private LocalDate validUntil = LocalDate.MAX;
+
+        private CustomerBudgets(int shard, long settled) {
+            this.shard = shard;
+            this.settled = settled;
+        }
+
+        private void add(Tracker tracker) {
+            budgets.add(tracker);
+            byCategory.computeIfAbsent(tracker.category, c -> new ArrayList<>()).add(tracker);
+            if (tracker.periodEnd.isBefore(validUntil))
+                validUntil = tracker.periodEnd;
+        }
+
+        /**
+         * Marks the event as included and moves the settled position up to the event's,
+         * since everything below that was delivered before it.
+         *
+         * @return whether the totals did not include the event yet.
+         */
+        private boolean firstSighting(DomainEvent event) {
+            boolean fresh = event.id() > settled && counted.add(event.id());
+            if (event.committedUpTo() > settled) {
+                settled = event.committedUpTo();
+                counted.headSet(settled, true).clear();
+            }
+            return fresh;
+        }
+    }
+
+    /**
+     * A budget's running expense total for its current period {@code [periodStart, periodEnd)}.
+     */
+    private static final class Tracker {
+        private final long budgetId;
+        private final String category;
+        private final BigDecimal budgetLimit;
+        private final String period;
+        private final LocalDate periodStart;
+        private final LocalDate periodEnd;
+        private BigDecimal spent = BigDecimal.ZERO;
+
+        private Tracker(long budgetId, String category, BigDecimal budgetLimit, String period, LocalDate today) {
+            this.budgetId = budgetId;
+            this.category = category == null ? "" : category;
+            this.budgetLimit = budgetLimit;
+            this.period = period == null ? "monthly" : switch (period.toLowerCase()) {
+                case "weekly", "yearly" -> period.toLowerCase();
+                default -> "monthly";
+            };
+            this.periodStart = switch (this.period) {
+                case "weekly" -> today.with(DayOfWeek.MONDAY);
+                case "yearly" -> today.withDayOfYear(1);
+                default -> today.withDayOfMonth(1);
+            };
+            this.periodEnd = switch (this.period) {
+                case "weekly" -> periodStart.plusWeeks(1);
+                case "yearly" -> periodStart.plusYears(1);
+                default -> periodStart.plusMonths(1);
+            };
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.EntityCacheConfig;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.repositories.BudgetRepository;
+import com.tv.expense_tracker.repositories.TransactionRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@AllArgsConstructor
+public class BudgetService {
+
+    private final BudgetRepository budgetRepository;
+    private final TransactionRepository transactionRepository;
+    private final SingleFlight singleFlight;
+    private final DataVersionTracker dataVersions;
+    private final DomainEventBus domainEvents;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * A customer's budgets together with their expense totals per category.
+     */
+    public record BudgetEvaluation(List<Budget> budgets, Map<String, BigDecimal> spentByCategory) {
+        public BigDecimal spentFor(String category) {
+            return spentByCategory.getOrDefault(category, BigDecimal.ZERO);
+        }
+    }
+
+    /**
+     * Evaluates the customer's budgets. Concurrent calls for the same customer and data
+     * version (e.g. /api/budgets and /api/budgets/status fired together by the dashboard)
+     * share a single evaluation.
+     *
+     * @param customer The authenticated customer.
+     * @return budgets and spent amounts by category.
+     */
+    public BudgetEvaluation evaluate(Customer customer) {
+        Long customerId = customer.getId();
+        List<Long> key = List.of(customerId, dataVersions.current(customerId));
+        return singleFlight.execute("budget-evaluation", key, () -> compute(customer));
+    }
+
+    /**
+     * Saves a new budget for the customer. The budget and the event telling consumers to
+     * reload commit together, so the alert engine never misses a change.
+     */
+    @Transactional
+    public Budget createForCustomer(Customer customer, Budget budget) {
+        budget.setCustomer(customer);
+        Budget saved = budgetRepository.save(budget);
+        budgetsChanged(customer);
+        return saved;
+    }
+
+    /**
+     * Updates the budget if it belongs to the customer.
+     *
+     * @return the saved budget, or empty when it does not exist or is owned by someone else.
+     */
+    @Transactional
+    public Optional<Budget> updateForCustomer(Long id, Customer customer, Budget changes) {
+        Optional<Budget> existing = budgetRepository.findByIdAndCustomerId(id, customer.getId());
+        if (existing.isEmpty())
+            return Optional.empty();
+        Budget budget = existing.get();
+        budget.setCategory(changes.getCategory());
+        budget.setBudgetLimit(changes.getBudgetLimit());
+        budget.setPeriod(changes.getPeriod());
+        Budget saved = budgetRepository.save(budget);
+        budgetsChanged(customer);
+        return Optional.of(saved);
+    }
+
+    /**
+     * Deletes the budget if it belongs to the customer.
+     *
+     * @return false when the budget does not exist or is owned by someone else.
+     */
+    @Transactional
+    public boolean deleteForCustomer(Long id, Customer customer) {
+        if (budgetRepository.deleteByIdAndCustomerId(id, customer.getId()) == 0)
+            return false;
+        // bulk deletes bypass Hibernate's entity events
+        cacheInvalidationBus.publish(EntityCacheConfig.BUDGETS, List.of(id));
+        budgetsChanged(customer);
+        return true;
+    }
+
+    /**
+     * Marks the customer's budget inputs as changed so later evaluations do not join one
+     * that started before the write, and tells event consumers to reload them.
+     */
+    public void budgetsChanged(Customer customer) {
+        dataVersions.bump(customer.getId());
+        domainEvents.publish(DomainEvent.BUDGETS_CHANGED, customer.getId(), null);
+    }
+
+    private BudgetEvaluation compute(Customer customer) {
+        List<Budget> budgets = budgetRepository.findByCustomer(customer);
+
+        // load transactions for this customer once and compute sums by category
+        List<Transaction> txs = transactionRepository.findByCustomerOrderByDateDesc(customer);
+        Map<String, BigDecimal> spentByCategory = new HashMap<>();
+        for (Transaction t : txs) {
+            if ("expense".equalsIgnoreCase(t.getType())) {
+                String cat = t.getCategory() == null ? "" : t.getCategory();
+                spentByCategory.merge(cat, t.getAmount(), BigDecimal::add);
+            }
+        }
+        return new BudgetEvaluation(budgets, spentByCategory);
+    }
+}
@@ -0,0 +1,351 @@
+package com.tv.expense_tracker.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the second-level caches of several backend nodes coherent. Committed writes to
+ * cached entities (seen through Hibernate's post-commit events, or reported with
+ * {@link #publish}) are collected per region, coalesced and sent every
+ * {@code flush-interval-ms} as one message; every node evicts what other nodes changed,
+ * plus its cached query results.
+ * <ul>
+ * <li>On Postgres messages go through {@code NOTIFY} on one channel, read by a listener
+ * thread on its own connection. After the connection drops, the node clears its caches,
+ * since it may have missed messages.</li>
+ * <li>Elsewhere (H2, tests) they are delivered to the other nodes in the same JVM.</li>
+ * </ul>
+ * A message is {@code <node> <region>:<id>,<id>... <region>:*}; a region with more than
+ * {@code max-ids-per-region} ids in one batch is evicted whole.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    static final String CHANNEL = "cache_invalidation";
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD = 7900;
+    private static final String ALL = "*";
+    static final List<Consumer<String>> LOCAL_NODES = new CopyOnWriteArrayList<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean postgres;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxIdsPerRegion;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Class<?>> cachedTypes = new HashMap<>();
+    private final Consumer<String> localDelivery = this::receive;
+    private final Counter publishedEvents;
+    private final Counter publishedBatches;
+    private final Counter receivedEvents;
+    private Map<String, Set<Long>> pending = new HashMap<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public CacheInvalidationBus(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cache-coherence.enabled:true}") boolean enabled,
+            @Value("${cache-coherence.transport:auto}") String transport,
+            @Value("${cache-coherence.max-ids-per-region:200}") int maxIdsPerRegion,
+            @Value("${spring.datasource.url:}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.postgres = switch (transport) {
+            case "postgres" -> true;
+            case "local" -> false;
+            case "auto" -> url.startsWith("jdbc:postgresql:");
+            default -> throw new IllegalArgumentException("cache-coherence.transport must be auto, postgres or local");
+        };
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxIdsPerRegion = maxIdsPerRegion;
+        this.publishedEvents = meterRegistry.counter("cache.invalidation.events", "direction", "published");
+        this.publishedBatches = meterRegistry.counter("cache.invalidation.batches", "direction", "published");
+        this.receivedEvents = meterRegistry.counter("cache.invalidation.events", "direction", "received");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.canWriteToCache())
+                cachedTypes.put(region(persister), persister.getMappedClass());
+        });
+        if (cachedTypes.isEmpty())
+            return;
+        EntityWriteListener writes = new EntityWriteListener();
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, writes);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, writes);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, writes);
+
+        running = true;
+        if (postgres) {
+            listener = new Thread(this::listen, "cache-invalidation-listener");
+            listener.setDaemon(true);
+            listener.start();
+        } else {
+            LOCAL_NODES.add(localDelivery);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LOCAL_NODES.remove(localDelivery);
+        if (listener != null)
+            listener.interrupt();
+    }
+
+    /**
+     * Reports rows of a cached region changed outside Hibernate (JDBC, bulk JPQL). Inside
+     * a transaction the event is sent only if it commits.
+     */
+    public void publish(String region, Collection<Long> ids) {
+        if (!running || !cachedTypes.containsKey(region) || ids.isEmpty())
+            return;
+        List<Long> copy = List.copyOf(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(region, copy);
+                }
+            });
+        } else {
+            enqueue(region, copy);
+        }
+    }
+
+    /**
+     * Sends everything collected since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${cache-coherence.flush-interval-ms:100}")
+    public void flush() {
+        Map<String, Set<Long>> batch;
+        synchronized (this) {
+            if (pending.isEmpty())
+                return;
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        for (String message : encode(nodeId, batch, maxIdsPerRegion, MAX_PAYLOAD)) {
+            try {
+                send(message);
+            } catch (RuntimeException ex) {
+                // the other nodes fall back on the cache TTL for this batch
+                logger.warn("Could not publish cache invalidations: {}", ex.getMessage());
+                return;
+            }
+        }
+        publishedBatches.increment();
+    }
+
+    /**
+     * Applies a message from any node; this node's own messages are ignored.
+     */
+    void receive(String message) {
+        String[] parts = message.split(" ");
+        if (parts.length < 2 || nodeId.equals(parts[0]))
+            return;
+        jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+        for (int i = 1; i < parts.length; i++) {
+            int colon = parts[i].indexOf(':');
+            Class<?> type = colon > 0 ? cachedTypes.get(parts[i].substring(0, colon)) : null;
+            if (type == null)
+                continue;
+            String ids = parts[i].substring(colon + 1);
+            if (ALL.equals(ids)) {
+                cache.evict(type);
+                receivedEvents.increment();
+                continue;
+            }
+            for (String id : ids.split(",")) {
+                cache.evict(type, Long.valueOf(id));
+                receivedEvents.increment();
+            }
+        }
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().evictQueryRegions();
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Splits a batch into messages of at most {@code maxPayload} characters, each starting
+     * with the node id.
+     */
+    static List<String> encode(String nodeId, Map<String, Set<Long>> batch, int maxIdsPerRegion, int maxPayload) {
+        List<String> messages = new ArrayList<>();
+        StringBuilder message = new StringBuilder(nodeId);
+        for (Map.Entry<String, Set<Long>> region : new TreeMap<>(batch).entrySet()) {
+            List<String> ids = region.getValue().size() > maxIdsPerRegion ? List.of(ALL)
+                    : region.getValue().stream().sorted().map(String::valueOf).toList();
+            String prefix = " " + region.getKey() + ":";
+            boolean open = false;
+            for (String id : ids) {
+                int needed = (open ? 1 : prefix.length()) + id.length();
+                if (message.length() + needed > maxPayload) {
+                    messages.add(message.toString());
+                    message = new StringBuilder(nodeId);
+                    open = false;
+                }
+                message.append(open ? "," : prefix).append(id);
+                open = true;
+            }
+        }
+        if (message.length() > nodeId.length())
+            messages.add(message.toString());
+        return messages;
+    }
+
+    private synchronized void enqueue(String region, Collection<Long> ids) {
+        pending.computeIfAbsent(region, r -> new TreeSet<>()).addAll(ids);
+        publishedEvents.increment(ids.size());
+    }
+
+    private void send(String message) {
+        if (postgres) {
+            jdbcTemplate.query("select pg_notify(?, ?)", rs -> {
+            }, CHANNEL, message);
+        } else {
+            for (Consumer<String> node : LOCAL_NODES)
+                node.accept(message);
+        }
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore)
+                    evictAll();
+                connectedBefore = true;
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(1000);
+                    if (received != null)
+                        for (PGNotification notification : received)
+                            receive(notification.getParameter());
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running)
+                    return;
+                logger.warn("Cache invalidation listener disconnected, retrying: {}", ex.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evictAll() {
+        Set<Class<?>> types = new HashSet<>(cachedTypes.values());
+        types.forEach(entityManagerFactory.getCache()::evict);
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().evictQueryRegions();
+    }
+
+    private static String region(EntityPersister persister) {
+        return persister.getCacheAccessStrategy().getRegion().getName();
+    }
+
+    /**
+     * Collects committed inserts, updates and deletes of cached entities.
+     */
+    private class EntityWriteListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            written(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            written(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            written(event.getPersister(), event.getId());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return persister.canWriteToCache();
+        }
+
+        private void written(EntityPersister persister, Object id) {
+            if (id instanceof Long value)
+                enqueue(region(persister), List.of(value));
+        }
+    }
+}
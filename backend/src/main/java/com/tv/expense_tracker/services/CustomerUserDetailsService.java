@@ -4,14 +4,16 @@ import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.CustomerRepository;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 
 @Service
-public class CustomerUserDetailsService implements UserDetailsService {
+public class CustomerUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final CustomerRepository customerRepository;
 
@@ -27,6 +29,20 @@ public class CustomerUserDetailsService implements UserDetailsService {
         return new User(customer.getEmail(), customer.getPassword(), new ArrayList<>());
     }
 
+    /**
+     * Stores a re-encoded password; called by the authentication provider after a login
+     * whose stored hash uses an outdated algorithm or cost.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        customerRepository.findByEmail(user.getUsername()).ifPresent(customer -> {
+            customer.setPassword(newPassword);
+            customerRepository.save(customer);
+        });
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
     /**
      * Find customer by email
      * 
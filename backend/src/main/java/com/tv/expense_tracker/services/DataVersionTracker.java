@@ -0,0 +1,45 @@
+package com.tv.expense_tracker.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory per-customer data version. Write paths bump it so that computations keyed
+ * by (customer, version) never share a result that started before the write.
+ */
+@Component
+public class DataVersionTracker {
+
+    private final ConcurrentMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(Long customerId) {
+        AtomicLong version = versions.get(customerId);
+        return version == null ? 0L : version.get();
+    }
+
+    /**
+     * Moves the customer to a new version now and, inside a transaction, again after it
+     * commits: a computation started between the two reads the data from before the
+     * commit, so callers arriving later must not join it.
+     */
+    public void bump(Long customerId) {
+        increment(customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(customerId);
+                }
+            });
+        }
+    }
+
+    private void increment(Long customerId) {
+        versions.computeIfAbsent(customerId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
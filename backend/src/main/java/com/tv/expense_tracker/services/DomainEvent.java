@@ -0,0 +1,42 @@
+package com.tv.expense_tracker.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * An outbox event as handed to {@link DomainEventConsumer}s. Amounts and dates in the
+ * payload are strings, so read them with {@link #decimal} and {@link #date}.
+ * <p>
+ * Events usually arrive in id order, but one whose transaction committed late arrives
+ * after higher ids. {@code committedUpTo} is the shard's settled position when the event
+ * was dispatched: every id up to it has been dispatched no later than this event or was
+ * rolled back, while higher ids may still arrive.
+ */
+public record DomainEvent(long id, int shard, String type, Long customerId, Long aggregateId, JsonNode payload,
+        Instant createdAt, long committedUpTo) {
+
+    public static final String TRANSACTION_CREATED = "transaction.created";
+    public static final String SAVING_DEPOSITED = "saving.deposited";
+    public static final String SAVING_LEDGER_APPENDED = "saving.ledger_appended";
+    public static final String SAVING_DELETED = "saving.deleted";
+    public static final String BILL_PAID = "bill.paid";
+    public static final String BUDGETS_CHANGED = "budgets.changed";
+
+    public String text(String field) {
+        JsonNode value = payload.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    public BigDecimal decimal(String field) {
+        String value = text(field);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    public LocalDate date(String field) {
+        String value = text(field);
+        return value == null ? null : LocalDate.parse(value);
+    }
+}
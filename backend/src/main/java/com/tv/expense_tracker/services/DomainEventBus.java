@@ -0,0 +1,577 @@
+package com.tv.expense_tracker.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.configs.ShardContext;
+import com.tv.expense_tracker.models.OutboxEvent;
+import com.tv.expense_tracker.models.OutboxLease;
+import com.tv.expense_tracker.models.OutboxOffset;
+import com.tv.expense_tracker.repositories.OutboxEventRepository;
+import com.tv.expense_tracker.repositories.OutboxLeaseRepository;
+import com.tv.expense_tracker.repositories.OutboxOffsetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process domain events backed by a transactional outbox. Write paths {@link #publish}
+ * an event in their own transaction, which costs one insert; everything derived from it
+ * runs afterwards on the consumers' threads, so adding consumers does not slow writes.
+ * <ul>
+ * <li>One node dispatches at a time: the holder of the {@code outbox_leases} row, renewed
+ * while it runs and taken over by another node once lease-ms passes without renewal. The
+ * new holder resumes every consumer from its stored offset.</li>
+ * <li>A dispatcher thread reads committed events in id order, shard by shard, and puts
+ * them in each consumer's bounded ring buffer; a full buffer holds the dispatcher back.
+ * It is woken after each publishing commit and otherwise polls every poll-interval-ms.</li>
+ * <li>An id missing from the sequence may belong to a transaction that has not committed
+ * yet. Dispatch stops there for gap-timeout-ms, then moves on and looks the id up again on
+ * every poll, delivering its event late if it shows up. Ids still missing after
+ * gap-max-age-ms are taken as rolled back.</li>
+ * <li>Each consumer thread drains up to batch-size events per call and then stores the
+ * settled position of the batch as its offset, so after a crash or restart it resumes
+ * below any event still outstanding. A consumer seen for the first time starts at the
+ * newest event.</li>
+ * <li>A batch that fails max-attempts times is delivered event by event, and events that
+ * still fail are skipped and counted, so one bad event cannot stall a consumer.</li>
+ * </ul>
+ * Handled events are purged once older than retention-hours.
+ */
+@Service
+public class DomainEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+    private static final String LEASE = "domain-events";
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxOffsetRepository offsetRepository;
+    private final OutboxLeaseRepository leaseRepository;
+    private final ObjectProvider<DomainEventConsumer> consumers;
+    private final ShardDirectory shardDirectory;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int ringSize;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long gapTimeoutMs;
+    private final long gapMaxAgeMs;
+    private final long retryBackoffMs;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final long leaseMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Counter published;
+    private final Counter late;
+    private final Counter abandoned;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Map<Integer, Cursor> cursors = new ConcurrentHashMap<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile long generation;
+    private volatile boolean leading;
+    private long leaseRenewedAt;
+
+    public DomainEventBus(OutboxEventRepository outboxRepository, OutboxOffsetRepository offsetRepository,
+            OutboxLeaseRepository leaseRepository, ObjectProvider<DomainEventConsumer> consumers,
+            ShardDirectory shardDirectory, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${domain-events.enabled:true}") boolean enabled,
+            @Value("${domain-events.ring-size:1024}") int ringSize,
+            @Value("${domain-events.batch-size:100}") int batchSize,
+            @Value("${domain-events.poll-interval-ms:500}") long pollIntervalMs,
+            @Value("${domain-events.gap-timeout-ms:2000}") long gapTimeoutMs,
+            @Value("${domain-events.gap-max-age-ms:600000}") long gapMaxAgeMs,
+            @Value("${domain-events.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${domain-events.max-attempts:5}") int maxAttempts,
+            @Value("${domain-events.retention-hours:168}") long retentionHours,
+            @Value("${domain-events.lease-ms:15000}") long leaseMs) {
+        this.outboxRepository = outboxRepository;
+        this.offsetRepository = offsetRepository;
+        this.leaseRepository = leaseRepository;
+        this.consumers = consumers;
+        this.shardDirectory = shardDirectory;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ringSize = ringSize;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.gapMaxAgeMs = gapMaxAgeMs;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retention = Duration.ofHours(retentionHours);
+        this.leaseMs = leaseMs;
+        this.published = meterRegistry.counter("domain_events.published");
+        this.late = meterRegistry.counter("domain_events.late");
+        this.abandoned = meterRegistry.counter("domain_events.gaps.abandoned");
+    }
+
+    /**
+     * Records an event in the caller's transaction; consumers see it once that commits.
+     *
+     * @param fields Payload as name/value pairs. Amounts and dates are stored as strings.
+     */
+    public void publish(String type, Long customerId, Long aggregateId, Object... fields) {
+        if (!enabled)
+            return;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            Object value = fields[i + 1];
+            if (value instanceof BigDecimal decimal)
+                value = decimal.toPlainString();
+            else if (value instanceof Temporal)
+                value = value.toString();
+            payload.put((String) fields[i], value);
+        }
+        try {
+            outboxRepository.save(new OutboxEvent(type, customerId, aggregateId,
+                    objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Event payload is not serializable", ex);
+        }
+        published.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeups.release();
+                }
+            });
+        } else {
+            wakeups.release();
+        }
+    }
+
+    /**
+     * Starts the consumer threads and the dispatcher, which waits for the lease.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running)
+            return;
+        if (workers.isEmpty())
+            consumers.orderedStream().forEach(consumer -> workers.add(new Worker(consumer)));
+        if (workers.isEmpty())
+            return;
+        running = true;
+        threads.clear();
+        for (Worker worker : workers)
+            threads.add(new Thread(worker, "domain-events-" + worker.consumer.name()));
+        threads.add(new Thread(this::dispatch, "domain-events-dispatcher"));
+        threads.forEach(Thread::start);
+    }
+
+    /**
+     * Stops the threads and gives up the lease, so another node takes over without waiting
+     * for it to expire.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!running)
+            return;
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (leading) {
+            leading = false;
+            try {
+                ShardContext.runOn(ShardContext.HOME, () -> leaseRepository.release(LEASE, nodeId, Instant.now()));
+            } catch (RuntimeException ex) {
+                logger.warn("Could not release the domain event lease: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes events that every consumer has handled and that are older than the
+     * retention, shard by shard. Only the dispatching node knows the offsets.
+     */
+    @Scheduled(fixedDelayString = "${domain-events.purge-interval-ms:3600000}")
+    public void purge() {
+        if (!running || !leading)
+            return;
+        shardDirectory.forEachShard(shard -> {
+            long handledUpTo = workers.stream().mapToLong(worker -> worker.offsets.getOrDefault(shard, 0L))
+                    .min().orElse(0);
+            int purged = outboxRepository.deleteHandledBefore(handledUpTo, Instant.now().minus(retention));
+            if (purged > 0)
+                logger.info("Purged {} handled outbox events on shard {}", purged, shard);
+        });
+    }
+
+    private void dispatch() {
+        while (running) {
+            boolean[] more = { false };
+            try {
+                if (holdLease())
+                    shardDirectory.forEachShard(shard -> more[0] |= dispatchShard(shard));
+                long wait = leading ? pollIntervalMs : Math.max(pollIntervalMs, leaseMs / 3);
+                if (!more[0] && wakeups.tryAcquire(wait, TimeUnit.MILLISECONDS))
+                    wakeups.drainPermits();
+            } catch (InterruptedDispatch | InterruptedException ex) {
+                return;
+            } catch (RuntimeException ex) {
+                logger.warn("Domain event dispatch failed, retrying: {}", ex.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renews or takes the lease once a third of it has passed, taking over or stepping
+     * down when ownership changes.
+     *
+     * @return whether this node may dispatch.
+     */
+    private boolean holdLease() {
+        long now = System.currentTimeMillis();
+        if (leading && now - leaseRenewedAt < leaseMs / 3)
+            return true;
+        boolean held = ShardContext.callOn(ShardContext.HOME, () -> acquireLease(Instant.ofEpochMilli(now)));
+        if (held) {
+            leaseRenewedAt = now;
+            if (!leading)
+                takeOver();
+        } else if (leading) {
+            logger.info("Domain event lease lost by node {}", nodeId);
+            leading = false;
+            generation++;
+            workers.forEach(worker -> worker.ring.clear());
+        }
+        return held;
+    }
+
+    private boolean acquireLease(Instant now) {
+        Instant expiresAt = now.plusMillis(leaseMs);
+        if (leaseRepository.acquire(LEASE, nodeId, now, expiresAt) == 1)
+            return true;
+        if (leaseRepository.existsById(LEASE))
+            return false;
+        try {
+            leaseRepository.save(new OutboxLease(LEASE, nodeId, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            // another node created it first
+            return false;
+        }
+    }
+
+    /**
+     * Loads every consumer's stored offsets and positions the cursors below all of them.
+     */
+    private void takeOver() {
+        generation++;
+        cursors.clear();
+        for (Worker worker : workers) {
+            worker.ring.clear();
+            worker.offsets.clear();
+        }
+        shardDirectory.forEachShard(shard -> {
+            long head = outboxRepository.findMaxId();
+            long from = Long.MAX_VALUE;
+            for (Worker worker : workers) {
+                long offset = offsetRepository.findById(worker.consumer.name())
+                        .orElseGet(() -> offsetRepository.save(new OutboxOffset(worker.consumer.name(), head)))
+                        .getLastEventId();
+                worker.offsets.put(shard, offset);
+                from = Math.min(from, offset);
+            }
+            cursors.put(shard, new Cursor(from, head));
+        });
+        for (Worker worker : workers)
+            worker.consumer.starting();
+        leading = true;
+        logger.info("Domain event lease taken by node {} cursors={}", nodeId, cursors.keySet());
+    }
+
+    /**
+     * @return whether a full batch was read, so more may be waiting.
+     */
+    private boolean dispatchShard(int shard) {
+        Cursor cursor = cursors.get(shard);
+        long now = System.currentTimeMillis();
+        if (!cursor.pending.isEmpty())
+            dispatchLate(shard, cursor, now);
+        List<OutboxEvent> rows = outboxRepository.findByIdGreaterThanOrderById(cursor.position, Limit.of(batchSize));
+        if (!rows.isEmpty())
+            cursor.head = Math.max(cursor.head, rows.get(rows.size() - 1).getId());
+        int ready = cursor.committedPrefix(rows, now);
+        for (int i = 0; i < ready; i++) {
+            cursor.position = rows.get(i).getId();
+            offer(toEvent(rows.get(i), shard, cursor.committedUpTo()));
+        }
+        return ready == batchSize;
+    }
+
+    /**
+     * Delivers the events of ids skipped at a gap that have committed since, and gives up
+     * on ids missing for longer than gap-max-age-ms.
+     */
+    private void dispatchLate(int shard, Cursor cursor, long now) {
+        for (OutboxEvent row : outboxRepository.findByIdInOrderById(List.copyOf(cursor.pending.keySet()))) {
+            cursor.pending.remove(row.getId());
+            late.increment();
+            offer(toEvent(row, shard, cursor.committedUpTo()));
+        }
+        Iterator<Map.Entry<Long, Long>> it = cursor.pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Long> missing = it.next();
+            if (now - missing.getValue() > gapMaxAgeMs) {
+                it.remove();
+                abandoned.increment();
+            }
+        }
+    }
+
+    private void offer(DomainEvent event) {
+        for (Worker worker : workers)
+            worker.offer(event);
+    }
+
+    private DomainEvent toEvent(OutboxEvent row, int shard, long committedUpTo) {
+        try {
+            return new DomainEvent(row.getId(), shard, row.getType(), row.getCustomerId(), row.getAggregateId(),
+                    objectMapper.readTree(row.getPayload()), row.getCreatedAt(), committedUpTo);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Outbox event " + row.getId() + " has an unreadable payload", ex);
+        }
+    }
+
+    /**
+     * The dispatcher's position on one shard, with the ids it has skipped but not yet seen.
+     */
+    private final class Cursor {
+        private long position;
+        private volatile long head;
+        private long gapSince;
+        /** Skipped id to the creation time of the first event found after it. */
+        private final TreeMap<Long, Long> pending = new TreeMap<>();
+
+        private Cursor(long position, long head) {
+            this.position = position;
+            this.head = head;
+        }
+
+        /**
+         * How many of the rows can be dispatched: those before the first gap in the ids,
+         * unless that gap has been open for longer than the timeout, in which case its ids
+         * are tracked as pending and dispatch continues past it.
+         */
+        private int committedPrefix(List<OutboxEvent> rows, long now) {
+            long expected = position + 1;
+            for (int i = 0; i < rows.size(); i++) {
+                OutboxEvent row = rows.get(i);
+                if (row.getId() != expected) {
+                    if (gapSince == 0)
+                        gapSince = now;
+                    if (now - gapSince < gapTimeoutMs)
+                        return i;
+                    gapSince = 0;
+                    skip(expected, row);
+                }
+                expected = row.getId() + 1;
+            }
+            return rows.size();
+        }
+
+        /**
+         * Records the ids from {@code first} up to the row as pending. The missing ids were
+         * assigned before the row's, so the row's creation time bounds their age.
+         */
+        private void skip(long first, OutboxEvent row) {
+            if (row.getId() - first > MAX_TRACKED_GAP) {
+                logger.warn("Outbox ids {}..{} missing, too many to track; taking them as rolled back", first,
+                        row.getId() - 1);
+                abandoned.increment(row.getId() - first);
+                return;
+            }
+            long seenAfter = row.getCreatedAt().toEpochMilli();
+            for (long id = first; id < row.getId(); id++)
+                pending.put(id, seenAfter);
+        }
+
+        /**
+         * Every id up to this one has been dispatched or given up on.
+         */
+        private long committedUpTo() {
+            return pending.isEmpty() ? position : Math.min(position, pending.firstKey() - 1);
+        }
+    }
+
+    private record Delivery(DomainEvent event, long generation) {
+    }
+
+    /**
+     * One consumer's ring buffer and thread.
+     */
+    private final class Worker implements Runnable {
+        private final DomainEventConsumer consumer;
+        private final BlockingQueue<Delivery> ring;
+        private final Map<Integer, Long> offsets = new ConcurrentHashMap<>();
+        private final Counter handled;
+        private final Counter failures;
+        private final Counter skipped;
+        private final Timer delay;
+
+        private Worker(DomainEventConsumer consumer) {
+            this.consumer = consumer;
+            this.ring = new ArrayBlockingQueue<>(ringSize);
+            this.handled = meterRegistry.counter("domain_events.handled", "consumer", consumer.name());
+            this.failures = meterRegistry.counter("domain_events.failures", "consumer", consumer.name());
+            this.skipped = meterRegistry.counter("domain_events.skipped", "consumer", consumer.name());
+            this.delay = Timer.builder("domain_events.delay").tag("consumer", consumer.name())
+                    .description("Time from publish to handling").register(meterRegistry);
+            Gauge.builder("domain_events.lag", this, Worker::lag).tag("consumer", consumer.name())
+                    .description("Committed events not yet handled").register(meterRegistry);
+        }
+
+        /**
+         * Queues the event unless the consumer's stored offset already covers it.
+         */
+        private void offer(DomainEvent event) {
+            if (event.id() <= offsets.getOrDefault(event.shard(), Long.MAX_VALUE))
+                return;
+            try {
+                ring.put(new Delivery(event, generation));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedDispatch();
+            }
+        }
+
+        private double lag() {
+            long lag = 0;
+            for (Map.Entry<Integer, Cursor> cursor : cursors.entrySet())
+                lag += Math.max(0, cursor.getValue().head - offsets.getOrDefault(cursor.getKey(), 0L));
+            return lag;
+        }
+
+        @Override
+        public void run() {
+            List<Delivery> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    batch.add(ring.take());
+                    ring.drainTo(batch, batchSize - 1);
+                    batch.removeIf(delivery -> delivery.generation() != generation);
+                    int start = 0;
+                    for (int i = 1; i <= batch.size(); i++) {
+                        if (i == batch.size()
+                                || batch.get(i).event().shard() != batch.get(start).event().shard()) {
+                            deliver(batch.subList(start, i).stream().map(Delivery::event).toList(),
+                                    batch.get(start).generation());
+                            start = i;
+                        }
+                    }
+                    batch.clear();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Hands one shard's events to the consumer, retrying up to max-attempts times, then
+         * event by event so only the events that keep failing are skipped. Stores the
+         * batch's settled position as the offset.
+         */
+        private void deliver(List<DomainEvent> events, long batchGeneration) throws InterruptedException {
+            int shard = events.get(0).shard();
+            List<DomainEvent> accepted = events.stream().filter(event -> consumer.accepts(event.type())).toList();
+            if (!accepted.isEmpty() && !attempt(accepted, shard, maxAttempts)) {
+                if (!running)
+                    return;
+                for (DomainEvent event : accepted) {
+                    if (accepted.size() > 1 && attempt(List.of(event), shard, 1))
+                        continue;
+                    skipped.increment();
+                    logger.error("Event consumer {} skipped event {} ({}) after {} attempts", consumer.name(),
+                            event.id(), event.type(), maxAttempts);
+                }
+            }
+            if (batchGeneration != generation)
+                return;
+            long last = events.get(events.size() - 1).committedUpTo();
+            try {
+                ShardContext.runOn(shard, () -> offsetRepository.save(new OutboxOffset(consumer.name(), last)));
+            } catch (RuntimeException ex) {
+                // the next batch stores a later offset; until then a restart replays this one
+                logger.warn("Could not store offset {} for event consumer {}: {}", last, consumer.name(),
+                        ex.getMessage());
+            }
+            offsets.put(shard, last);
+            Instant now = Instant.now();
+            for (DomainEvent event : accepted)
+                delay.record(Duration.between(event.createdAt(), now));
+            handled.increment(accepted.size());
+        }
+
+        /**
+         * @return whether the consumer handled the events within the attempts.
+         */
+        private boolean attempt(List<DomainEvent> events, int shard, int attempts) throws InterruptedException {
+            for (int attempt = 1; attempt <= attempts && running; attempt++) {
+                try {
+                    ShardContext.runOn(shard, () -> consumer.handle(events));
+                    return true;
+                } catch (RuntimeException ex) {
+                    failures.increment();
+                    logger.warn("Event consumer {} failed on events {}..{} (attempt {}/{}): {}", consumer.name(),
+                            events.get(0).id(), events.get(events.size() - 1).id(), attempt, attempts,
+                            ex.getMessage());
+                    if (attempt < attempts)
+                        Thread.sleep(retryBackoffMs);
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class InterruptedDispatch extends RuntimeException {
+    }
+}
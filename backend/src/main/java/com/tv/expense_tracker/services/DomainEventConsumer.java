@@ -0,0 +1,38 @@
+package com.tv.expense_tracker.services;
+
+import java.util.List;
+
+/**
+ * Derived-data work driven by the {@link DomainEventBus}, off the request thread. Each
+ * consumer bean gets its own thread and ring buffer, on the one node that holds the
+ * dispatch lease.
+ * <p>
+ * Delivery is at least once: a batch that throws is retried, and a batch handled just
+ * before a crash or a hand-over is delivered again, so handling must be idempotent.
+ */
+public interface DomainEventConsumer {
+
+    /**
+     * Stable name; the consumer's position in the outbox is stored under it.
+     */
+    String name();
+
+    default boolean accepts(String type) {
+        return true;
+    }
+
+    /**
+     * Called on the node that has just taken the dispatch lease, before its first delivery.
+     * Events handled meanwhile on another node are not delivered here again, so consumers
+     * holding in-memory state rebuild it.
+     */
+    default void starting() {
+    }
+
+    /**
+     * Handles accepted events in dispatch order, with the events' shard selected. That is
+     * outbox order except for events whose transaction committed late; see
+     * {@link DomainEvent#committedUpTo()}.
+     */
+    void handle(List<DomainEvent> events);
+}
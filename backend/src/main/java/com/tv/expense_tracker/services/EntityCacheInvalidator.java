@@ -0,0 +1,53 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.EntityCacheConfig;
+import com.tv.expense_tracker.models.Saving;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts second-level cache entries for rows written with plain JDBC, which Hibernate
+ * does not see. Entries are dropped right away and again once the transaction completes,
+ * so a read that raced the write cannot leave the old row cached. Other nodes are told
+ * through the {@link CacheInvalidationBus}.
+ */
+@Component
+public class EntityCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheInvalidationBus bus;
+
+    public EntityCacheInvalidator(EntityManagerFactory entityManagerFactory, CacheInvalidationBus bus) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.bus = bus;
+    }
+
+    /**
+     * The given savings changed; also drops cached query results, which may list them.
+     */
+    public void savingsChanged(Collection<Long> savingIds) {
+        if (savingIds.isEmpty())
+            return;
+        List<Long> ids = List.copyOf(savingIds);
+        Runnable evict = () -> {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(Saving.class, id));
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        };
+        evict.run();
+        bus.publish(EntityCacheConfig.SAVINGS, ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
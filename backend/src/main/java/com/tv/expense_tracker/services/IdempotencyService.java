@@ -0,0 +1,199 @@
+package com.tv.expense_tracker.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.exceptions.IdempotencyKeyException;
+import com.tv.expense_tracker.models.IdempotencyRecord;
+import com.tv.expense_tracker.repositories.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs state-changing requests at most once per {@code Idempotency-Key}.
+ * <p>
+ * The key is reserved by inserting its row in the same transaction as the change, so a
+ * concurrent retry blocks on the unique constraint and then replays the committed outcome.
+ * Only successful (2xx) responses are stored; a failed request leaves nothing behind and
+ * may be retried with the same key. Recent outcomes are also kept in a bounded in-memory
+ * cache so hot retries do not reach the database.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<CacheKey, StoredResponse> cache;
+    private final Counter replays;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, ShardDirectory shardDirectory, MeterRegistry meterRegistry,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.replays = meterRegistry.counter("idempotency.replays");
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Runs the action once for the key, or replays the response stored for it.
+     *
+     * @param principal    The authenticated user the key belongs to.
+     * @param key          The client's Idempotency-Key; when null the action simply runs.
+     * @param endpoint     Method and path, part of the request fingerprint.
+     * @param request      The request body, part of the request fingerprint.
+     * @param responseType Body type used to rebuild a replayed response.
+     * @throws IdempotencyKeyException if the key is too long or was used for a different request.
+     */
+    public <T> ResponseEntity<T> execute(String principal, String key, String endpoint, Object request,
+            Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank())
+            return action.get();
+        if (key.length() > MAX_KEY_LENGTH)
+            throw new IdempotencyKeyException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        CacheKey cacheKey = new CacheKey(principal, key);
+        String requestHash = fingerprint(endpoint, request);
+
+        StoredResponse stored = lookup(cacheKey);
+        if (stored != null)
+            return replay(stored, requestHash, responseType);
+
+        AtomicReference<StoredResponse> completed = new AtomicReference<>();
+        ResponseEntity<T> response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                IdempotencyRecord record = repository.saveAndFlush(new IdempotencyRecord(principal, key, requestHash));
+                ResponseEntity<T> result = action.get();
+                if (!result.getStatusCode().is2xxSuccessful()) {
+                    status.setRollbackOnly();
+                    return result;
+                }
+                record.setStatusCode(result.getStatusCode().value());
+                record.setResponseBody(result.getBody() == null ? null : toJson(result.getBody()));
+                completed.set(StoredResponse.of(repository.save(record), ttl));
+                return result;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // a concurrent request with the same key committed first
+            stored = lookup(cacheKey);
+            if (stored == null)
+                throw ex;
+            return replay(stored, requestHash, responseType);
+        }
+        if (completed.get() != null)
+            cache.put(cacheKey, completed.get());
+        return response;
+    }
+
+    /**
+     * Deletes stored responses older than the TTL.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        shardDirectory.forEachShard(shard -> repository.deleteByCreatedAtBefore(cutoff));
+    }
+
+    private StoredResponse lookup(CacheKey cacheKey) {
+        StoredResponse stored = cache.get(cacheKey);
+        if (stored != null && !stored.isExpired())
+            return stored;
+        IdempotencyRecord record = repository.findByPrincipalAndIdempotencyKey(cacheKey.principal(), cacheKey.key())
+                .orElse(null);
+        if (record == null) {
+            cache.remove(cacheKey);
+            return null;
+        }
+        stored = StoredResponse.of(record, ttl);
+        if (stored.isExpired()) {
+            // let the key be reused once its stored response has lapsed
+            repository.delete(record);
+            cache.remove(cacheKey);
+            return null;
+        }
+        cache.put(cacheKey, stored);
+        return stored;
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash))
+            throw new IdempotencyKeyException(HEADER + " was already used for a different request");
+        replays.increment();
+        T body;
+        try {
+            body = stored.body() == null ? null : objectMapper.readValue(stored.body(), responseType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", ex);
+        }
+        return ResponseEntity.status(stored.statusCode()).header(REPLAYED_HEADER, "true").body(body);
+    }
+
+    private String fingerprint(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record CacheKey(String principal, String key) {
+    }
+
+    private record StoredResponse(String requestHash, int statusCode, String body, Instant expiresAt) {
+        static StoredResponse of(IdempotencyRecord record, Duration ttl) {
+            Instant createdAt = record.getCreatedAt() != null ? record.getCreatedAt() : Instant.now();
+            return new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getResponseBody(),
+                    createdAt.plus(ttl));
+        }
+
+        boolean isExpired() {
+            return Instant.now().isAfter(expiresAt);
+        }
+    }
+}
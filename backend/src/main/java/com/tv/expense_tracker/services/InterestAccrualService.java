@@ -0,0 +1,205 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.models.InterestAccrualCheckpoint;
+import com.tv.expense_tracker.repositories.InterestAccrualCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Posts daily interest to every interest-bearing saving. Savings are walked in id order in
+ * chunks; each chunk applies the balance updates, inserts the "interest" ledger rows and
+ * advances the checkpoint in one transaction, so a crashed or restarted run resumes after
+ * the last committed chunk and never accrues the same account twice for a date.
+ */
+@Service
+public class InterestAccrualService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterestAccrualService.class);
+    private static final BigDecimal PERCENT_DAYS = BigDecimal.valueOf(36500); // 100% x 365 days
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InterestAccrualCheckpointRepository checkpointRepository;
+    private final DomainEventBus domainEvents;
+    private final ShardDirectory shardDirectory;
+    private final EntityCacheInvalidator cacheInvalidator;
+    private final Counter accruedAccounts;
+    private final int chunkSize;
+
+    public InterestAccrualService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            InterestAccrualCheckpointRepository checkpointRepository, DomainEventBus domainEvents,
+            ShardDirectory shardDirectory, EntityCacheInvalidator cacheInvalidator, MeterRegistry meterRegistry,
+            @Value("${savings.interest.accrual-chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointRepository = checkpointRepository;
+        this.domainEvents = domainEvents;
+        this.shardDirectory = shardDirectory;
+        this.cacheInvalidator = cacheInvalidator;
+        this.accruedAccounts = meterRegistry.counter("savings.interest.accrued.accounts");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Accrues interest for the day that just ended, on every shard.
+     */
+    @Scheduled(cron = "${savings.interest.accrual-cron:0 30 1 * * *}")
+    public void accrueNightly() {
+        LocalDate accrualDate = LocalDate.now().minusDays(1);
+        shardDirectory.forEachShard(shard -> {
+            long start = System.nanoTime();
+            long accrued = accrue(accrualDate);
+            logger.info("Interest accrual date={} shard={} accounts={} elapsedMs={}", accrualDate, shard, accrued,
+                    (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    /**
+     * Runs (or resumes) the accrual for one date.
+     *
+     * @param accrualDate The day interest is earned for.
+     * @return the number of accounts credited by this call.
+     */
+    public long accrue(LocalDate accrualDate) {
+        InterestAccrualCheckpoint checkpoint = checkpointRepository.findById(accrualDate)
+                .orElseGet(() -> startCheckpoint(accrualDate));
+        if (checkpoint.isCompleted())
+            return 0;
+        long total = 0;
+        while (true) {
+            Integer credited;
+            try {
+                credited = transactionTemplate.execute(status -> processChunk(accrualDate));
+            } catch (ChunkTakenException ex) {
+                continue;
+            }
+            if (credited == null || credited < 0)
+                return total;
+            total += credited;
+        }
+    }
+
+    private InterestAccrualCheckpoint startCheckpoint(LocalDate accrualDate) {
+        try {
+            return checkpointRepository.save(new InterestAccrualCheckpoint(accrualDate));
+        } catch (DataIntegrityViolationException ex) {
+            // another node created it first
+            return checkpointRepository.findById(accrualDate).orElseThrow();
+        }
+    }
+
+    /**
+     * @return accounts credited in this chunk, or -1 once the date is complete.
+     */
+    private int processChunk(LocalDate accrualDate) {
+        List<Long> cursor = jdbcTemplate.queryForList(
+                "select last_saving_id from interest_accrual_checkpoints where accrual_date = ? and completed = false",
+                Long.class, Date.valueOf(accrualDate));
+        if (cursor.isEmpty())
+            return -1;
+        long after = cursor.get(0);
+        Timestamp now = Timestamp.from(Instant.now());
+
+        List<Accrual> chunk = jdbcTemplate.query(
+                "select id, customer_id, balance, interest_rate from savings where id > ? and interest_rate > 0 "
+                        + "and balance > 0 order by id limit ?",
+                ACCRUAL_ROW,
+                after, chunkSize);
+        if (chunk.isEmpty()) {
+            jdbcTemplate.update("update interest_accrual_checkpoints set completed = true, updated_at = ? "
+                    + "where accrual_date = ?", now, Date.valueOf(accrualDate));
+            return -1;
+        }
+
+        List<Accrual> credited = new ArrayList<>(chunk.size());
+        List<Object[]> updates = new ArrayList<>(chunk.size());
+        for (Accrual a : chunk) {
+            if (a.interest().signum() > 0) {
+                credited.add(a);
+                updates.add(new Object[] { a.interest(), now, a.id(), a.balance() });
+            }
+        }
+        // conditional on the balance we read; accounts changed since then are re-read under lock
+        int[] counts = jdbcTemplate.batchUpdate(
+                "update savings set balance = balance + ?, updated_at = ? where id = ? and balance = ?", updates);
+        List<Object[]> ledger = new ArrayList<>(credited.size());
+        List<Long> changed = new ArrayList<>(credited.size());
+        Map<Long, BigDecimal> byCustomer = new TreeMap<>();
+        for (int i = 0; i < credited.size(); i++) {
+            Accrual a = credited.get(i);
+            if (counts[i] == 0)
+                a = relockAndApply(a.id(), now);
+            if (a != null) {
+                ledger.add(new Object[] { a.id(), "interest", a.interest(), now });
+                changed.add(a.id());
+                byCustomer.merge(a.customerId(), a.interest(), BigDecimal::add);
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into saving_transactions (saving_id, type, amount, created_at) values (?, ?, ?, ?)", ledger);
+        cacheInvalidator.savingsChanged(changed);
+
+        long last = chunk.get(chunk.size() - 1).id();
+        int advanced = jdbcTemplate.update("update interest_accrual_checkpoints set last_saving_id = ?, "
+                + "accounts_accrued = accounts_accrued + ?, updated_at = ? where accrual_date = ? and last_saving_id = ?",
+                last, ledger.size(), now, Date.valueOf(accrualDate), after);
+        if (advanced == 0) {
+            // another worker committed this chunk first; discard ours and continue from its cursor
+            throw new ChunkTakenException();
+        }
+        // one event per customer, on the day of the ledger rows' created_at, where a back-fill counts them too
+        LocalDate posted = now.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        byCustomer.forEach((customerId, interest) -> domainEvents.publish(DomainEvent.SAVING_LEDGER_APPENDED,
+                customerId, null, "type", "interest", "amount", interest, "date", posted));
+        accruedAccounts.increment(ledger.size());
+        return ledger.size();
+    }
+
+    private Accrual relockAndApply(long savingId, Timestamp now) {
+        List<Accrual> current = jdbcTemplate.query(
+                "select id, customer_id, balance, interest_rate from savings where id = ? for update", ACCRUAL_ROW,
+                savingId);
+        if (current.isEmpty() || current.get(0).interest().signum() <= 0)
+            return null;
+        Accrual a = current.get(0);
+        jdbcTemplate.update("update savings set balance = balance + ?, updated_at = ? where id = ?",
+                a.interest(), now, a.id());
+        return a;
+    }
+
+    private static final RowMapper<Accrual> ACCRUAL_ROW = (rs, i) -> new Accrual(rs.getLong(1), rs.getLong(2),
+            rs.getBigDecimal(3), rs.getBigDecimal(4));
+
+    private record Accrual(long id, long customerId, BigDecimal balance, BigDecimal interestRate) {
+        BigDecimal interest() {
+            if (balance == null || interestRate == null || balance.signum() <= 0 || interestRate.signum() <= 0)
+                return BigDecimal.ZERO;
+            return balance.multiply(interestRate).divide(PERCENT_DAYS, 2, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static class ChunkTakenException extends RuntimeException {
+    }
+}
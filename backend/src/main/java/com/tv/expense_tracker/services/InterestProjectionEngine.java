@@ -0,0 +1,194 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry;
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Monthly compound interest projections with server-enforced horizons.
+ * <ul>
+ * <li>Materialized month-by-month lists are capped at {@code max-months} and kept in an
+ * LRU cache keyed by (saving, balance, rate, months, start month).</li>
+ * <li>Streaming and the closed-form summary allow up to {@code max-horizon-months}; they
+ * never hold the whole curve in memory.</li>
+ * </ul>
+ */
+@Component
+public class InterestProjectionEngine {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal TWELVE = BigDecimal.valueOf(12);
+
+    private final int maxMonths;
+    private final int maxHorizonMonths;
+    private final SingleFlight singleFlight;
+    private final Map<CacheKey, List<InterestProjectionEntry>> cache;
+
+    public InterestProjectionEngine(
+            @Value("${savings.projection.max-months:360}") int maxMonths,
+            @Value("${savings.projection.max-horizon-months:1200}") int maxHorizonMonths,
+            @Value("${savings.projection.cache-size:1024}") int cacheSize,
+            SingleFlight singleFlight) {
+        this.maxMonths = maxMonths;
+        this.maxHorizonMonths = maxHorizonMonths;
+        this.singleFlight = singleFlight;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, List<InterestProjectionEntry>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Month-by-month projection, served from cache when the saving has not changed.
+     *
+     * @throws IllegalArgumentException if months is outside 1..max-months
+     */
+    public List<InterestProjectionEntry> project(Long savingId, BigDecimal balance, BigDecimal annualRate, int months) {
+        checkHorizon(months, maxMonths);
+        YearMonth startMonth = YearMonth.now();
+        // strip trailing zeros so 100.0 and 100.00 share an entry
+        CacheKey key = new CacheKey(savingId, orZero(balance).stripTrailingZeros(),
+                orZero(annualRate).stripTrailingZeros(), months, startMonth);
+        List<InterestProjectionEntry> cached = cache.get(key);
+        if (cached != null)
+            return cached;
+        return singleFlight.execute("interest-projection", key, () -> {
+            List<InterestProjectionEntry> entries = new ArrayList<>(months);
+            new Walk(orZero(balance), orZero(annualRate), months, startMonth).forEachRemaining(entries::add);
+            List<InterestProjectionEntry> result = Collections.unmodifiableList(entries);
+            cache.put(key, result);
+            return result;
+        });
+    }
+
+    /**
+     * Lazy projection computed one month at a time as the stream is consumed. The horizon
+     * is checked eagerly, before any entry is produced.
+     *
+     * @throws IllegalArgumentException if months is outside 1..max-horizon-months
+     */
+    public Stream<InterestProjectionEntry> stream(BigDecimal balance, BigDecimal annualRate, int months) {
+        checkHorizon(months, maxHorizonMonths);
+        Walk walk = new Walk(orZero(balance), orZero(annualRate), months, YearMonth.now());
+        return StreamSupport.stream(Spliterators.spliterator(walk, months, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Final balance and total interest from the closed form {@code B * (1 + r)^n}. Unlike
+     * the month-by-month walk this does not round interest to cents each month, so it can
+     * differ from the last projected entry by a few cents over long horizons.
+     *
+     * @throws IllegalArgumentException if months is outside 1..max-horizon-months
+     */
+    public InterestProjectionSummary summarize(BigDecimal balance, BigDecimal annualRate, int months) {
+        checkHorizon(months, maxHorizonMonths);
+        BigDecimal start = orZero(balance);
+        BigDecimal growth = BigDecimal.ONE.add(monthlyRate(orZero(annualRate))).pow(months, MathContext.DECIMAL64);
+        BigDecimal finalBalance = start.multiply(growth).setScale(2, RoundingMode.HALF_UP);
+        return new InterestProjectionSummary(months, finalBalance, finalBalance.subtract(start));
+    }
+
+    /**
+     * Months until a balance growing by monthly interest plus a fixed monthly contribution
+     * first reaches the goal, or null if it does not within max-horizon-months.
+     */
+    public Integer monthsToGoal(BigDecimal balance, BigDecimal annualRate, BigDecimal monthlyContribution,
+            BigDecimal goal) {
+        BigDecimal current = orZero(balance);
+        if (current.compareTo(goal) >= 0)
+            return 0;
+        BigDecimal rate = monthlyRate(orZero(annualRate));
+        BigDecimal contribution = orZero(monthlyContribution);
+        for (int month = 1; month <= maxHorizonMonths; month++) {
+            BigDecimal next = current.add(current.multiply(rate).setScale(2, RoundingMode.HALF_UP)).add(contribution);
+            if (next.compareTo(goal) >= 0)
+                return month;
+            if (next.compareTo(current) <= 0)
+                return null;
+            current = next;
+        }
+        return null;
+    }
+
+    /**
+     * Drops every cached projection of the saving; call after any change to it.
+     */
+    public void invalidate(Long savingId) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> Objects.equals(key.savingId(), savingId));
+        }
+    }
+
+    /**
+     * Month-by-month walk: interest is rounded to cents each month and compounded.
+     */
+    private static final class Walk implements Iterator<InterestProjectionEntry> {
+        private final BigDecimal monthlyRate;
+        private final int months;
+        private final YearMonth start;
+        private BigDecimal balance;
+        private int index;
+
+        Walk(BigDecimal balance, BigDecimal annualRate, int months, YearMonth start) {
+            this.monthlyRate = monthlyRate(annualRate);
+            this.months = months;
+            this.start = start;
+            this.balance = balance;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < months;
+        }
+
+        @Override
+        public InterestProjectionEntry next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            YearMonth month = start.plusMonths(++index);
+            BigDecimal interest = balance.multiply(monthlyRate).setScale(2, RoundingMode.HALF_UP);
+            balance = balance.add(interest);
+            InterestProjectionEntry entry = new InterestProjectionEntry();
+            entry.setMonth(month.getMonth().toString() + " " + month.getYear());
+            entry.setInterest(interest);
+            entry.setBalance(balance);
+            return entry;
+        }
+    }
+
+    private static BigDecimal monthlyRate(BigDecimal annualRate) {
+        return annualRate.divide(HUNDRED, 8, RoundingMode.HALF_UP).divide(TWELVE, 8, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    private static void checkHorizon(int months, int max) {
+        if (months < 1 || months > max)
+            throw new IllegalArgumentException("months must be between 1 and " + max);
+    }
+
+    private record CacheKey(Long savingId, BigDecimal balance, BigDecimal annualRate, int months, YearMonth startMonth) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.ShardContext;
+import com.tv.expense_tracker.models.ReconciliationMismatch;
+import com.tv.expense_tracker.models.ReconciliationRun;
+import com.tv.expense_tracker.repositories.ReconciliationMismatchRepository;
+import com.tv.expense_tracker.repositories.ReconciliationRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares every saving's stored balance with the balance its ledger implies (latest
+ * snapshot plus the signed entries after it). Savings are split into id ranges that are
+ * checked in parallel, each with a single read-only aggregate query, so a run takes no
+ * locks and sees every account as of one committed state per shard. Each range first gets
+ * the baseline snapshots its legacy savings are missing (see {@link SavingLedgerService}),
+ * so they are compared against their stored balance rather than a partial ledger.
+ */
+@Service
+public class LedgerReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerReconciliationService.class);
+
+    private static final String SHARD_QUERY = "select s.id, s.balance, "
+            + "coalesce(sn.balance, 0) + coalesce(sum(case when t.type in ('withdrawal', 'transfer_out') "
+            + "then -t.amount else t.amount end), 0) as ledger_balance "
+            + "from savings s "
+            + "left join saving_balance_snapshots sn on sn.id = (select x.id from saving_balance_snapshots x "
+            + "where x.saving_id = s.id order by x.last_transaction_id desc, x.id desc limit 1) "
+            + "left join saving_transactions t on t.saving_id = s.id and t.id > coalesce(sn.last_transaction_id, 0) "
+            + "where s.id >= ? and s.id < ? "
+            + "group by s.id, s.balance, sn.balance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final ShardDirectory shardDirectory;
+    private final SavingLedgerService ledgerService;
+    private final ExecutorService workers;
+    private final long shardSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Timer duration;
+    private final Counter accountsChecked;
+    private final Counter mismatchesFound;
+
+    public LedgerReconciliationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ReconciliationRunRepository runRepository, ReconciliationMismatchRepository mismatchRepository,
+            ShardDirectory shardDirectory, SavingLedgerService ledgerService, MeterRegistry meterRegistry,
+            @Value("${savings.reconciliation.shard-size:10000}") long shardSize,
+            @Value("${savings.reconciliation.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.runRepository = runRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.shardDirectory = shardDirectory;
+        this.ledgerService = ledgerService;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+        this.shardSize = shardSize;
+        this.duration = meterRegistry.timer("savings.reconciliation.duration");
+        this.accountsChecked = meterRegistry.counter("savings.reconciliation.accounts");
+        this.mismatchesFound = meterRegistry.counter("savings.reconciliation.mismatches");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(cron = "${savings.reconciliation.cron:0 0 3 * * *}")
+    public void reconcileNightly() {
+        if (!running.get())
+            shardDirectory.forEachShard(shard -> reconcile());
+    }
+
+    /**
+     * Runs a full reconciliation and records its mismatches.
+     *
+     * @throws IllegalStateException if a run is already in progress on this node.
+     */
+    public ReconciliationRun reconcile() {
+        if (!running.compareAndSet(false, true))
+            throw new IllegalStateException("reconciliation already running");
+        try {
+            return duration.record(this::runShards);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * The most recent completed run, if any.
+     */
+    public ReconciliationRun latestRun() {
+        return runRepository.findFirstByFinishedAtIsNotNullOrderByIdDesc().orElse(null);
+    }
+
+    private ReconciliationRun runShards() {
+        long start = System.nanoTime();
+        ReconciliationRun run = new ReconciliationRun();
+        run.setStartedAt(Instant.now());
+        run = runRepository.save(run);
+
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("select min(id) as lo, max(id) as hi from savings");
+        List<Callable<Long>> shards = new ArrayList<>();
+        AtomicLong mismatches = new AtomicLong();
+        if (bounds.get("lo") != null) {
+            long lo = ((Number) bounds.get("lo")).longValue();
+            long hi = ((Number) bounds.get("hi")).longValue();
+            ReconciliationRun owner = run;
+            for (long from = lo; from <= hi; from += shardSize) {
+                long shardFrom = from;
+                long shardTo = Math.min(from + shardSize, hi + 1);
+                shards.add(ShardContext.propagate(() -> checkShard(owner, shardFrom, shardTo, mismatches)));
+            }
+        }
+
+        long checked = 0;
+        try {
+            for (Future<Long> shard : workers.invokeAll(shards))
+                checked += shard.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("reconciliation interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("reconciliation shard failed", ex.getCause());
+        }
+
+        run.setShards(shards.size());
+        run.setAccountsChecked(checked);
+        run.setMismatches(mismatches.get());
+        run.setFinishedAt(Instant.now());
+        run = runRepository.save(run);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("Ledger reconciliation run={} shards={} accounts={} mismatches={} accountsPerSec={}",
+                run.getId(), shards.size(), checked, mismatches.get(),
+                seconds > 0 ? Math.round(checked / seconds) : checked);
+        return run;
+    }
+
+    private long checkShard(ReconciliationRun run, long from, long to, AtomicLong mismatches) {
+        int baselines = ledgerService.writeMissingBaselines(from, to);
+        if (baselines > 0)
+            logger.info("Wrote {} baseline snapshots for savings {}..{}", baselines, from, to - 1);
+        Instant detectedAt = Instant.now();
+        List<ReconciliationMismatch> found = new ArrayList<>();
+        long[] checked = new long[1];
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(SHARD_QUERY, rs -> {
+            checked[0]++;
+            BigDecimal stored = rs.getBigDecimal(2);
+            BigDecimal ledger = rs.getBigDecimal(3);
+            if (stored.compareTo(ledger) != 0)
+                found.add(new ReconciliationMismatch(run, rs.getLong(1), stored, ledger, detectedAt));
+        }, from, to));
+        if (!found.isEmpty())
+            mismatchRepository.saveAll(found);
+        accountsChecked.increment(checked[0]);
+        mismatchesFound.increment(found.size());
+        mismatches.addAndGet(found.size());
+        return checked[0];
+    }
+}
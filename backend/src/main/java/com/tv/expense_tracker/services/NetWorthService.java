@@ -0,0 +1,376 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.ShardContext;
+import com.tv.expense_tracker.controllers.dtos.NetWorthPoint;
+import com.tv.expense_tracker.models.NetWorthDay;
+import com.tv.expense_tracker.repositories.NetWorthDayRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Daily net worth per customer: total savings balance plus cumulative cash flow (income
+ * minus everything else) from transactions. The net_worth_daily table holds running totals
+ * for each day something changed.
+ * <ul>
+ * <li>Maintained off the write paths as a {@link DomainEventConsumer}: each
+ * {@code transaction.created} and {@code saving.ledger_appended} event moves the totals of
+ * its day and every later day. Deleting a saving removes its history too, so
+ * {@code saving.deleted} rebuilds the customer instead.</li>
+ * <li>A customer without rows is back-filled from the ledgers on first read, or for
+ * everyone in parallel by {@link #backfillAll()}. A back-fill reads the ledgers in one
+ * snapshot together with the customer's committed events above the stored offset, and
+ * records those in net_worth_events as included, like every event it applies; recorded
+ * events are skipped when delivered, so neither a back-fill nor a redelivery counts an
+ * event twice.</li>
+ * </ul>
+ * Both paths lock the customer's net_worth_customers row, so they never interleave, and
+ * the write paths wait for neither. With domain-events disabled nothing maintains the
+ * rows, so every read rebuilds them.
+ */
+@Service
+public class NetWorthService implements DomainEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetWorthService.class);
+    private static final int BACKFILL_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshot;
+    private final TransactionTemplate trackingTemplate;
+    private final NetWorthDayRepository repository;
+    private final ShardDirectory shardDirectory;
+    private final ExecutorService workers;
+    private final int maxDays;
+    private final boolean backfillOnStartup;
+    private final boolean eventsEnabled;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public NetWorthService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            NetWorthDayRepository repository, ShardDirectory shardDirectory,
+            @Value("${networth.max-days:3660}") int maxDays,
+            @Value("${networth.backfill-parallelism:4}") int parallelism,
+            @Value("${networth.backfill-on-startup:false}") boolean backfillOnStartup,
+            @Value("${domain-events.enabled:true}") boolean eventsEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.trackingTemplate = new TransactionTemplate(transactionManager);
+        this.trackingTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.repository = repository;
+        this.shardDirectory = shardDirectory;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+        this.maxDays = maxDays;
+        this.backfillOnStartup = backfillOnStartup;
+        this.eventsEnabled = eventsEnabled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String name() {
+        return "net-worth";
+    }
+
+    @Override
+    public boolean accepts(String type) {
+        return DomainEvent.TRANSACTION_CREATED.equals(type) || DomainEvent.SAVING_LEDGER_APPENDED.equals(type)
+                || DomainEvent.SAVING_DELETED.equals(type);
+    }
+
+    @Override
+    public void handle(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event.customerId() == null)
+                continue;
+            if (DomainEvent.SAVING_DELETED.equals(event.type())) {
+                // customers without rows are left to their first read
+                if (isBuilt(event.customerId()))
+                    backfill(event.customerId());
+                continue;
+            }
+            LocalDate day = event.date("date") != null ? event.date("date")
+                    : event.createdAt().atZone(zone).toLocalDate();
+            boolean cash = DomainEvent.TRANSACTION_CREATED.equals(event.type());
+            BigDecimal amount = cash ? signedCashFlow(event.text("type"), event.decimal("amount"))
+                    : event.decimal("amount");
+            transactionTemplate.executeWithoutResult(status -> apply(event, day, cash ? BigDecimal.ZERO : amount,
+                    cash ? amount : BigDecimal.ZERO));
+        }
+        // the bus never delivers events up to its stored offset again
+        jdbcTemplate.update("delete from net_worth_events where event_id <= "
+                + "(select last_event_id from outbox_offsets where consumer = ?)", name());
+    }
+
+    /**
+     * One point per day in {@code [from, to]}: the previous row carried into the range,
+     * then the rows inside it.
+     *
+     * @throws IllegalArgumentException if the range is reversed or longer than max-days.
+     */
+    public List<NetWorthPoint> series(Long customerId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            throw new IllegalArgumentException("from must not be after to");
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxDays)
+            throw new IllegalArgumentException("at most " + maxDays + " days per request");
+        if (!eventsEnabled || !isBuilt(customerId))
+            backfill(customerId);
+
+        NetWorthDay carried = repository.findFirstByCustomerIdAndDayLessThanOrderByDayDesc(customerId, from)
+                .orElse(null);
+        BigDecimal savings = carried != null ? carried.getSavingsTotal() : BigDecimal.ZERO;
+        BigDecimal cash = carried != null ? carried.getCashTotal() : BigDecimal.ZERO;
+        List<NetWorthDay> rows = repository.findByCustomerIdAndDayBetweenOrderByDay(customerId, from, to);
+
+        List<NetWorthPoint> points = new ArrayList<>((int) days);
+        int next = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (next < rows.size() && rows.get(next).getDay().equals(day)) {
+                savings = rows.get(next).getSavingsTotal();
+                cash = rows.get(next).getCashTotal();
+                next++;
+            }
+            points.add(new NetWorthPoint(day, savings, cash, savings.add(cash)));
+        }
+        return points;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup)
+            backfillAll();
+    }
+
+    /**
+     * Rebuilds every customer's series in parallel, shard by shard.
+     *
+     * @return the number of customers rebuilt.
+     */
+    public int backfillAll() {
+        int[] total = new int[1];
+        shardDirectory.forEachShard(shard -> total[0] += backfillShard(shard));
+        return total[0];
+    }
+
+    private int backfillShard(int shard) {
+        List<Long> customers = ShardContext.callOn(ShardContext.HOME,
+                () -> jdbcTemplate.queryForList("select id from customers order by id", Long.class)).stream()
+                .filter(customerId -> shardDirectory.shardFor(customerId) == shard).toList();
+        List<Callable<Void>> tasks = new ArrayList<>(customers.size());
+        for (Long customerId : customers)
+            tasks.add(ShardContext.propagate(() -> {
+                backfill(customerId);
+                return null;
+            }));
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> task : workers.invokeAll(tasks))
+                task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("net worth back-fill interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("net worth back-fill failed", ex.getCause());
+        }
+        logger.info("Net worth back-fill shard={} customers={} elapsedMs={}", shard, customers.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return customers.size();
+    }
+
+    /**
+     * Replaces the customer's rows with totals recomputed from the savings ledger and the
+     * transactions. Savings whose ledger does not explain their balance are given the
+     * difference as an opening amount on the day they were created.
+     */
+    public void backfill(Long customerId) {
+        startTracking(customerId);
+        for (int attempt = 1;; attempt++) {
+            try {
+                snapshot.executeWithoutResult(status -> rebuildRows(customerId));
+                return;
+            } catch (TransientDataAccessException | DataIntegrityViolationException ex) {
+                // an event was applied after the snapshot was taken; take a newer one
+                if (attempt == BACKFILL_ATTEMPTS)
+                    throw ex;
+            }
+        }
+    }
+
+    private void rebuildRows(Long customerId) {
+        jdbcTemplate.update("update net_worth_customers set rebuilt_at = ? where customer_id = ?",
+                Timestamp.from(Instant.now()), customerId);
+        pinSnapshot();
+        long settled = storedOffset();
+        TreeMap<LocalDate, BigDecimal[]> deltas = new TreeMap<>();
+        jdbcTemplate.query("select t.created_at, case when t.type in ('withdrawal', 'transfer_out') "
+                + "then -t.amount else t.amount end from saving_transactions t "
+                + "join savings s on s.id = t.saving_id where s.customer_id = ?", rs -> {
+                    add(deltas, rs.getTimestamp(1).toInstant().atZone(zone).toLocalDate(), 0,
+                            rs.getBigDecimal(2));
+                }, customerId);
+        jdbcTemplate.query("select s.created_at, s.balance - coalesce(sum(case when t.type in "
+                + "('withdrawal', 'transfer_out') then -t.amount else t.amount end), 0) from savings s "
+                + "left join saving_transactions t on t.saving_id = s.id where s.customer_id = ? "
+                + "group by s.id, s.created_at, s.balance", rs -> {
+                    BigDecimal unexplained = rs.getBigDecimal(2);
+                    if (unexplained.signum() != 0)
+                        add(deltas, rs.getTimestamp(1).toInstant().atZone(zone).toLocalDate(), 0, unexplained);
+                }, customerId);
+        jdbcTemplate.query("select date, type, amount from transactions where customer_id = ?", rs -> {
+            add(deltas, rs.getDate(1).toLocalDate(), 1, signedCashFlow(rs.getString(2), rs.getBigDecimal(3)));
+        }, customerId);
+
+        jdbcTemplate.update("delete from net_worth_daily where customer_id = ?", customerId);
+        BigDecimal savings = BigDecimal.ZERO;
+        BigDecimal cash = BigDecimal.ZERO;
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<LocalDate, BigDecimal[]> day : deltas.entrySet()) {
+            savings = savings.add(day.getValue()[0]);
+            cash = cash.add(day.getValue()[1]);
+            rows.add(new Object[] { customerId, Date.valueOf(day.getKey()), savings, cash });
+        }
+        if (rows.isEmpty())
+            rows.add(new Object[] { customerId, Date.valueOf(LocalDate.now(zone)), savings, cash });
+        jdbcTemplate.batchUpdate("insert into net_worth_daily (customer_id, balance_date, savings_total, "
+                + "cash_total) values (?, ?, ?, ?)", rows);
+        jdbcTemplate.update("insert into net_worth_events (event_id, customer_id) select id, customer_id "
+                + "from outbox_events o where customer_id = ? and type in (?, ?) and id > ? and not exists "
+                + "(select 1 from net_worth_events e where e.event_id = o.id)", customerId,
+                DomainEvent.TRANSACTION_CREATED, DomainEvent.SAVING_LEDGER_APPENDED, settled);
+    }
+
+    /**
+     * Commits the customer's net_worth_customers row on its own, so events handled while the
+     * back-fill runs wait for its lock rather than find the customer untracked.
+     */
+    private void startTracking(Long customerId) {
+        if (isTracked(customerId))
+            return;
+        try {
+            trackingTemplate.executeWithoutResult(status -> jdbcTemplate
+                    .update("insert into net_worth_customers (customer_id) values (?)", customerId));
+        } catch (DataIntegrityViolationException ex) {
+            // another back-fill started tracking the customer first
+        }
+    }
+
+    /**
+     * Adds the event's deltas to the day's running totals and every later day's, unless the
+     * totals already include the event. Customers that are not tracked yet are skipped;
+     * their first read rebuilds everything.
+     */
+    private void apply(DomainEvent event, LocalDate day, BigDecimal savingsDelta, BigDecimal cashDelta) {
+        Long customerId = event.customerId();
+        if (savingsDelta == null || savingsDelta.signum() == 0 && cashDelta.signum() == 0)
+            return;
+        if (!lock(customerId))
+            return;
+        if (jdbcTemplate.update("insert into net_worth_events (event_id, customer_id) select ?, ? where not exists "
+                + "(select 1 from net_worth_events where event_id = ?)", event.id(), customerId, event.id()) == 0)
+            return;
+        Date date = Date.valueOf(day);
+        List<Long> existing = jdbcTemplate.queryForList(
+                "select id from net_worth_daily where customer_id = ? and balance_date = ?", Long.class,
+                customerId, date);
+        if (existing.isEmpty()) {
+            NetWorthDay previous = repository.findFirstByCustomerIdAndDayLessThanOrderByDayDesc(customerId, day)
+                    .orElse(null);
+            jdbcTemplate.update("insert into net_worth_daily (customer_id, balance_date, savings_total, cash_total) "
+                    + "values (?, ?, ?, ?)", customerId, date,
+                    previous != null ? previous.getSavingsTotal() : BigDecimal.ZERO,
+                    previous != null ? previous.getCashTotal() : BigDecimal.ZERO);
+        }
+        jdbcTemplate.update("update net_worth_daily set savings_total = savings_total + ?, "
+                + "cash_total = cash_total + ? where customer_id = ? and balance_date >= ?",
+                savingsDelta, cashDelta, customerId, date);
+    }
+
+    /**
+     * Locks the customer's net_worth_customers row with an update, which a back-fill whose
+     * snapshot is older cannot lock after it without failing and taking a newer one.
+     *
+     * @return whether the customer is tracked.
+     */
+    private boolean lock(Long customerId) {
+        return jdbcTemplate.update("update net_worth_customers set rebuilt_at = rebuilt_at where customer_id = ?",
+                customerId) > 0;
+    }
+
+    /**
+     * Fixes the snapshot of every table a back-fill reads in one statement; H2 would
+     * otherwise take each table's on first use. See {@link BudgetAlertEngine}.
+     */
+    private void pinSnapshot() {
+        jdbcTemplate.queryForObject("select (select count(*) from saving_transactions where id < 0) "
+                + "+ (select count(*) from savings where id < 0) "
+                + "+ (select count(*) from transactions where id < 0) "
+                + "+ (select count(*) from outbox_events where id < 0) "
+                + "+ (select count(*) from outbox_offsets where last_event_id < 0) "
+                + "+ (select count(*) from net_worth_events where event_id < 0) "
+                + "+ (select count(*) from net_worth_daily where id < 0)", Long.class);
+    }
+
+    /**
+     * The offset the bus resumes this consumer from, or the newest event before it has one.
+     * Events up to it have been handled, applied or not, and are not delivered again.
+     */
+    private long storedOffset() {
+        List<Long> offsets = jdbcTemplate.queryForList("select last_event_id from outbox_offsets where consumer = ?",
+                Long.class, name());
+        return !offsets.isEmpty() ? offsets.get(0)
+                : jdbcTemplate.queryForObject("select coalesce(max(id), 0) from outbox_events", Long.class);
+    }
+
+    private boolean isTracked(Long customerId) {
+        return jdbcTemplate.queryForObject("select count(*) from net_worth_customers where customer_id = ?",
+                Long.class, customerId) > 0;
+    }
+
+    private boolean isBuilt(Long customerId) {
+        return jdbcTemplate.queryForObject("select count(*) from net_worth_customers where customer_id = ? "
+                + "and rebuilt_at is not null", Long.class, customerId) > 0;
+    }
+
+    private static BigDecimal signedCashFlow(String type, BigDecimal amount) {
+        if (amount == null)
+            return BigDecimal.ZERO;
+        return "income".equalsIgnoreCase(type) ? amount : amount.negate();
+    }
+
+    private static void add(TreeMap<LocalDate, BigDecimal[]> deltas, LocalDate day, int column, BigDecimal amount) {
+        BigDecimal[] totals = deltas.computeIfAbsent(day, d -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+        totals[column] = totals[column].add(amount);
+    }
+}
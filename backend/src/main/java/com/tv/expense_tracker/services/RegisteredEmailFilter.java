@@ -0,0 +1,113 @@
+package com.tv.expense_tracker.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of registered emails, so signup can skip the lookup for an email that has
+ * certainly never been seen. It is warmed from the customers table at startup and updated
+ * on every signup on this node; until warmed, every email counts as possibly registered.
+ * A "possibly registered" answer is only a hint: the unique constraint stays the source of
+ * truth, including for emails registered through another node.
+ */
+@Component
+public class RegisteredEmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean warmed;
+    private final Counter skippedLookups;
+    private final Counter possibleMatches;
+
+    public RegisteredEmailFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${auth.email-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+        this.skippedLookups = meterRegistry.counter("auth.email-filter", "result", "absent");
+        this.possibleMatches = meterRegistry.counter("auth.email-filter", "result", "maybe");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long start = System.nanoTime();
+        long[] loaded = new long[1];
+        jdbcTemplate.query("select email from customers", rs -> {
+            put(rs.getString(1));
+            loaded[0]++;
+        });
+        warmed = true;
+        logger.info("Registered email filter warmed emails={} bits={} hashes={} elapsedMs={}", loaded[0], bitCount,
+                hashCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * False only when the email has certainly not been registered.
+     */
+    public boolean mightContain(String email) {
+        if (!warmed) {
+            possibleMatches.increment();
+            return true;
+        }
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                skippedLookups.increment();
+                return false;
+            }
+        }
+        possibleMatches.increment();
+        return true;
+    }
+
+    public void put(String email) {
+        long hash = hash(email);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+    private static long hash(String email) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53e8b53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,181 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.BalancePoint;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.models.SavingBalanceSnapshot;
+import com.tv.expense_tracker.models.SavingTransaction;
+import com.tv.expense_tracker.repositories.LedgerEntry;
+import com.tv.expense_tracker.repositories.LedgerTotals;
+import com.tv.expense_tracker.repositories.SavingBalanceSnapshotRepository;
+import com.tv.expense_tracker.repositories.SavingTransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The savings ledger as a balance history. Every balance change is appended as a ledger
+ * entry ("opening" on create, "adjustment" on edits), and every {@code snapshot-every}
+ * entries a snapshot of the running balance is written, so the balance at any moment is
+ * the nearest snapshot plus or minus the entries between it and that moment.
+ * <p>
+ * In event-sourced mode ({@code savings.ledger.event-sourced=true}) changes are applied to
+ * the balance derived from the ledger rather than to the stored column, which is then kept
+ * only as a projection for listings. Savings that predate the complete ledger get a
+ * baseline snapshot of their stored balance, written for all of them at the start of each
+ * reconciliation run, or on their first change if that comes sooner.
+ */
+@Service
+public class SavingLedgerService {
+
+    public static final String OPENING = "opening";
+    public static final String ADJUSTMENT = "adjustment";
+    private static final Instant LEDGER_END = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final SavingTransactionRepository transactionRepository;
+    private final SavingBalanceSnapshotRepository snapshotRepository;
+    private final DomainEventBus domainEvents;
+    private final boolean eventSourced;
+    private final int snapshotEvery;
+    private final int maxHistoryDays;
+
+    public SavingLedgerService(SavingTransactionRepository transactionRepository,
+            SavingBalanceSnapshotRepository snapshotRepository, DomainEventBus domainEvents,
+            @Value("${savings.ledger.event-sourced:false}") boolean eventSourced,
+            @Value("${savings.ledger.snapshot-every:100}") int snapshotEvery,
+            @Value("${savings.ledger.max-history-days:3660}") int maxHistoryDays) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.domainEvents = domainEvents;
+        this.eventSourced = eventSourced;
+        this.snapshotEvery = snapshotEvery;
+        this.maxHistoryDays = maxHistoryDays;
+    }
+
+    /**
+     * The balance the next change should be applied to.
+     */
+    @Transactional
+    public BigDecimal currentBalance(Saving saving) {
+        ensureBaseline(saving);
+        return eventSourced ? balanceAsOf(saving.getId(), LEDGER_END) : saving.getBalance();
+    }
+
+    /**
+     * Appends a ledger entry, writes a snapshot when enough entries have accumulated and
+     * publishes the entry's effect on the balance for the customer's net worth.
+     */
+    @Transactional
+    public void append(Saving saving, String type, BigDecimal amount, String description) {
+        SavingTransaction tr = new SavingTransaction();
+        tr.setSaving(saving);
+        tr.setType(type);
+        tr.setAmount(amount);
+        tr.setDescription(description);
+        transactionRepository.save(tr);
+        snapshotIfDue(saving);
+        domainEvents.publish(DomainEvent.SAVING_LEDGER_APPENDED, saving.getCustomer().getId(), tr.getId(), "type",
+                type, "amount", signed(type, amount), "date",
+                tr.getCreatedAt().atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    /**
+     * Balance after every ledger entry created at or before the given instant.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceAsOf(Long savingId, Instant asOf) {
+        Optional<SavingBalanceSnapshot> before = snapshotRepository
+                .findFirstBySavingIdAndAsOfLessThanEqualOrderByLastTransactionIdDesc(savingId, asOf);
+        if (before.isPresent()) {
+            SavingBalanceSnapshot snapshot = before.get();
+            LedgerTotals later = transactionRepository.totalsAfter(savingId, snapshot.getLastTransactionId(), asOf);
+            return snapshot.getBalance().add(orZero(later.total()));
+        }
+        Optional<SavingBalanceSnapshot> after = snapshotRepository
+                .findFirstBySavingIdAndAsOfGreaterThanOrderByLastTransactionIdAsc(savingId, asOf);
+        if (after.isPresent()) {
+            SavingBalanceSnapshot snapshot = after.get();
+            LedgerTotals newer = transactionRepository.totalsBetween(savingId, asOf, snapshot.getLastTransactionId());
+            return snapshot.getBalance().subtract(orZero(newer.total()));
+        }
+        return orZero(transactionRepository.totalsAfter(savingId, 0, asOf).total());
+    }
+
+    /**
+     * End-of-day balances for each day in {@code [from, to]}, read with one balance lookup
+     * and one scan of the entries inside the range.
+     *
+     * @throws IllegalArgumentException if the range is reversed or longer than max-history-days.
+     */
+    @Transactional(readOnly = true)
+    public List<BalancePoint> dailyBalances(Long savingId, LocalDate from, LocalDate to, ZoneId zone) {
+        if (from.isAfter(to))
+            throw new IllegalArgumentException("from must not be after to");
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxHistoryDays)
+            throw new IllegalArgumentException("at most " + maxHistoryDays + " days per request");
+        Instant start = from.atStartOfDay(zone).toInstant();
+        Instant end = to.plusDays(1).atStartOfDay(zone).toInstant();
+        BigDecimal balance = balanceAsOf(savingId, start.minusNanos(1));
+        List<LedgerEntry> entries = transactionRepository.findEntriesBetween(savingId, start, end);
+
+        List<BalancePoint> points = new ArrayList<>((int) days);
+        int next = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Instant dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant();
+            while (next < entries.size() && entries.get(next).createdAt().isBefore(dayEnd))
+                balance = balance.add(entries.get(next++).amount());
+            points.add(new BalancePoint(day, balance));
+        }
+        return points;
+    }
+
+    /**
+     * Writes the missing baseline snapshots for the savings in {@code [fromId, toId)} in one
+     * statement, so legacy savings the ledger does not fully explain stop showing up as
+     * reconciliation mismatches.
+     *
+     * @return the number of baselines written.
+     */
+    public int writeMissingBaselines(long fromId, long toId) {
+        return snapshotRepository.insertMissingBaselines(fromId, toId, Instant.now());
+    }
+
+    private void ensureBaseline(Saving saving) {
+        if (snapshotRepository.existsBySavingId(saving.getId())
+                || transactionRepository.existsBySavingIdAndType(saving.getId(), OPENING))
+            return;
+        // the ledger does not go back to the opening balance; trust the stored balance from here on
+        LedgerTotals existing = transactionRepository.totalsAfter(saving.getId(), 0, LEDGER_END);
+        snapshotRepository.save(new SavingBalanceSnapshot(saving,
+                existing.lastId() != null ? existing.lastId() : 0, orZero(saving.getBalance()), Instant.now()));
+    }
+
+    private void snapshotIfDue(Saving saving) {
+        Optional<SavingBalanceSnapshot> latest = snapshotRepository
+                .findFirstBySavingIdOrderByLastTransactionIdDesc(saving.getId());
+        long afterId = latest.map(SavingBalanceSnapshot::getLastTransactionId).orElse(0L);
+        LedgerTotals pending = transactionRepository.totalsAfter(saving.getId(), afterId, LEDGER_END);
+        if (pending.count() < snapshotEvery)
+            return;
+        BigDecimal base = latest.map(SavingBalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        snapshotRepository.save(new SavingBalanceSnapshot(saving, pending.lastId(), base.add(orZero(pending.total())),
+                pending.lastAt()));
+    }
+
+    private static BigDecimal signed(String type, BigDecimal amount) {
+        return "withdrawal".equals(type) || "transfer_out".equals(type) ? amount.negate() : amount;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+}
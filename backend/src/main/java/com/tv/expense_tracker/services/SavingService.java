@@ -1,35 +1,96 @@
 package com.tv.expense_tracker.services;
 
+import com.tv.expense_tracker.configs.EntityCacheConfig;
+import com.tv.expense_tracker.controllers.dtos.SavingGoalProgress;
 import com.tv.expense_tracker.controllers.dtos.SavingRequest;
 import com.tv.expense_tracker.controllers.dtos.SavingResponse;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.models.Saving;
 import com.tv.expense_tracker.repositories.SavingRepository;
-import com.tv.expense_tracker.models.SavingTransaction;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import com.tv.expense_tracker.repositories.SavingTransactionRepository;
+import com.tv.expense_tracker.controllers.dtos.SavingTransactionPage;
 import com.tv.expense_tracker.controllers.dtos.SavingTransactionResponse;
 import com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry;
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionSummary;
 import java.util.ArrayList;
 import lombok.AllArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class SavingService {
+    public static final int MAX_LEDGER_PAGE_SIZE = 200;
+    private static final Instant LEDGER_END = Instant.parse("9999-12-31T00:00:00Z");
+    public static final int CONTRIBUTION_WINDOW_DAYS = 90;
+
     private final SavingRepository savingRepository;
     private final SavingTransactionRepository transactionRepository;
-    private final Logger logger = LoggerFactory.getLogger(SavingService.class);
+    private final InterestProjectionEngine projectionEngine;
+    private final SavingLedgerService ledger;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final DomainEventBus domainEvents;
 
+    /**
+     * Lists the customer's savings. Descriptions are left out unless asked for, in which
+     * case they are read in one extra query.
+     */
     @Transactional(readOnly = true)
-    public List<SavingResponse> getSavingsForCustomer(Customer customer) {
-        List<Saving> savings = savingRepository.findByCustomer(customer);
-        return savings.stream().map(this::mapToSavingResponse).toList();
+    public List<SavingResponse> getSavingsForCustomer(Customer customer, boolean includeDescription) {
+        List<SavingResponse> savings = savingRepository.findSummariesByCustomerId(customer.getId());
+        if (includeDescription && !savings.isEmpty()) {
+            Map<Long, String> descriptions = new HashMap<>();
+            for (Object[] row : savingRepository
+                    .findDescriptionsByIdIn(savings.stream().map(SavingResponse::getId).toList()))
+                descriptions.put((Long) row[0], (String) row[1]);
+            savings.forEach(s -> s.setDescription(descriptions.get(s.getId())));
+        }
+        return savings;
+    }
+
+    /**
+     * Goal progress for every saving of the customer: percentage of the goal reached, the
+     * monthly contribution rate over the trailing {@value #CONTRIBUTION_WINDOW_DAYS} days and
+     * the month the goal is reached at that rate plus interest. Savings without a goal only
+     * carry their contributions; a projection that never reaches the goal has no date.
+     */
+    @Transactional(readOnly = true)
+    public List<SavingGoalProgress> getGoalProgressForCustomer(Customer customer) {
+        LocalDate today = LocalDate.now();
+        Instant since = Instant.now().minus(CONTRIBUTION_WINDOW_DAYS, ChronoUnit.DAYS);
+        List<SavingGoalProgress> goals = savingRepository.findGoalProgressByCustomerId(customer.getId(), since);
+        for (SavingGoalProgress g : goals) {
+            BigDecimal monthly = g.getRecentContributions().multiply(BigDecimal.valueOf(30))
+                    .divide(BigDecimal.valueOf(CONTRIBUTION_WINDOW_DAYS), 2, RoundingMode.HALF_UP);
+            g.setMonthlyContribution(monthly);
+            if (g.getGoal() == null || g.getGoal().signum() <= 0)
+                continue;
+            g.setProgressPercent(g.getBalance().multiply(BigDecimal.valueOf(100))
+                    .divide(g.getGoal(), 2, RoundingMode.HALF_UP));
+            Integer months = projectionEngine.monthsToGoal(g.getBalance(), g.getInterestRate(), monthly, g.getGoal());
+            g.setMonthsToGoal(months);
+            if (months != null)
+                g.setProjectedCompletionDate(today.plusMonths(months));
+        }
+        return goals;
+    }
+
+    public SavingResponse getSaving(Saving saving) {
+        return mapToSavingResponse(saving);
     }
 
     @Transactional
@@ -44,11 +105,14 @@ public class SavingService {
         newSaving.setDescription(req.getDescription());
 
         Saving saved = savingRepository.save(newSaving);
+        if (saved.getBalance() != null && saved.getBalance().signum() != 0)
+            ledger.append(saved, SavingLedgerService.OPENING, saved.getBalance(), null);
         return mapToSavingResponse(saved);
     }
 
     @Transactional
     public SavingResponse updateForCustomer(Saving existing, SavingRequest req) {
+        BigDecimal current = ledger.currentBalance(existing);
         existing.setName(req.getAccountName());
         existing.setAccountType(req.getAccountType());
         existing.setBalance(req.getBalance());
@@ -57,80 +121,130 @@ public class SavingService {
         existing.setDescription(req.getDescription());
 
         Saving saved = savingRepository.save(existing);
+        if (req.getBalance() != null && current != null && req.getBalance().compareTo(current) != 0)
+            ledger.append(saved, SavingLedgerService.ADJUSTMENT, req.getBalance().subtract(current), null);
+        projectionEngine.invalidate(saved.getId());
         return mapToSavingResponse(saved);
     }
 
+    /**
+     * Deletes the saving if it belongs to the customer.
+     *
+     * @return false when the saving does not exist or is owned by someone else.
+     */
+    @Transactional
+    public boolean deleteForCustomer(Long id, Customer customer) {
+        Optional<Saving> saving = savingRepository.findByIdAndCustomerId(id, customer.getId());
+        if (saving.isEmpty() || savingRepository.deleteByIdAndCustomerId(id, customer.getId()) == 0)
+            return false;
+        projectionEngine.invalidate(id);
+        // bulk deletes bypass Hibernate's entity events
+        cacheInvalidationBus.publish(EntityCacheConfig.SAVINGS, List.of(id));
+        // the saving's ledger goes with it, so net worth rebuilds its whole history rather than subtract
+        domainEvents.publish(DomainEvent.SAVING_DELETED, customer.getId(), id);
+        return true;
+    }
+
     @Transactional
     public SavingResponse depositToSaving(Saving saving, BigDecimal amount, String description) {
-        saving.setBalance(saving.getBalance().add(amount));
+        saving.setBalance(ledger.currentBalance(saving).add(amount));
         Saving saved = savingRepository.save(saving);
-        createSavingTransaction(saved, "deposit", amount, description);
+        projectionEngine.invalidate(saved.getId());
+        ledger.append(saved, "deposit", amount, description);
+        domainEvents.publish(DomainEvent.SAVING_DEPOSITED, saved.getCustomer().getId(), saved.getId(), "amount", amount,
+                "balance", saved.getBalance());
         return mapToSavingResponse(saved);
     }
 
     @Transactional
     public SavingResponse withdrawFromSaving(Saving saving, BigDecimal amount, String description) {
-        if (saving.getBalance().compareTo(amount) < 0) {
+        BigDecimal balance = ledger.currentBalance(saving);
+        if (balance.compareTo(amount) < 0) {
             throw new IllegalArgumentException("Insufficient funds");
         }
-        saving.setBalance(saving.getBalance().subtract(amount));
+        saving.setBalance(balance.subtract(amount));
         Saving saved = savingRepository.save(saving);
-        createSavingTransaction(saved, "withdrawal", amount, description);
+        projectionEngine.invalidate(saved.getId());
+        ledger.append(saved, "withdrawal", amount, description);
         return mapToSavingResponse(saved);
     }
 
+    /**
+     * One page of the saving's ledger, newest first, optionally limited to {@code [from, to)}.
+     * Descriptions are only read when asked for.
+     *
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @throws IllegalArgumentException if the cursor is malformed or limit is out of bounds.
+     */
     @Transactional(readOnly = true)
-    public List<SavingTransactionResponse> getTransactionsForSaving(Saving saving) {
-        List<SavingTransaction> transactions = transactionRepository.findBySavingOrderByCreatedAtDesc(saving);
-        return transactions.stream().map(this::mapToSavingTransactionResponse).toList();
+    public SavingTransactionPage getTransactionsForSaving(Saving saving, Instant from, Instant to, String cursor,
+            int limit, boolean includeDescription) {
+        if (limit < 1 || limit > MAX_LEDGER_PAGE_SIZE)
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LEDGER_PAGE_SIZE);
+        Instant cursorAt = LEDGER_END;
+        long cursorId = Long.MAX_VALUE;
+        if (cursor != null) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                cursorAt = Instant.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("invalid cursor", ex);
+            }
+        }
+        List<SavingTransactionResponse> items = transactionRepository.findLedgerPage(saving.getId(),
+                from != null ? from : Instant.EPOCH, to != null ? to : LEDGER_END, cursorAt, cursorId,
+                Limit.of(limit));
+        if (includeDescription && !items.isEmpty()) {
+            Map<Long, String> descriptions = new HashMap<>();
+            for (Object[] row : transactionRepository
+                    .findDescriptionsByIdIn(items.stream().map(SavingTransactionResponse::getId).toList()))
+                descriptions.put((Long) row[0], (String) row[1]);
+            items.forEach(t -> t.setDescription(descriptions.get(t.getId())));
+        }
+        String nextCursor = null;
+        if (items.size() == limit) {
+            SavingTransactionResponse last = items.get(items.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new SavingTransactionPage(items, nextCursor);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Month-by-month projection for the saving, capped and cached by the projection engine.
+     */
     public List<InterestProjectionEntry> getInterestProjection(Saving saving, int months) {
-        java.math.BigDecimal monthlyRate = java.math.BigDecimal.ZERO;
-        if (saving.getInterestRate() != null) {
-            monthlyRate = saving.getInterestRate()
-                    .divide(java.math.BigDecimal.valueOf(100), 8, java.math.RoundingMode.HALF_UP)
-                    .divide(java.math.BigDecimal.valueOf(12), 8, java.math.RoundingMode.HALF_UP);
-        }
-        java.math.BigDecimal balance = saving.getBalance() == null ? java.math.BigDecimal.ZERO : saving.getBalance();
-        List<InterestProjectionEntry> projections = new ArrayList<>();
-        java.time.LocalDate current = java.time.LocalDate.now();
-        for (int i = 0; i < months; i++) {
-            java.time.LocalDate monthDate = current.plusMonths(i + 1);
-            java.math.BigDecimal interest = balance.multiply(monthlyRate).setScale(2, java.math.RoundingMode.HALF_UP);
-            balance = balance.add(interest);
-            InterestProjectionEntry entry = new InterestProjectionEntry();
-            entry.setMonth(monthDate.getMonth().toString() + " " + monthDate.getYear());
-            entry.setInterest(interest);
-            entry.setBalance(balance);
-            projections.add(entry);
-        }
-        return projections;
+        return projectionEngine.project(saving.getId(), saving.getBalance(), saving.getInterestRate(), months);
+    }
+
+    /**
+     * Lazy, uncached projection for long horizons; entries are computed as it is consumed.
+     */
+    public Stream<InterestProjectionEntry> streamInterestProjection(Saving saving, int months) {
+        return projectionEngine.stream(saving.getBalance(), saving.getInterestRate(), months);
+    }
+
+    public InterestProjectionSummary getInterestProjectionSummary(Saving saving, int months) {
+        return projectionEngine.summarize(saving.getBalance(), saving.getInterestRate(), months);
     }
 
     @Transactional
     public void transferBetweenSavings(Saving from, Saving to, java.math.BigDecimal amount, String description) {
-        if (from.getBalance().compareTo(amount) < 0) {
+        BigDecimal fromBalance = ledger.currentBalance(from);
+        if (fromBalance.compareTo(amount) < 0) {
             throw new IllegalArgumentException("Insufficient funds for transfer");
         }
-        from.setBalance(from.getBalance().subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
+        from.setBalance(fromBalance.subtract(amount));
+        to.setBalance(ledger.currentBalance(to).add(amount));
         savingRepository.save(from);
         savingRepository.save(to);
-        createSavingTransaction(from, "transfer_out", amount, description);
-        createSavingTransaction(to, "transfer_in", amount, description);
+        projectionEngine.invalidate(from.getId());
+        projectionEngine.invalidate(to.getId());
+        ledger.append(from, "transfer_out", amount, description);
+        ledger.append(to, "transfer_in", amount, description);
     }
 
-    private void createSavingTransaction(Saving saving, String type, BigDecimal amount, String description) {
-        SavingTransaction tr = new SavingTransaction();
-        tr.setSaving(saving);
-        tr.setType(type);
-        tr.setAmount(amount);
-        tr.setDescription(description);
-        transactionRepository.save(tr);
-    }
-    
     private SavingResponse mapToSavingResponse(Saving s) {
         SavingResponse r = new SavingResponse();
         r.setId(s.getId());
@@ -139,28 +253,9 @@ public class SavingService {
         r.setBalance(s.getBalance());
         r.setInterestRate(s.getInterestRate());
         r.setGoal(s.getGoal());
-        try {
-            r.setDescription(s.getDescription());
-        } catch (Exception ex) {
-            logger.debug("Failed to read description LOB for Saving id {}: {}", s.getId(), ex.getMessage());
-            r.setDescription(null);
-        }
+        r.setDescription(s.getDescription());
         r.setCreatedAt(s.getCreatedAt());
         r.setUpdatedAt(s.getUpdatedAt());
         return r;
     }
-
-    private SavingTransactionResponse mapToSavingTransactionResponse(SavingTransaction t) {
-        SavingTransactionResponse r = new SavingTransactionResponse();
-        r.setId(t.getId());
-        r.setType(t.getType());
-        r.setAmount(t.getAmount());
-        try {
-            r.setDescription(t.getDescription());
-        } catch (Exception ex) {
-            r.setDescription(null);
-        }
-        r.setCreatedAt(t.getCreatedAt());
-        return r;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionRequest;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionRequest.Scenario;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionResult;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.SavingRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates batches of "what-if" savings scenarios (rate, monthly contribution, horizon)
+ * in parallel. Each curve is walked in long cents with the monthly rate as a fixed-point
+ * long at scale 8, which gives the same result as the BigDecimal projection (interest
+ * rounded half-up to cents each month) without allocating per month.
+ */
+@Service
+public class ScenarioProjectionService {
+
+    private static final long RATE_SCALE = 100_000_000L; // monthly rate at 8 decimal places
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal TWELVE = BigDecimal.valueOf(12);
+
+    private final SavingRepository savingRepository;
+    private final ForkJoinPool pool;
+    private final int maxMonths;
+    private final int maxBatchSize;
+
+    public ScenarioProjectionService(SavingRepository savingRepository,
+            @Value("${savings.projection.max-months:360}") int maxMonths,
+            @Value("${savings.projection.max-batch-size:200}") int maxBatchSize,
+            @Value("${savings.projection.parallelism:0}") int parallelism) {
+        this.savingRepository = savingRepository;
+        this.maxMonths = maxMonths;
+        this.maxBatchSize = maxBatchSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Projects every scenario over every requested saving of the customer.
+     *
+     * @return one result per (saving, scenario), savings in request order.
+     * @throws NoSuchElementException if a saving does not exist or is not the customer's.
+     * @throws IllegalArgumentException if the batch or a scenario is out of bounds.
+     */
+    public List<ScenarioProjectionResult> project(Customer customer, ScenarioProjectionRequest request) {
+        if (request.getSavingIds() == null || request.getSavingIds().isEmpty()
+                || request.getScenarios() == null || request.getScenarios().isEmpty())
+            throw new IllegalArgumentException("savingIds and scenarios are required");
+        Set<Long> ids = new LinkedHashSet<>(request.getSavingIds());
+        if ((long) ids.size() * request.getScenarios().size() > maxBatchSize)
+            throw new IllegalArgumentException("at most " + maxBatchSize + " projections per request");
+        request.getScenarios().forEach(this::validate);
+
+        Map<Long, Saving> savings = savingRepository.findByIdInAndCustomerId(ids, customer.getId()).stream()
+                .collect(Collectors.toMap(Saving::getId, Function.identity()));
+        if (savings.size() != ids.size())
+            throw new NoSuchElementException("saving not found");
+
+        List<Callable<ScenarioProjectionResult>> tasks = new ArrayList<>();
+        for (Long id : ids) {
+            Saving saving = savings.get(id);
+            for (Scenario scenario : request.getScenarios()) {
+                tasks.add(() -> evaluate(saving, scenario));
+            }
+        }
+        try {
+            List<ScenarioProjectionResult> results = new ArrayList<>(tasks.size());
+            for (Future<ScenarioProjectionResult> task : pool.invokeAll(tasks))
+                results.add(task.get());
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("projection interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void validate(Scenario scenario) {
+        if (scenario.getMonths() < 1 || scenario.getMonths() > maxMonths)
+            throw new IllegalArgumentException("months must be between 1 and " + maxMonths);
+        if (scenario.getInterestRate() != null && scenario.getInterestRate().signum() < 0)
+            throw new IllegalArgumentException("interestRate must not be negative");
+        if (scenario.getMonthlyContribution() != null && scenario.getMonthlyContribution().signum() < 0)
+            throw new IllegalArgumentException("monthlyContribution must not be negative");
+    }
+
+    static ScenarioProjectionResult evaluate(Saving saving, Scenario scenario) {
+        BigDecimal rate = scenario.getInterestRate() != null ? scenario.getInterestRate()
+                : saving.getInterestRate() != null ? saving.getInterestRate() : BigDecimal.ZERO;
+        BigDecimal contribution = scenario.getMonthlyContribution() != null ? scenario.getMonthlyContribution()
+                : BigDecimal.ZERO;
+        BigDecimal balance = saving.getBalance() != null ? saving.getBalance() : BigDecimal.ZERO;
+
+        long[] curve = new long[scenario.getMonths()];
+        long startCents;
+        long contributionCents;
+        long contributedCents;
+        long cents;
+        try {
+            long rateE8 = rate.divide(HUNDRED, 8, RoundingMode.HALF_UP).divide(TWELVE, 8, RoundingMode.HALF_UP)
+                    .movePointRight(8).longValueExact();
+            contributionCents = toCents(contribution);
+            startCents = toCents(balance);
+            cents = startCents;
+            for (int i = 0; i < curve.length; i++) {
+                long interest = roundHalfUp(Math.multiplyExact(cents, rateE8));
+                cents = Math.addExact(Math.addExact(cents, interest), contributionCents);
+                curve[i] = cents;
+            }
+            contributedCents = Math.multiplyExact(contributionCents, curve.length);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("projection exceeds supported range", ex);
+        }
+
+        ScenarioProjectionResult r = new ScenarioProjectionResult();
+        r.setSavingId(saving.getId());
+        r.setScenario(scenario.getName());
+        r.setInterestRate(rate);
+        r.setMonthlyContribution(contribution);
+        r.setMonths(curve.length);
+        r.setFinalBalance(fromCents(cents));
+        r.setTotalContributions(fromCents(contributedCents));
+        r.setTotalInterest(fromCents(cents - startCents - contributedCents));
+        List<BigDecimal> balances = new ArrayList<>(curve.length);
+        for (long c : curve)
+            balances.add(fromCents(c));
+        r.setBalances(balances);
+        return r;
+    }
+
+    /**
+     * Rounds a cents x 10^8 product to cents, half away from zero like RoundingMode.HALF_UP.
+     */
+    private static long roundHalfUp(long scaled) {
+        long half = RATE_SCALE / 2;
+        return scaled >= 0 ? (scaled + half) / RATE_SCALE : -((-scaled + half) / RATE_SCALE);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,244 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.ShardContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Where each customer's data lives when {@code sharding.enabled=true}. Shard 0 is the
+ * home database from {@code spring.datasource}; {@code sharding.shard-urls} adds the
+ * others. A customer is placed by hashing their id the first time they are routed, and
+ * the placement is recorded in the shard_directory table so adding shards or moving
+ * customers never relocates anyone implicitly. Data shards hold a copy of the customer
+ * row so their foreign keys resolve.
+ * <p>
+ * Assignments are cached and refreshed every {@code directory-refresh-ms}, so a move
+ * waits {@link #propagationDelayMs()} at each step for every node to see it. Without
+ * sharding there is a single shard and {@link #forEachShard} runs its action once.
+ */
+@Service
+public class ShardDirectory {
+
+    private record Assignment(int shard, boolean moving) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int shardCount;
+    private final long refreshMs;
+    private final Map<Long, Assignment> assignments = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> writesInFlight = new ConcurrentHashMap<>();
+    private volatile Instant refreshedAt = Instant.now();
+
+    public ShardDirectory(JdbcTemplate jdbcTemplate,
+            @Value("${sharding.enabled:false}") boolean enabled,
+            @Value("${sharding.shard-urls:}") String[] shardUrls,
+            @Value("${sharding.directory-refresh-ms:5000}") long refreshMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        int shards = 1;
+        for (String url : shardUrls)
+            if (!url.isBlank())
+                shards++;
+        this.shardCount = enabled ? shards : 1;
+        this.refreshMs = refreshMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * How long a directory change takes to reach every node.
+     */
+    public long propagationDelayMs() {
+        return enabled ? refreshMs * 2 : 0;
+    }
+
+    /**
+     * Runs the action once per shard with the shard selected.
+     */
+    public void forEachShard(IntConsumer action) {
+        if (!enabled) {
+            action.accept(ShardContext.HOME);
+            return;
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            ShardContext.runOn(shard, () -> action.accept(current));
+        }
+    }
+
+    /**
+     * @return the id of the customer with this email, or null if there is none.
+     */
+    public Long customerIdFor(String email) {
+        List<Long> ids = ShardContext.callOn(ShardContext.HOME,
+                () -> jdbcTemplate.queryForList("select id from customers where email = ?", Long.class, email));
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public int shardFor(Long customerId) {
+        return enabled ? assignment(customerId).shard() : ShardContext.HOME;
+    }
+
+    public boolean isMoving(Long customerId) {
+        return enabled && assignment(customerId).moving();
+    }
+
+    /**
+     * Registers a write request of the customer on this node.
+     *
+     * @return false, with nothing registered, if the customer is being moved.
+     */
+    public boolean beginWrite(Long customerId) {
+        if (!enabled)
+            return true;
+        writesInFlight.merge(customerId, 1, Integer::sum);
+        // checked after registering, so a move either sees this write or refuses it
+        if (!isMoving(customerId))
+            return true;
+        endWrite(customerId);
+        return false;
+    }
+
+    public void endWrite(Long customerId) {
+        if (enabled)
+            writesInFlight.computeIfPresent(customerId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Waits for the customer's write requests on this node to finish.
+     *
+     * @return false if some were still running after the timeout.
+     */
+    public boolean awaitWritesDrained(Long customerId, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (writesInFlight.containsKey(customerId)) {
+            if (System.currentTimeMillis() >= deadline)
+                return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Customers assigned to each shard.
+     */
+    public Map<Integer, Long> customersPerShard() {
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        for (int shard = 0; shard < shardCount; shard++)
+            counts.put(shard, 0L);
+        if (enabled)
+            ShardContext.runOn(ShardContext.HOME, () -> jdbcTemplate.query(
+                    "select shard, count(*) from shard_directory group by shard",
+                    rs -> {
+                        counts.put(rs.getInt(1), rs.getLong(2));
+                    }));
+        return counts;
+    }
+
+    /**
+     * Freezes the customer's writes ahead of a move.
+     */
+    public void beginMove(Long customerId) {
+        int shard = shardFor(customerId);
+        update(customerId, shard, true);
+    }
+
+    /**
+     * Points the customer at a shard and lifts the write freeze.
+     */
+    public void completeMove(Long customerId, int shard) {
+        update(customerId, shard, false);
+    }
+
+    /**
+     * Makes sure the shard has the customer row its foreign keys point at.
+     */
+    public void ensureCustomerCopy(Long customerId, int shard) {
+        if (shard == ShardContext.HOME)
+            return;
+        Map<String, Object> customer = ShardContext.callOn(ShardContext.HOME,
+                () -> jdbcTemplate.queryForMap("select * from customers where id = ?", customerId));
+        ShardContext.runOn(shard, () -> {
+            Integer present = jdbcTemplate.queryForObject("select count(*) from customers where id = ?",
+                    Integer.class, customerId);
+            if (present == null || present == 0)
+                new SimpleJdbcInsert(jdbcTemplate).withTableName("customers").execute(customer);
+        });
+    }
+
+    /**
+     * Picks up assignments changed on other nodes; {@link com.tv.expense_tracker.configs.ShardingConfig}
+     * schedules it when sharding is enabled.
+     */
+    public void refresh() {
+        if (!enabled)
+            return;
+        Instant since = refreshedAt.minusMillis(refreshMs);
+        refreshedAt = Instant.now();
+        ShardContext.runOn(ShardContext.HOME, () -> jdbcTemplate.query(
+                "select customer_id, shard, moving from shard_directory where updated_at >= ?",
+                rs -> {
+                    assignments.put(rs.getLong(1), new Assignment(rs.getInt(2), rs.getBoolean(3)));
+                }, Timestamp.from(since)));
+    }
+
+    static int placement(long customerId, int shards) {
+        long h = customerId * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) Math.floorMod(h, (long) shards);
+    }
+
+    private Assignment assignment(Long customerId) {
+        Assignment cached = assignments.get(customerId);
+        if (cached != null)
+            return cached;
+        Assignment stored = load(customerId);
+        if (stored == null) {
+            int shard = placement(customerId, shardCount);
+            ensureCustomerCopy(customerId, shard);
+            try {
+                ShardContext.runOn(ShardContext.HOME, () -> jdbcTemplate.update(
+                        "insert into shard_directory (customer_id, shard, moving, updated_at) values (?, ?, ?, ?)",
+                        customerId, shard, false, Timestamp.from(Instant.now())));
+                stored = new Assignment(shard, false);
+            } catch (DuplicateKeyException ex) {
+                // placed concurrently by another request or node
+                stored = load(customerId);
+            }
+        }
+        assignments.put(customerId, stored);
+        return stored;
+    }
+
+    private Assignment load(Long customerId) {
+        List<Assignment> rows = ShardContext.callOn(ShardContext.HOME, () -> jdbcTemplate.query(
+                "select shard, moving from shard_directory where customer_id = ?",
+                (rs, i) -> new Assignment(rs.getInt(1), rs.getBoolean(2)), customerId));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void update(Long customerId, int shard, boolean moving) {
+        ShardContext.runOn(ShardContext.HOME, () -> jdbcTemplate.update(
+                "update shard_directory set shard = ?, moving = ?, updated_at = ? where customer_id = ?",
+                shard, moving, Timestamp.from(Instant.now()), customerId));
+        assignments.put(customerId, new Assignment(shard, moving));
+    }
+}
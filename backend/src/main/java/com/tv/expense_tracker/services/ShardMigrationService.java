@@ -0,0 +1,269 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.configs.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves a customer's rows from their shard to another while the rest of the system keeps
+ * serving. The move freezes only that customer's writes:
+ * <ol>
+ * <li>mark the customer as moving and wait until every node has seen it, then for the
+ * writes this node let in before that to finish and for any net-worth update or back-fill
+ * still holding the customer's net_worth_customers row on the source, then for every event
+ * consumer to have handled the customer's events there, since they act on the source's
+ * rows;</li>
+ * <li>copy each table in id order, {@code move-batch-size} rows per target transaction,
+ * remapping saving and ledger ids to the ids the target assigns;</li>
+ * <li>point the directory at the target, lift the freeze and wait again;</li>
+ * <li>delete the rows from the old shard in batches.</li>
+ * </ol>
+ * A failure while copying removes the partial copy and leaves the customer where they were.
+ * Run moves outside the interest accrual window; an accrual on the old shard after its
+ * rows were copied would be lost.
+ */
+@Service
+public class ShardMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    private static final String BY_CUSTOMER = "customer_id = ?";
+    private static final String BY_SAVING = "saving_id in (select id from savings where customer_id = ?)";
+    private static final String BY_BUDGET = "budget_id in (select id from budgets where customer_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory directory;
+    private final DataVersionTracker dataVersions;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter rowsCopied;
+    private final int batchSize;
+    private final long drainTimeoutMs;
+
+    public ShardMigrationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ShardDirectory directory, DataVersionTracker dataVersions, MeterRegistry meterRegistry,
+            @Value("${sharding.move-batch-size:500}") int batchSize,
+            @Value("${sharding.move-drain-timeout-ms:30000}") long drainTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = directory;
+        this.dataVersions = dataVersions;
+        this.completed = meterRegistry.counter("sharding.moves", "result", "completed");
+        this.failed = meterRegistry.counter("sharding.moves", "result", "failed");
+        this.rowsCopied = meterRegistry.counter("sharding.rows.copied");
+        this.batchSize = batchSize;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    /**
+     * Moves the customer to the target shard.
+     *
+     * @return rows copied per table; empty if the customer already lives there.
+     * @throws IllegalStateException if sharding is disabled.
+     * @throws IllegalArgumentException if the customer or the shard does not exist.
+     */
+    public Map<String, Long> moveCustomer(Long customerId, int target) {
+        if (!directory.isEnabled())
+            throw new IllegalStateException("sharding is not enabled");
+        if (target < 0 || target >= directory.getShardCount())
+            throw new IllegalArgumentException("no shard " + target);
+        List<String> emails = ShardContext.callOn(ShardContext.HOME, () -> jdbcTemplate.queryForList(
+                "select email from customers where id = ?", String.class, customerId));
+        if (emails.isEmpty())
+            throw new IllegalArgumentException("no customer " + customerId);
+        String email = emails.get(0);
+        int source = directory.shardFor(customerId);
+        if (source == target)
+            return Map.of();
+
+        long start = System.nanoTime();
+        directory.beginMove(customerId);
+        Map<String, Long> copied = new LinkedHashMap<>();
+        try {
+            awaitPropagation();
+            awaitWritesDrained(customerId, source);
+            awaitEventsHandled(customerId, source);
+            directory.ensureCustomerCopy(customerId, target);
+            Map<String, Map<Long, Long>> remap = new HashMap<>();
+            copied.put("transactions", copy("transactions", BY_CUSTOMER, customerId, source, target, remap, null));
+            copied.put("bills", copy("bills", BY_CUSTOMER, customerId, source, target, remap, null));
+            copied.put("budgets", copy("budgets", BY_CUSTOMER, customerId, source, target, remap, "budget_id"));
+            // alerts of deleted budgets stay on the source: their budget ids could clash with
+            // the target's and are not deleted there either
+            copied.put("budget_alerts", copy("budget_alerts", BY_BUDGET, customerId, source, target, remap, null));
+            copied.put("savings", copy("savings", BY_CUSTOMER, customerId, source, target, remap, "saving_id"));
+            copied.put("saving_transactions",
+                    copy("saving_transactions", BY_SAVING, customerId, source, target, remap, "last_transaction_id"));
+            copied.put("saving_balance_snapshots",
+                    copy("saving_balance_snapshots", BY_SAVING, customerId, source, target, remap, null));
+            copied.put("net_worth_daily", copy("net_worth_daily", BY_CUSTOMER, customerId, source, target, remap,
+                    null));
+            copied.put("net_worth_customers", copyNetWorthTracking(customerId, source, target));
+            copied.put("idempotency_keys", copy("idempotency_keys", "principal = ?", email, source, target, remap,
+                    null));
+        } catch (RuntimeException ex) {
+            failed.increment();
+            ShardContext.runOn(target, () -> deleteRows(customerId, email, target));
+            directory.completeMove(customerId, source);
+            throw ex;
+        }
+
+        directory.completeMove(customerId, target);
+        dataVersions.bump(customerId);
+        awaitPropagation();
+        ShardContext.runOn(source, () -> deleteRows(customerId, email, source));
+        completed.increment();
+        logger.info("Shard move customer={} from={} to={} rows={} elapsedMs={}", customerId, source, target, copied,
+                (System.nanoTime() - start) / 1_000_000);
+        return copied;
+    }
+
+    /**
+     * Copies the rows matching {@code where} in id order, one target transaction per batch.
+     * Foreign-key columns found in {@code remap} get the target's ids; with {@code keyColumn}
+     * the new ids are recorded under that column name for tables copied later.
+     */
+    private long copy(String table, String where, Object param, int source, int target,
+            Map<String, Map<Long, Long>> remap, String keyColumn) {
+        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate).withTableName(table)
+                .usingGeneratedKeyColumns("id");
+        ShardContext.runOn(target, insert::compile);
+        Map<Long, Long> keys = keyColumn != null ? remap.computeIfAbsent(keyColumn, k -> new HashMap<>()) : null;
+        long total = 0;
+        long after = 0;
+        while (true) {
+            long from = after;
+            List<Map<String, Object>> rows = ShardContext.callOn(source, () -> jdbcTemplate.queryForList(
+                    "select * from " + table + " where " + where + " and id > ? order by id limit ?",
+                    param, from, batchSize));
+            if (rows.isEmpty())
+                return total;
+            for (Map<String, Object> row : rows)
+                for (Map.Entry<String, Map<Long, Long>> mapping : remap.entrySet())
+                    remapColumn(table, row, mapping.getKey(), mapping.getValue());
+            ShardContext.runOn(target, () -> transactionTemplate.executeWithoutResult(status -> {
+                if (keys == null) {
+                    insert.executeBatch(rows.toArray(new Map[0]));
+                    return;
+                }
+                for (Map<String, Object> row : rows)
+                    keys.put(((Number) row.get("id")).longValue(), insert.executeAndReturnKey(row).longValue());
+            }));
+            total += rows.size();
+            rowsCopied.increment(rows.size());
+            after = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+    }
+
+    /**
+     * Copies the customer's net_worth_customers row, which is keyed by the customer id
+     * rather than by an id of its own.
+     */
+    private long copyNetWorthTracking(Long customerId, int source, int target) {
+        List<Map<String, Object>> rows = ShardContext.callOn(source, () -> jdbcTemplate.queryForList(
+                "select customer_id, rebuilt_at from net_worth_customers where customer_id = ?", customerId));
+        for (Map<String, Object> row : rows)
+            ShardContext.runOn(target, () -> jdbcTemplate.update(
+                    "insert into net_worth_customers (customer_id, rebuilt_at) values (?, ?)", customerId,
+                    row.get("rebuilt_at")));
+        rowsCopied.increment(rows.size());
+        return rows.size();
+    }
+
+    private static void remapColumn(String table, Map<String, Object> row, String column, Map<Long, Long> ids) {
+        if (!row.containsKey(column) || row.get(column) == null)
+            return;
+        long old = ((Number) row.get(column)).longValue();
+        if (old == 0)
+            return;
+        Long mapped = ids.get(old);
+        if (mapped == null)
+            throw new IllegalStateException(table + "." + column + " refers to " + old + ", which was not copied");
+        row.put(column, mapped);
+    }
+
+    private void deleteRows(Long customerId, String email, int shard) {
+        deleteInBatches("saving_balance_snapshots", BY_SAVING, customerId);
+        deleteInBatches("saving_transactions", BY_SAVING, customerId);
+        deleteInBatches("savings", BY_CUSTOMER, customerId);
+        deleteInBatches("transactions", BY_CUSTOMER, customerId);
+        deleteInBatches("bills", BY_CUSTOMER, customerId);
+        deleteInBatches("budget_alerts", BY_BUDGET, customerId);
+        deleteInBatches("budgets", BY_CUSTOMER, customerId);
+        deleteInBatches("net_worth_daily", BY_CUSTOMER, customerId);
+        jdbcTemplate.update("delete from net_worth_customers where customer_id = ?", customerId);
+        jdbcTemplate.update("delete from net_worth_events where customer_id = ?", customerId);
+        deleteInBatches("idempotency_keys", "principal = ?", email);
+        if (shard != ShardContext.HOME)
+            jdbcTemplate.update("delete from customers where id = ?", customerId);
+    }
+
+    private void deleteInBatches(String table, String where, Object param) {
+        while (jdbcTemplate.update("delete from " + table + " where id in (select id from " + table + " where "
+                + where + " order by id limit ?)", param, batchSize) > 0) {
+        }
+    }
+
+    /**
+     * Writes that passed the filter before the freeze would otherwise commit to the source
+     * after their table was copied and be deleted with it.
+     */
+    private void awaitWritesDrained(Long customerId, int source) {
+        try {
+            if (!directory.awaitWritesDrained(customerId, drainTimeoutMs))
+                throw new IllegalStateException("writes of customer " + customerId + " still running after "
+                        + drainTimeoutMs + "ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("shard move interrupted", ex);
+        }
+        ShardContext.runOn(source, () -> transactionTemplate.executeWithoutResult(status -> jdbcTemplate
+                .queryForList("select customer_id from net_worth_customers where customer_id = ? for update",
+                        Long.class, customerId)));
+    }
+
+    /**
+     * Waits until every consumer's stored offset on the source covers the customer's newest
+     * event there; consumers store it only after handling everything below it.
+     */
+    private void awaitEventsHandled(Long customerId, int source) {
+        long newest = ShardContext.callOn(source, () -> jdbcTemplate.queryForObject(
+                "select coalesce(max(id), 0) from outbox_events where customer_id = ?", Long.class, customerId));
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        while (ShardContext.callOn(source, () -> jdbcTemplate.queryForObject(
+                "select count(*) from outbox_offsets where last_event_id < ?", Long.class, newest)) > 0) {
+            if (System.currentTimeMillis() >= deadline)
+                throw new IllegalStateException("events of customer " + customerId + " still unhandled after "
+                        + drainTimeoutMs + "ms");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("shard move interrupted", ex);
+            }
+        }
+    }
+
+    private void awaitPropagation() {
+        try {
+            Thread.sleep(directory.propagationDelayMs());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("shard move interrupted", ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tv.expense_tracker.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical computations: the first caller for a key runs the
+ * computation on its own thread, callers arriving while it is in flight wait for and
+ * share its result. Nothing is cached once the computation completes, so keys must
+ * include whatever version makes a result stale (e.g. a customer data version).
+ */
+@Component
+public class SingleFlight {
+
+    public static final String METRIC_NAME = "singleflight.calls";
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("singleflight.inflight", inFlight, ConcurrentMap::size);
+    }
+
+    /**
+     * Runs {@code computation} unless an identical one (same name and key) is already
+     * running, in which case its result is returned instead.
+     *
+     * @param name computation name, used as metric tag
+     * @param key identity of the computation inputs, must implement equals/hashCode
+     * @return the computed or shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> computation) {
+        Key flightKey = new Key(name, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        if (existing != null) {
+            counter(name, "coalesced").increment();
+            return (T) join(existing);
+        }
+        counter(name, "leader").increment();
+        try {
+            T result = computation.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (ex.getCause() instanceof Error cause)
+                throw cause;
+            throw ex;
+        }
+    }
+
+    private Counter counter(String name, String outcome) {
+        return Counter.builder(METRIC_NAME)
+                .description("Computations run (leader) or shared with an in-flight call (coalesced)")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Key(String name, Object key) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.AuthResponse;
+import com.tv.expense_tracker.exceptions.InvalidRefreshTokenException;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.RefreshToken;
+import com.tv.expense_tracker.models.RevokedToken;
+import com.tv.expense_tracker.repositories.RefreshTokenRepository;
+import com.tv.expense_tracker.repositories.RevokedTokenRepository;
+import com.tv.expense_tracker.securities.JwtUtil;
+import com.tv.expense_tracker.securities.RevokedTokenIndex;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues short-lived access tokens together with rotating refresh tokens, and revokes
+ * them. Revoked access-token ids are written to the revoked_tokens table and to the
+ * in-memory {@link RevokedTokenIndex} that request authentication checks; the index is
+ * loaded from the table on startup and every {@code jwt.revocation-refresh-ms}, so a
+ * logout on one node reaches the others within that interval.
+ */
+@Service
+public class TokenService {
+
+    private final JwtUtil jwtUtil;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenIndex revokedTokens;
+    private final Duration refreshTokenLifetime;
+    private final SecureRandom random = new SecureRandom();
+
+    public TokenService(JwtUtil jwtUtil, RefreshTokenRepository refreshTokenRepository,
+            RevokedTokenRepository revokedTokenRepository, RevokedTokenIndex revokedTokens,
+            @Value("${jwt.refresh-token-days:30}") long refreshTokenDays) {
+        this.jwtUtil = jwtUtil;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.revokedTokens = revokedTokens;
+        this.refreshTokenLifetime = Duration.ofDays(refreshTokenDays);
+    }
+
+    /**
+     * Adds revocations written by any node. Only unexpired rows are read, and access tokens
+     * are short-lived, so the table stays small enough to re-read whole. Polled by
+     * {@link com.tv.expense_tracker.configs.RevocationRefreshConfig}.
+     */
+    public void loadRevocations() {
+        for (RevokedToken revoked : revokedTokenRepository.findByExpiresAtAfter(Instant.now()))
+            revokedTokens.revoke(revoked.getTokenId(), revoked.getExpiresAt().getEpochSecond());
+    }
+
+    /**
+     * Starts a new refresh-token family for the customer, as on login or signup.
+     */
+    @Transactional
+    public AuthResponse issue(Customer customer) {
+        return issue(customer, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token of its
+     * family. A token that was already used or revoked revokes the whole family, since
+     * either the client or an attacker holds a stolen copy.
+     *
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, used or revoked.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public AuthResponse refresh(String rawToken) {
+        if (rawToken == null || rawToken.isBlank())
+            throw new InvalidRefreshTokenException("Refresh token is required");
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        Instant now = Instant.now();
+        if (current.getUsedAt() != null || current.getRevokedAt() != null) {
+            revokeAll(refreshTokenRepository.findByFamilyIdAndRevokedAtIsNull(current.getFamilyId()), now);
+            throw new InvalidRefreshTokenException("Refresh token was already used");
+        }
+        if (current.getExpiresAt().isBefore(now))
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        current.setUsedAt(now);
+        return issue(current.getCustomer(), current.getFamilyId());
+    }
+
+    /**
+     * Revokes the presented access token and the refresh-token family, or with
+     * {@code everywhere} every family of the token's owner. Unknown or invalid tokens are
+     * ignored so logout always succeeds.
+     */
+    @Transactional
+    public void logout(String accessToken, String rawRefreshToken, boolean everywhere) {
+        Instant now = Instant.now();
+        Claims claims = null;
+        if (accessToken != null) {
+            try {
+                claims = jwtUtil.parse(accessToken);
+            } catch (JwtException | IllegalArgumentException ex) {
+                claims = null;
+            }
+        }
+        if (claims != null && claims.getId() != null)
+            revokeAccessToken(claims.getId(), claims.getExpiration().toInstant());
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank())
+            refreshTokenRepository.findByTokenHashForUpdate(hash(rawRefreshToken)).ifPresent(token -> {
+                if (everywhere)
+                    revokeAllForCustomer(token.getCustomer().getId());
+                else
+                    revokeAll(refreshTokenRepository.findByFamilyIdAndRevokedAtIsNull(token.getFamilyId()), now);
+            });
+    }
+
+    /**
+     * Revokes every refresh token of the customer and the access tokens issued with them;
+     * call when the password changes.
+     */
+    @Transactional
+    public void revokeAllForCustomer(Long customerId) {
+        revokeAll(refreshTokenRepository.findByCustomerIdAndRevokedAtIsNull(customerId), Instant.now());
+    }
+
+    /**
+     * Deletes revocations and refresh tokens past their expiry.
+     */
+    @Scheduled(fixedDelayString = "${jwt.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteByExpiresAtBefore(now);
+        refreshTokenRepository.deleteByExpiresAtBefore(now);
+        revokedTokens.purgeExpired(now.getEpochSecond());
+    }
+
+    private AuthResponse issue(Customer customer, String familyId) {
+        JwtUtil.AccessToken access = jwtUtil.issueAccessToken(customer.getEmail());
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawRefresh = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refresh = new RefreshToken();
+        refresh.setCustomer(customer);
+        refresh.setTokenHash(hash(rawRefresh));
+        refresh.setFamilyId(familyId);
+        refresh.setAccessTokenId(access.tokenId());
+        refresh.setAccessExpiresAt(access.expiresAt());
+        refresh.setExpiresAt(Instant.now().plus(refreshTokenLifetime));
+        refreshTokenRepository.save(refresh);
+        return new AuthResponse(access.token(), rawRefresh, jwtUtil.getAccessTokenLifetime().toSeconds());
+    }
+
+    private void revokeAll(List<RefreshToken> tokens, Instant now) {
+        for (RefreshToken token : tokens) {
+            token.setRevokedAt(now);
+            if (token.getAccessExpiresAt().isAfter(now))
+                revokeAccessToken(token.getAccessTokenId(), token.getAccessExpiresAt());
+        }
+    }
+
+    private void revokeAccessToken(String tokenId, Instant expiresAt) {
+        if (!revokedTokenRepository.existsById(tokenId))
+            revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        revokedTokens.revoke(tokenId, expiresAt.getEpochSecond());
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -17,6 +17,8 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final CustomerRepository customerRepository;
+    private final DataVersionTracker dataVersions;
+    private final DomainEventBus domainEvents;
 
     /**
      * Creates a new transaction and associates it with the authenticated user.
@@ -30,7 +32,11 @@ public class TransactionService {
         Customer customer = customerRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userEmail));
         transaction.setCustomer(customer);
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        dataVersions.bump(customer.getId());
+        domainEvents.publish(DomainEvent.TRANSACTION_CREATED, customer.getId(), saved.getId(), "type", saved.getType(),
+                "category", saved.getCategory(), "amount", saved.getAmount(), "date", saved.getDate());
+        return saved;
     }
 
     /**
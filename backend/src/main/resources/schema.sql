@@ -73,3 +73,156 @@ CREATE TABLE IF NOT EXISTS saving_transactions (
     created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     FOREIGN KEY (saving_id) REFERENCES savings(id) ON DELETE CASCADE
 );
+
+CREATE INDEX IF NOT EXISTS idx_saving_transactions_ledger
+    ON saving_transactions (saving_id, created_at DESC, id DESC);
+
+-- Create interest_accrual_checkpoints table (if not exists)
+CREATE TABLE IF NOT EXISTS interest_accrual_checkpoints (
+    accrual_date DATE PRIMARY KEY,
+    last_saving_id BIGINT NOT NULL DEFAULT 0,
+    accounts_accrued BIGINT NOT NULL DEFAULT 0,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Create idempotency_keys table (if not exists)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    principal VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_idempotency_keys_principal_key UNIQUE (principal, idempotency_key)
+);
+
+-- Create saving_balance_snapshots table (if not exists)
+CREATE TABLE IF NOT EXISTS saving_balance_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    saving_id BIGINT NOT NULL,
+    last_transaction_id BIGINT NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL,
+    as_of TIMESTAMPTZ NOT NULL,
+    FOREIGN KEY (saving_id) REFERENCES savings(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_saving_balance_snapshots_as_of
+    ON saving_balance_snapshots (saving_id, as_of);
+
+-- Create reconciliation tables (if not exists)
+CREATE TABLE IF NOT EXISTS reconciliation_runs (
+    id BIGSERIAL PRIMARY KEY,
+    started_at TIMESTAMPTZ NOT NULL,
+    finished_at TIMESTAMPTZ,
+    shards INTEGER NOT NULL DEFAULT 0,
+    accounts_checked BIGINT NOT NULL DEFAULT 0,
+    mismatches BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS reconciliation_mismatches (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    saving_id BIGINT NOT NULL,
+    stored_balance NUMERIC(19, 2) NOT NULL,
+    ledger_balance NUMERIC(19, 2) NOT NULL,
+    detected_at TIMESTAMPTZ NOT NULL,
+    FOREIGN KEY (run_id) REFERENCES reconciliation_runs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_reconciliation_mismatches_run
+    ON reconciliation_mismatches (run_id, saving_id);
+
+-- Create net worth daily series table (if not exists)
+CREATE TABLE IF NOT EXISTS net_worth_daily (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    balance_date DATE NOT NULL,
+    savings_total NUMERIC(19, 2) NOT NULL,
+    cash_total NUMERIC(19, 2) NOT NULL,
+    CONSTRAINT uk_net_worth_daily_customer_day UNIQUE (customer_id, balance_date)
+);
+
+CREATE TABLE IF NOT EXISTS net_worth_customers (
+    customer_id BIGINT PRIMARY KEY,
+    rebuilt_at TIMESTAMPTZ
+);
+
+CREATE TABLE IF NOT EXISTS net_worth_events (
+    event_id BIGINT PRIMARY KEY,
+    customer_id BIGINT NOT NULL
+);
+
+-- Create refresh token and revocation tables (if not exists)
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    family_id VARCHAR(36) NOT NULL,
+    access_token_id VARCHAR(36) NOT NULL,
+    access_expires_at TIMESTAMPTZ NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    used_at TIMESTAMPTZ,
+    revoked_at TIMESTAMPTZ,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_customer ON refresh_tokens (customer_id);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id VARCHAR(36) PRIMARY KEY,
+    expires_at TIMESTAMPTZ NOT NULL
+);
+
+-- Create shard directory table (if not exists); lives on the home shard
+CREATE TABLE IF NOT EXISTS shard_directory (
+    customer_id BIGINT PRIMARY KEY,
+    shard INTEGER NOT NULL,
+    moving BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_shard_directory_updated_at
+    ON shard_directory (updated_at);
+
+-- Create transactional outbox tables (if not exists); events live on the customer's shard
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(64) NOT NULL,
+    customer_id BIGINT,
+    aggregate_id BIGINT,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS outbox_offsets (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS outbox_leases (
+    name VARCHAR(64) PRIMARY KEY,
+    owner VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL
+);
+
+-- Create budget alerts table (if not exists)
+CREATE TABLE IF NOT EXISTS budget_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    budget_id BIGINT NOT NULL,
+    category VARCHAR(255),
+    period VARCHAR(255) NOT NULL,
+    period_start DATE NOT NULL,
+    threshold INTEGER NOT NULL,
+    spent NUMERIC(19, 2) NOT NULL,
+    budget_limit NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    CONSTRAINT uk_budget_alerts_budget_period_threshold UNIQUE (budget_id, period_start, threshold)
+);
+
+CREATE INDEX IF NOT EXISTS idx_budget_alerts_customer ON budget_alerts (customer_id, id);
@@ -23,6 +23,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 class ExpenseTrackerApplicationTests {
 
+	@Autowired
+	private TestDatabase testDatabase;
+
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -55,12 +58,7 @@ class ExpenseTrackerApplicationTests {
 
 	@BeforeEach
 	public void setup() {
-		savingTransactionRepository.deleteAll();
-		savingRepository.deleteAll();
-		billRepository.deleteAll();
-		budgetRepository.deleteAll();
-		transactionRepository.deleteAll();
-		customerRepository.deleteAll();
+		testDatabase.clear();
 	}
 
 	@Test
@@ -0,0 +1,36 @@
+package com.tv.expense_tracker;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Empties every table tests write to, children before parents, and evicts the entity
+ * cache the deletes bypass. New tables go in {@link #TABLES} so every test class starts
+ * from the same state. The outbox tables are left alone: a running event bus tracks its
+ * position in them. With sharding, call it once per shard.
+ */
+@Component
+public class TestDatabase {
+
+    private static final List<String> TABLES = List.of("saving_balance_snapshots", "saving_transactions",
+            "interest_accrual_checkpoints", "savings", "transactions", "bills", "budget_alerts", "budgets",
+            "net_worth_daily", "net_worth_customers", "net_worth_events", "idempotency_keys", "refresh_tokens",
+            "revoked_tokens", "reconciliation_mismatches", "reconciliation_runs", "shard_directory", "customers");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TestDatabase(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void clear() {
+        for (String table : TABLES)
+            jdbcTemplate.update("delete from " + table);
+        entityManagerFactory.getCache().evictAll();
+    }
+}
@@ -0,0 +1,89 @@
+package com.tv.expense_tracker.configs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    public void testLimitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50);
+        for (int i = 0; i < 50; i++)
+            limiter.onSample(MILLI, limiter.getLimit());
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit should grow, was " + grown);
+
+        for (int i = 0; i < 50; i++)
+            limiter.onSample(20 * MILLI, limiter.getLimit());
+        assertTrue(limiter.getLimit() < grown, "limit should shrink, was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    public void testSamplesBelowHalfTheLimitDoNotMoveIt() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50);
+        for (int i = 0; i < 50; i++)
+            limiter.onSample(MILLI, 1);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void testAcquireRejectsAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2);
+        assertEquals(1, limiter.tryAcquire());
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        limiter.release(MILLI, 2);
+        assertEquals(1, limiter.getInflight());
+        assertEquals(2, limiter.tryAcquire());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 2, 3));
+    }
+
+    @Test
+    public void testFilterShedsPerEndpointClass() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                new String[] { "aggregate /api/networth 1 1 1", "default /api/** 5 1 5" }, registry);
+        MockHttpServletResponse nestedAggregate = new MockHttpServletResponse();
+        MockHttpServletResponse nestedDefault = new MockHttpServletResponse();
+
+        // while one aggregate request is in flight a second is shed, other classes are not
+        MockFilterChain outer = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                try {
+                    filter.doFilter(get("/api/networth"), nestedAggregate, new MockFilterChain());
+                    filter.doFilter(get("/api/transactions"), nestedDefault, new MockFilterChain());
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(get("/api/networth"), first, outer);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(503, nestedAggregate.getStatus());
+        assertEquals("1", nestedAggregate.getHeader("Retry-After"));
+        assertEquals(200, nestedDefault.getStatus());
+        assertEquals(1, registry.get("concurrency_limit.rejected").tag("class", "aggregate").counter().count());
+        assertEquals(0, registry.get("concurrency_limit.inflight").tag("class", "aggregate").gauge().value());
+        assertEquals(1, registry.get("concurrency_limit.limit").tag("class", "aggregate").gauge().value());
+
+        // the permit was returned
+        MockHttpServletResponse after = new MockHttpServletResponse();
+        filter.doFilter(get("/api/networth"), after, new MockFilterChain());
+        assertEquals(200, after.getStatus());
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+}
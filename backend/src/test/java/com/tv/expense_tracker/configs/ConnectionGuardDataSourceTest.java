@@ -0,0 +1,47 @@
+package com.tv.expense_tracker.configs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionGuardDataSourceTest {
+
+    @Test
+    public void testRejectsBeyondPermitsAndReleasesOnClose() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConnectionGuardDataSource guard = new ConnectionGuardDataSource(pool, "test", 2, 10, registry);
+
+        Connection first = guard.getConnection();
+        Connection second = guard.getConnection();
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+        assertEquals(1, registry.get("db.connection.guard.rejected").counter().count());
+
+        first.close();
+        first.close();
+        assertEquals(1, registry.get("db.connection.guard.available").gauge().value());
+        guard.getConnection().close();
+        second.close();
+        assertEquals(2, registry.get("db.connection.guard.available").gauge().value());
+    }
+
+    @Test
+    public void testPermitReturnedWhenPoolFails() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+        ConnectionGuardDataSource guard = new ConnectionGuardDataSource(pool, "test", 1, 10, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            SQLTransientConnectionException ex = assertThrows(SQLTransientConnectionException.class,
+                    guard::getConnection);
+            assertEquals("pool timeout", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Bill;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ConnectionHoldTimeIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        meterRegistry.clear();
+
+        Customer customer = customerRepository.save(new Customer("test@example.com", "password", "Test User"));
+        billRepository.save(new Bill("Rent", new BigDecimal("1200.00"), LocalDate.now().plusDays(3), "housing",
+                true, "monthly", "pending", customer));
+        budgetRepository.save(new Budget("food", new BigDecimal("300.00"), "monthly", customer));
+        Saving saving = new Saving();
+        saving.setName("Emergency Fund");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal("1000.00"));
+        saving.setDescription("rainy day");
+        saving.setCustomer(customer);
+        savingRepository.save(saving);
+        meterRegistry.clear();
+    }
+
+    @Test
+    public void testOpenSessionInViewDisabled() {
+        assertEquals(0, applicationContext.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class).length);
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testBillsReleaseConnectionPerRepositoryCall() throws Exception {
+        long elapsed = timeRequest("/api/bills");
+
+        Timer timer = holdTimer("GET /api/bills");
+        // customer lookup and bill query each borrow and return their own connection
+        assertTrue(timer.count() >= 2, "expected one borrow per repository call, got " + timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) <= elapsed);
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testEachEndpointHoldsConnectionShorterThanRequest() throws Exception {
+        for (String path : new String[] { "/api/bills", "/api/budgets", "/api/budgets/status", "/api/savings",
+                "/api/transactions" }) {
+            long elapsed = timeRequest(path);
+            Timer timer = holdTimer("GET " + path);
+            assertTrue(timer.count() > 0, "no connection recorded for " + path);
+            assertTrue(timer.max(TimeUnit.NANOSECONDS) <= elapsed, "connection outlived request for " + path);
+        }
+    }
+
+    private long timeRequest(String path) throws Exception {
+        long start = System.nanoTime();
+        mockMvc.perform(get(path)).andExpect(status().isOk());
+        return System.nanoTime() - start;
+    }
+
+    private Timer holdTimer(String endpoint) {
+        Timer timer = meterRegistry.find(ConnectionHoldTimeDataSource.METRIC_NAME).tag("endpoint", endpoint).timer();
+        assertNotNull(timer, "no hold-time metric for " + endpoint);
+        return timer;
+    }
+}
@@ -0,0 +1,142 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.services.InterestAccrualService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class EntityCacheIntegrationTest {
+
+    private static final int PAGE_LOADS = 20;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InterestAccrualService accrualService;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    private Customer customer;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("cache@example.com", "password", "Cache User"));
+        for (int i = 0; i < 5; i++) {
+            budgetRepository.save(new Budget("category" + i, new BigDecimal("100.00"), "monthly", customer));
+            saving("1000.00", "3.65");
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testRepeatedPageLoadsAreServedFromCache() {
+        for (int i = 0; i < PAGE_LOADS; i++)
+            loadPage();
+        long cached = statistics.getPrepareStatementCount();
+
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics.clear();
+        loadPage();
+        long uncachedPerLoad = statistics.getPrepareStatementCount();
+
+        // only the first load reaches the database
+        assertEquals(uncachedPerLoad, cached);
+        assertTrue(statistics.getQueryCacheMissCount() > 0);
+        assertTrue(hits("default-query-results-region") >= (PAGE_LOADS - 1) * 4);
+    }
+
+    @Test
+    public void testLookupsByIdAreServedFromCache() {
+        double before = hits(EntityCacheConfig.CUSTOMERS);
+        for (int i = 0; i < PAGE_LOADS; i++)
+            customerRepository.findById(customer.getId()).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(PAGE_LOADS - 1, hits(EntityCacheConfig.CUSTOMERS) - before);
+    }
+
+    @Test
+    public void testSavesInvalidateCachedQueries() {
+        loadPage();
+        Budget budget = budgetRepository.findByCustomer(customer).get(0);
+        budget.setBudgetLimit(new BigDecimal("250.00"));
+        budgetRepository.save(budget);
+        saving("50.00", null);
+
+        assertTrue(budgetRepository.findByCustomer(customer).stream()
+                .anyMatch(b -> b.getBudgetLimit().compareTo(new BigDecimal("250.00")) == 0));
+        assertEquals(6, savingRepository.findSummariesByCustomerId(customer.getId()).size());
+    }
+
+    @Test
+    public void testJdbcAccrualEvictsCachedSavings() {
+        loadPage();
+        accrualService.accrue(LocalDate.of(2026, 1, 15));
+
+        assertTrue(savingRepository.findByCustomer(customer).stream()
+                .allMatch(s -> s.getBalance().compareTo(new BigDecimal("1000.10")) == 0));
+        assertTrue(savingRepository.findSummariesByCustomerId(customer.getId()).stream()
+                .allMatch(s -> s.getBalance().compareTo(new BigDecimal("1000.10")) == 0));
+    }
+
+    /**
+     * What a dashboard request reads: the caller, their budgets and their savings.
+     */
+    private void loadPage() {
+        Customer current = customerRepository.findByEmail(customer.getEmail()).orElseThrow();
+        assertEquals(5, budgetRepository.findByCustomer(current).size());
+        assertEquals(5, savingRepository.findByCustomer(current).size());
+        assertEquals(5, savingRepository.findSummariesByCustomerId(current.getId()).size());
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+
+    private Saving saving(String balance, String rate) {
+        Saving saving = new Saving();
+        saving.setName("Savings");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal(balance));
+        saving.setInterestRate(rate == null ? null : new BigDecimal(rate));
+        saving.setCustomer(customer);
+        return savingRepository.save(saving);
+    }
+}
@@ -0,0 +1,78 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.configs.ReplicaRoutingDataSource.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long WINDOW_MS = 1_000;
+
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(mock(DataSource.class),
+            mock(DataSource.class), WINDOW_MS, new SimpleMeterRegistry());
+
+    @AfterEach
+    public void clear() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void testReadOnlyGoesToReplicaAndWritesToPrimary() {
+        signIn("a@example.com");
+        assertEquals(Target.PRIMARY, routing.route(System.nanoTime()));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(Target.REPLICA, routing.route(System.nanoTime()));
+    }
+
+    @Test
+    public void testReadsFollowOwnWritesForTheWindow() {
+        signIn("a@example.com");
+        commitWrite();
+        long now = System.nanoTime();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(Target.PRIMARY, routing.route(now));
+        assertEquals(Target.REPLICA, routing.route(now + WINDOW_MS * 1_000_000));
+
+        signIn("b@example.com");
+        assertEquals(Target.REPLICA, routing.route(now));
+    }
+
+    @Test
+    public void testRolledBackWriteOpensNoWindow() {
+        signIn("a@example.com");
+        TransactionSynchronizationManager.initSynchronization();
+        routing.route(System.nanoTime());
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(Target.REPLICA, routing.route(System.nanoTime()));
+    }
+
+    private void commitWrite() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(Target.PRIMARY, routing.route(System.nanoTime()));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.services.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes against a second pool on the same in-memory H2 database, which stands in for a
+ * replica with no lag.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:expense_tracker;DB_CLOSE_DELAY=-1",
+        "datasource.replica.read-your-writes-ms=60000" })
+public class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customerRepository.save(new Customer("writer@example.com", "password", "Writer"));
+        customerRepository.save(new Customer("reader@example.com", "password", "Reader"));
+    }
+
+    @AfterEach
+    public void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testReadOnlyServiceCallsUseReplicaUntilOwnWrite() {
+        signIn("writer@example.com");
+        double replica = replicaReads();
+        assertTrue(transactionService.getTransactionsForUser("writer@example.com").isEmpty());
+        assertEquals(replica + 1, replicaReads());
+
+        transactionService.createTransaction(new Transaction("Pay", new BigDecimal("100.00"), LocalDate.now(),
+                "Salary", "income", null), "writer@example.com");
+        double primary = primaryReads();
+        assertEquals(1, transactionService.getTransactionsForUser("writer@example.com").size());
+        assertEquals(primary + 1, primaryReads());
+
+        signIn("reader@example.com");
+        replica = replicaReads();
+        transactionService.getTransactionsForUser("reader@example.com");
+        assertEquals(replica + 1, replicaReads());
+    }
+
+    private double replicaReads() {
+        return meterRegistry.get("db.routing").tag("target", "replica").counter().count();
+    }
+
+    private double primaryReads() {
+        return meterRegistry.get("db.routing").tag("target", "primary").tag("access", "read").counter().count();
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
@@ -0,0 +1,227 @@
+package com.tv.expense_tracker.configs;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.services.ShardDirectory;
+import com.tv.expense_tracker.services.ShardMigrationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Three shards: an in-memory home database of its own, so other contexts recreating the
+ * usual one do not pull tables from under the directory refresh, plus two more.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard_0;DB_CLOSE_DELAY=-1",
+        "sharding.enabled=true",
+        "sharding.shard-urls=jdbc:h2:mem:shard_1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard_2;DB_CLOSE_DELAY=-1",
+        "sharding.directory-refresh-ms=10",
+        "sharding.move-batch-size=2" })
+public class ShardingIntegrationTest {
+
+    private static final String EMAIL = "sharded@example.com";
+    private static final String TRANSACTION = "{\"description\":\"Pay\",\"amount\":100.00,\"date\":\"2024-05-01\","
+            + "\"category\":\"Salary\",\"type\":\"income\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardMigrationService migrationService;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        directory.forEachShard(shard -> testDatabase.clear());
+        customer = customerRepository.save(new Customer(EMAIL, "password", "Sharded"));
+    }
+
+    @Test
+    @WithMockUser(username = EMAIL)
+    public void testRequestsUseCustomersShardAndSurviveAMove() throws Exception {
+        assertEquals(3, directory.getShardCount());
+        mockMvc.perform(post("/api/transactions").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(TRANSACTION)).andExpect(status().isCreated());
+        mockMvc.perform(post("/api/savings").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"accountName\":\"Rainy day\",\"accountType\":\"hysa\",\"balance\":100.00}"))
+                .andExpect(status().isCreated());
+        Long savingId = ShardContext.callOn(directory.shardFor(customer.getId()), () -> jdbcTemplate.queryForObject(
+                "select id from savings where customer_id = ?", Long.class, customer.getId()));
+        for (int i = 0; i < 3; i++)
+            mockMvc.perform(post("/api/savings/" + savingId + "/deposit").with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":10.00}"))
+                    .andExpect(status().isOk());
+
+        int source = directory.shardFor(customer.getId());
+        Long budgetId = ShardContext.callOn(source, () -> budgetRepository
+                .save(new Budget("food", new BigDecimal("100.00"), "monthly", customer)).getId());
+        // one alert of the live budget and one of a budget deleted since
+        ShardContext.runOn(source, () -> {
+            alert(budgetId);
+            alert(budgetId + 1000);
+        });
+        for (int shard = 0; shard < 3; shard++)
+            assertEquals(shard == source ? 1 : 0, count(shard, "transactions"), "transactions on shard " + shard);
+
+        int target = (source + 1) % 3;
+        Map<String, Long> copied = migrationService.moveCustomer(customer.getId(), target);
+        assertEquals(1L, copied.get("transactions"));
+        assertEquals(1L, copied.get("savings"));
+        assertEquals(4L, copied.get("saving_transactions"));
+        assertEquals(1L, copied.get("budget_alerts"));
+
+        assertEquals(target, directory.shardFor(customer.getId()));
+        assertEquals(0, count(source, "transactions"));
+        assertEquals(0, count(source, "savings"));
+        assertEquals(1, count(target, "transactions"));
+        Long movedBudgetId = ShardContext.callOn(target, () -> jdbcTemplate.queryForObject(
+                "select id from budgets where customer_id = ?", Long.class, customer.getId()));
+        assertEquals(movedBudgetId, ShardContext.callOn(target, () -> jdbcTemplate.queryForObject(
+                "select budget_id from budget_alerts where customer_id = ?", Long.class, customer.getId())));
+        // the deleted budget's alert stays on the source rather than being lost
+        assertEquals(budgetId + 1000, ShardContext.callOn(source, () -> jdbcTemplate.queryForObject(
+                "select budget_id from budget_alerts where customer_id = ?", Long.class, customer.getId())));
+        BigDecimal balance = ShardContext.callOn(target, () -> jdbcTemplate.queryForObject(
+                "select balance from savings where customer_id = ?", BigDecimal.class, customer.getId()));
+        assertEquals(0, new BigDecimal("130.00").compareTo(balance));
+
+        mockMvc.perform(get("/api/transactions")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/savings")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        assertEquals(Map.of(0, target == 0 ? 1L : 0L, 1, target == 1 ? 1L : 0L, 2, target == 2 ? 1L : 0L),
+                directory.customersPerShard());
+    }
+
+    @Test
+    @WithMockUser(username = EMAIL)
+    public void testWritesAreRefusedWhileMoving() throws Exception {
+        int shard = directory.shardFor(customer.getId());
+        directory.beginMove(customer.getId());
+
+        mockMvc.perform(post("/api/transactions").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(TRANSACTION)).andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+        mockMvc.perform(get("/api/transactions")).andExpect(status().isOk());
+
+        directory.completeMove(customer.getId(), shard);
+        mockMvc.perform(post("/api/transactions").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                .content(TRANSACTION)).andExpect(status().isCreated());
+    }
+
+    @Test
+    public void testMoveWaitsForWritesAlreadyInFlight() throws Exception {
+        int source = directory.shardFor(customer.getId());
+        int target = (source + 1) % 3;
+        ShardContext.runOn(source, () -> income("2024-05-01"));
+        // a write request that passed the filter before the move began
+        assertTrue(directory.beginWrite(customer.getId()));
+        Thread move = new Thread(() -> migrationService.moveCustomer(customer.getId(), target));
+        move.start();
+        Thread.sleep(300);
+        assertTrue(move.isAlive());
+        assertEquals(0, count(target, "transactions"));
+
+        ShardContext.runOn(source, () -> income("2024-05-02"));
+        directory.endWrite(customer.getId());
+        move.join(10_000);
+        assertFalse(move.isAlive());
+        assertEquals(target, directory.shardFor(customer.getId()));
+        assertEquals(2, count(target, "transactions"));
+        assertEquals(0, count(source, "transactions"));
+    }
+
+    @Test
+    public void testMoveWaitsForTheCustomersEventsToBeHandled() throws Exception {
+        int source = directory.shardFor(customer.getId());
+        int target = (source + 1) % 3;
+        long event = ShardContext.callOn(source, () -> {
+            jdbcTemplate.update("insert into outbox_events (type, customer_id, payload, created_at) "
+                    + "values ('transaction.created', ?, '{}', ?)", customer.getId(), Timestamp.from(Instant.now()));
+            long id = jdbcTemplate.queryForObject("select max(id) from outbox_events", Long.class);
+            jdbcTemplate.update("insert into outbox_offsets (consumer, last_event_id, updated_at) values "
+                    + "('lagging', ?, ?)", id - 1, Timestamp.from(Instant.now()));
+            return id;
+        });
+        try {
+            Thread move = new Thread(() -> migrationService.moveCustomer(customer.getId(), target));
+            move.start();
+            Thread.sleep(300);
+            assertTrue(move.isAlive());
+            assertEquals(source, directory.shardFor(customer.getId()));
+
+            ShardContext.runOn(source, () -> jdbcTemplate.update(
+                    "update outbox_offsets set last_event_id = ? where consumer = 'lagging'", event));
+            move.join(10_000);
+            assertFalse(move.isAlive());
+            assertEquals(target, directory.shardFor(customer.getId()));
+        } finally {
+            ShardContext.runOn(source, () -> {
+                jdbcTemplate.update("delete from outbox_offsets where consumer = 'lagging'");
+                jdbcTemplate.update("delete from outbox_events where id = ?", event);
+            });
+        }
+    }
+
+    private void income(String date) {
+        jdbcTemplate.update("insert into transactions (description, amount, date, category, type, customer_id) "
+                + "values ('Pay', 100.00, ?, 'Salary', 'income', ?)", Date.valueOf(date), customer.getId());
+    }
+
+    private void alert(long budgetId) {
+        jdbcTemplate.update("insert into budget_alerts (customer_id, budget_id, category, period, period_start, "
+                + "threshold, spent, budget_limit, created_at) values (?, ?, 'food', 'monthly', ?, 80, 85, 100, ?)",
+                customer.getId(), budgetId, Date.valueOf(LocalDate.now().withDayOfMonth(1)),
+                Timestamp.from(Instant.now()));
+    }
+
+    private int count(int shard, String table) {
+        return ShardContext.callOn(shard, () -> jdbcTemplate.queryForObject(
+                "select count(*) from " + table + " where customer_id = ?", Integer.class, customer.getId()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.tv.expense_tracker.configs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and latency of a JDBC-bound endpoint under many concurrent clients, in
+ * whichever thread mode the context starts in. Compare the two modes with
+ * <pre>
+ * mvn test -Dtest=ThreadModeLoadTest -Dbenchmark=true
+ * mvn test -Pjava21 -Dtest=ThreadModeLoadTest -Dbenchmark=true -Dspring.threads.virtual.enabled=true
+ * </pre>
+ * Add {@code -Dserver.tomcat.threads.max=N} to vary the platform pool.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "concurrency-limit.enabled=false")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ThreadModeLoadTest {
+
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Test
+    public void benchmarkJdbcBoundEndpoint() throws Exception {
+        testDatabase.clear();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpResponse<String> signup = client.send(HttpRequest.newBuilder(uri("/api/auth/signup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"fullName\":\"Load\",\"email\":\"load@example.com\",\"password\":\"password123\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode body = new ObjectMapper().readTree(signup.body());
+        String token = body.get("token").asText();
+        HttpRequest read = HttpRequest.newBuilder(uri("/api/savings/goals"))
+                .header("Authorization", "Bearer " + token).GET().build();
+
+        String mode = Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform";
+        for (int round = 0; round < 2; round++) {
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicLong failures = new AtomicLong();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<?>> running = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c * REQUESTS_PER_CLIENT;
+                running.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long sent = System.nanoTime();
+                        try {
+                            if (client.send(read, HttpResponse.BodyHandlers.discarding()).statusCode() != 200)
+                                failures.incrementAndGet();
+                        } catch (Exception ex) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[offset + i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : running)
+                task.get();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            clients.shutdown();
+
+            Arrays.sort(latencies);
+            System.out.printf("thread mode=%s round=%d requests=%d failures=%d req/s=%.0f p50=%.1fms p99=%.1fms%n",
+                    mode, round, latencies.length, failures.get(), latencies.length / seconds,
+                    latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6);
+            assertEquals(0, failures.get());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
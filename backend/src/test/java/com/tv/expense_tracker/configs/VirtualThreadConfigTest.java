@@ -0,0 +1,69 @@
+package com.tv.expense_tracker.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class VirtualThreadConfigTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BeanPostProcessor postProcessor = VirtualThreadConfig.connectionGuardPostProcessor(
+            meterRegistry(), new MockEnvironment());
+
+    @Test
+    public void testRoutingDataSourceKeepsItsPlaceAndEachPoolGetsItsOwnGuard() {
+        HikariDataSource home = pool("shard-0", 3);
+        HikariDataSource other = pool("shard-1", 7);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(List.of(home, other));
+        DataSource bean = new LazyConnectionDataSourceProxy(routing);
+
+        assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "dataSource"));
+
+        assertEquals(2, routing.getResolvedDataSources().size());
+        routing.getResolvedDataSources().values()
+                .forEach(target -> assertInstanceOf(ConnectionGuardDataSource.class, target));
+        assertInstanceOf(ConnectionGuardDataSource.class, routing.getResolvedDefaultDataSource());
+        assertSame(home, ((ConnectionGuardDataSource) routing.getResolvedDefaultDataSource()).getTargetDataSource());
+        assertEquals(3, available("shard-0"));
+        assertEquals(7, available("shard-1"));
+    }
+
+    @Test
+    public void testSinglePoolIsGuardedWithItsOwnSize() {
+        HikariDataSource pool = pool("main", 4);
+
+        Object bean = postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        assertInstanceOf(ConnectionGuardDataSource.class, bean);
+        assertEquals(4, available("main"));
+    }
+
+    private double available(String pool) {
+        return registry.get("db.connection.guard.available").tag("pool", pool).gauge().value();
+    }
+
+    private static HikariDataSource pool(String name, int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(size);
+        return pool;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> meterRegistry() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(registry);
+        return provider;
+    }
+}
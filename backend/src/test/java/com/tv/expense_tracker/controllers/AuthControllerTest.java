@@ -1,23 +1,34 @@
 package com.tv.expense_tracker.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.controllers.dtos.LoginRequest;
 import com.tv.expense_tracker.controllers.dtos.SignupRequest;
 import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.RevokedToken;
 import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.securities.JwtUtil;
+import com.tv.expense_tracker.services.TokenService;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -36,28 +47,20 @@ public class AuthControllerTest {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
+    private JwtUtil jwtUtil;
 
     @Autowired
-    private SavingRepository savingRepository;
+    private TokenService tokenService;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private RevokedTokenRepository revokedTokenRepository;
 
     @Autowired
-    private BillRepository billRepository;
-
-    @Autowired
-    private BudgetRepository budgetRepository;
+    private TestDatabase testDatabase;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
     }
 
     @Test
@@ -95,4 +98,104 @@ public class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").exists());
     }
+    @Test
+    public void testLogin_UpgradesLegacyHash() throws Exception {
+        Customer customer = new Customer();
+        customer.setFullName("Test User");
+        customer.setEmail("test@example.com");
+        customer.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+        customerRepository.save(customer);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password");
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest))
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").exists());
+
+        String upgraded = customerRepository.findByEmail("test@example.com").orElseThrow().getPassword();
+        assertTrue(upgraded.startsWith("{bcrypt}$2a$10$"), upgraded);
+        assertTrue(passwordEncoder.matches("password", upgraded));
+    }
+    @Test
+    public void testRefresh_RotatesAndDetectsReuse() throws Exception {
+        JsonNode first = login();
+        assertTrue(first.get("expiresIn").asLong() > 0);
+
+        JsonNode second = refresh(first.get("refreshToken").asText(), 200);
+        assertNotEquals(first.get("refreshToken").asText(), second.get("refreshToken").asText());
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + second.get("token").asText()))
+                .andExpect(status().isOk());
+
+        // replaying the used token revokes the family, including the token it was rotated into
+        refresh(first.get("refreshToken").asText(), 401);
+        refresh(second.get("refreshToken").asText(), 401);
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + second.get("token").asText()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testLogout_RevokesAccessAndRefreshTokens() throws Exception {
+        JsonNode tokens = login();
+        String bearer = "Bearer " + tokens.get("token").asText();
+        mockMvc.perform(get("/api/users/me").header("Authorization", bearer))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + tokens.get("refreshToken").asText() + "\"}")
+                .with(csrf()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/users/me").header("Authorization", bearer))
+                .andExpect(status().isUnauthorized());
+        refresh(tokens.get("refreshToken").asText(), 401);
+    }
+
+    @Test
+    public void testLogoutOnAnotherNodeIsPickedUp() throws Exception {
+        JsonNode tokens = login();
+        String bearer = "Bearer " + tokens.get("token").asText();
+        Claims claims = jwtUtil.parse(tokens.get("token").asText());
+        // written by another node; this one only learns of it from the table
+        revokedTokenRepository.save(new RevokedToken(claims.getId(), claims.getExpiration().toInstant()));
+
+        tokenService.loadRevocations();
+        mockMvc.perform(get("/api/users/me").header("Authorization", bearer))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode login() throws Exception {
+        Customer customer = new Customer();
+        customer.setFullName("Test User");
+        customer.setEmail("test@example.com");
+        customer.setPassword(passwordEncoder.encode("password"));
+        customerRepository.save(customer);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password");
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest))
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode refresh(String refreshToken, int expectedStatus) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}")
+                .with(csrf()))
+                .andExpect(status().is(expectedStatus))
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
 }
\ No newline at end of file
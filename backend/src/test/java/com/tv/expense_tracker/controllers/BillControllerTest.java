@@ -1,6 +1,7 @@
 package com.tv.expense_tracker.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.models.Bill;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.*;
@@ -18,6 +19,7 @@ import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -40,27 +42,13 @@ public class BillControllerTest {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
-
-    @Autowired
-    private SavingRepository savingRepository;
-
-    @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private BudgetRepository budgetRepository;
+    private TestDatabase testDatabase;
 
     private Customer testCustomer;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
 
         testCustomer = new Customer();
         testCustomer.setEmail("test@example.com");
@@ -153,4 +141,24 @@ public class BillControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("paid"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testPayBill_OtherCustomer_NotFound() throws Exception {
+        Customer other = customerRepository.save(new Customer("other@example.com", "password", "Other User"));
+        Bill bill = new Bill();
+        bill.setName("Not Mine");
+        bill.setAmount(BigDecimal.valueOf(80));
+        bill.setDueDate(LocalDate.now().plusDays(3));
+        bill.setStatus("pending");
+        bill.setCustomer(other);
+        bill = billRepository.save(bill);
+
+        mockMvc.perform(post("/api/bills/" + bill.getId() + "/pay").with(csrf()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/bills/" + bill.getId()).with(csrf()))
+                .andExpect(status().isNotFound());
+
+        assertEquals("pending", billRepository.findById(bill.getId()).orElseThrow().getStatus());
+    }
+}
@@ -1,6 +1,7 @@
 package com.tv.expense_tracker.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.models.Budget;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.*;
@@ -15,6 +16,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -37,27 +39,13 @@ public class BudgetControllerTest {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private BillRepository billRepository;
-
-    @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
-
-    @Autowired
-    private SavingRepository savingRepository;
+    private TestDatabase testDatabase;
 
     private Customer testCustomer;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
         testCustomer = new Customer();
         testCustomer.setEmail("test@example.com");
         testCustomer.setPassword("password");
@@ -133,4 +121,16 @@ public class BudgetControllerTest {
         mockMvc.perform(delete("/api/budgets/" + budget.getId()).with(csrf()))
                 .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testDeleteBudget_OtherCustomer_NotFound() throws Exception {
+        Customer other = customerRepository.save(new Customer("other@example.com", "password", "Other User"));
+        Budget budget = budgetRepository.save(new Budget("Not Mine", BigDecimal.valueOf(100), "Monthly", other));
+
+        mockMvc.perform(delete("/api/budgets/" + budget.getId()).with(csrf()))
+                .andExpect(status().isNotFound());
+
+        assertTrue(budgetRepository.existsById(budget.getId()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.tv.expense_tracker.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "rate-limit.policies=POST /api/auth/login ip 2 1")
+public class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testLoginBurstIsLimitedPerAddress() throws Exception {
+        mockMvc.perform(login("10.1.1.1")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.1.1.1")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("10.1.1.1"))
+                .andExpect(status().isTooManyRequests())
+                // one token a minute, less however long the first two requests took
+                .andExpect(header().string("Retry-After", matchesRegex("[1-5]?[0-9]|60")));
+
+        mockMvc.perform(login("10.1.1.2")).andExpect(status().isUnauthorized());
+    }
+
+    private static MockHttpServletRequestBuilder login(String address) {
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"nobody@example.com\",\"password\":\"wrong\"}")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                })
+                .with(csrf());
+    }
+}
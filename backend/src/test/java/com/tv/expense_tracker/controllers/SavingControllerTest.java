@@ -1,12 +1,14 @@
 package com.tv.expense_tracker.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.controllers.dtos.AmountRequest;
 import com.tv.expense_tracker.controllers.dtos.SavingRequest;
 import com.tv.expense_tracker.controllers.dtos.TransferRequest;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.models.Saving;
 import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.services.IdempotencyService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,15 +17,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.hasLength;
 import static org.hamcrest.Matchers.is;
-
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -42,27 +56,13 @@ public class SavingControllerTest {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private BillRepository billRepository;
-
-    @Autowired
-    private BudgetRepository budgetRepository;
-
-    @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
+    private TestDatabase testDatabase;
 
     private Customer testCustomer;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
         
         testCustomer = new Customer();
         testCustomer.setEmail("test@example.com");
@@ -162,6 +162,57 @@ public class SavingControllerTest {
                 .andExpect(jsonPath("$.balance", is(1200.00)));
     }
 
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testDeposit_IdempotentRetry() throws Exception {
+        Saving saving = new Saving();
+        saving.setName("Test Account");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal("1000.00"));
+        saving.setCustomer(testCustomer);
+        saving = savingRepository.save(saving);
+
+        AmountRequest depositRequest = new AmountRequest();
+        depositRequest.setAmount(new BigDecimal("200.00"));
+        String key = UUID.randomUUID().toString();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/savings/" + saving.getId() + "/deposit")
+                            .header(IdempotencyService.HEADER, key)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(depositRequest))
+                            .with(csrf()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance", is(1200.00)));
+        }
+        assertEquals(0, new BigDecimal("1200.00").compareTo(savingRepository.findById(saving.getId()).orElseThrow()
+                .getBalance()));
+
+        AmountRequest tooMuch = new AmountRequest();
+        tooMuch.setAmount(new BigDecimal("5000.00"));
+        String failedKey = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/savings/" + saving.getId() + "/withdraw")
+                        .header(IdempotencyService.HEADER, failedKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooMuch))
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+        // a failed attempt stores nothing, so the key can be retried once funds are there
+        AmountRequest affordable = new AmountRequest();
+        affordable.setAmount(new BigDecimal("5000.00"));
+        mockMvc.perform(post("/api/savings/" + saving.getId() + "/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(affordable))
+                        .with(csrf()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/savings/" + saving.getId() + "/withdraw")
+                        .header(IdempotencyService.HEADER, failedKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tooMuch))
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(1200.00)));
+    }
+
     @Test
     @WithMockUser(username = "test@example.com")
     public void testWithdraw_Success() throws Exception {
@@ -213,4 +264,154 @@ public class SavingControllerTest {
                         .with(csrf()))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testProjection_BoundedHorizon() throws Exception {
+        Saving saving = new Saving();
+        saving.setName("HYSA");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal("1000.00"));
+        saving.setInterestRate(new BigDecimal("4.80"));
+        saving.setCustomer(testCustomer);
+        saving = savingRepository.save(saving);
+
+        mockMvc.perform(get("/api/savings/" + saving.getId() + "/projection?months=12").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(12)))
+                .andExpect(jsonPath("$[0].interest").value(4.00));
+        mockMvc.perform(get("/api/savings/" + saving.getId() + "/projection?months=10000000").with(csrf()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/savings/" + saving.getId() + "/projection/summary?months=1200").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months", is(1200)));
+
+        MvcResult streamed = mockMvc.perform(get("/api/savings/" + saving.getId() + "/projection?months=600")
+                        .accept("application/x-ndjson").with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertEquals(600,
+                        result.getResponse().getContentAsString().lines().count()));
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testDescriptionOnlyOnDetailOrWhenRequested() throws Exception {
+        Saving saving = new Saving();
+        saving.setName("Notes");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal("100.00"));
+        saving.setDescription("x".repeat(10_000));
+        saving.setCustomer(testCustomer);
+        saving = savingRepository.save(saving);
+
+        mockMvc.perform(get("/api/savings").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Notes")))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+        mockMvc.perform(get("/api/savings").param("includeDescription", "true").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].description", hasLength(10_000)));
+        mockMvc.perform(get("/api/savings/" + saving.getId()).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", hasLength(10_000)));
+        mockMvc.perform(get("/api/savings/" + (saving.getId() + 1000)).with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testTransactions_CursorPagination() throws Exception {
+        Saving saving = new Saving();
+        saving.setName("Ledger");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal("0.00"));
+        saving.setCustomer(testCustomer);
+        saving = savingRepository.save(saving);
+        for (int i = 1; i <= 5; i++) {
+            AmountRequest deposit = new AmountRequest();
+            deposit.setAmount(new BigDecimal(i));
+            deposit.setDescription("deposit " + i);
+            mockMvc.perform(post("/api/savings/" + saving.getId() + "/deposit")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(deposit))
+                            .with(csrf()))
+                    .andExpect(status().isOk());
+        }
+        String path = "/api/savings/" + saving.getId() + "/transactions";
+
+        Set<Object> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MvcResult page = mockMvc.perform(get(cursor == null ? path : path + "?cursor=" + cursor)
+                            .param("limit", "2").with(csrf()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].description").doesNotExist())
+                    .andReturn();
+            List<Object> ids = JsonPath.read(page.getResponse().getContentAsString(), "$[*].id");
+            seen.addAll(ids);
+            cursor = page.getResponse().getHeader(SavingController.NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+
+        mockMvc.perform(get(path).param("includeDescription", "true").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(5)))
+                .andExpect(jsonPath("$[0].description", is("deposit 5")));
+        mockMvc.perform(get(path).param("from", Instant.now().plus(1, ChronoUnit.DAYS).toString()).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(0)));
+        mockMvc.perform(get(path).param("cursor", "not-a-cursor").with(csrf()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(path).param("limit", "10000").with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testGoals_ProgressAndProjectedCompletion() throws Exception {
+        Saving withGoal = new Saving();
+        withGoal.setName("House");
+        withGoal.setAccountType("hysa");
+        withGoal.setBalance(new BigDecimal("1000.00"));
+        withGoal.setGoal(new BigDecimal("2000.00"));
+        withGoal.setCustomer(testCustomer);
+        withGoal = savingRepository.save(withGoal);
+        Saving withoutGoal = new Saving();
+        withoutGoal.setName("Rainy day");
+        withoutGoal.setAccountType("hysa");
+        withoutGoal.setBalance(new BigDecimal("50.00"));
+        withoutGoal.setCustomer(testCustomer);
+        savingRepository.save(withoutGoal);
+
+        AmountRequest deposit = new AmountRequest();
+        deposit.setAmount(new BigDecimal("400.00"));
+        mockMvc.perform(post("/api/savings/" + withGoal.getId() + "/deposit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(deposit))
+                        .with(csrf()))
+                .andExpect(status().isOk());
+        AmountRequest withdrawal = new AmountRequest();
+        withdrawal.setAmount(new BigDecimal("100.00"));
+        mockMvc.perform(post("/api/savings/" + withGoal.getId() + "/withdraw")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawal))
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/savings/goals").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].recentContributions", is(300.00)))
+                .andExpect(jsonPath("$[0].monthlyContribution", is(100.00)))
+                .andExpect(jsonPath("$[0].progressPercent", is(65.00)))
+                .andExpect(jsonPath("$[0].monthsToGoal", is(7)))
+                .andExpect(jsonPath("$[0].projectedCompletionDate", is(LocalDate.now().plusMonths(7).toString())))
+                .andExpect(jsonPath("$[1].progressPercent").doesNotExist())
+                .andExpect(jsonPath("$[1].projectedCompletionDate").doesNotExist());
+    }
 }
@@ -0,0 +1,92 @@
+package com.tv.expense_tracker.controllers;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.controllers.dtos.SavingResponse;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares listing savings as full entities (description included) with the summary
+ * projection. Run with {@code -Dbenchmark=true}; point it at Postgres by overriding the
+ * datasource to measure the large-object case.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SavingListBenchmarkTest {
+
+    private static final int SAVINGS = 200;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void benchmarkSavingsList() {
+        testDatabase.clear();
+        Customer customer = customerRepository.save(new Customer("bench@example.com", "password", "Bench"));
+        List<Saving> savings = new ArrayList<>();
+        for (int i = 0; i < SAVINGS; i++) {
+            Saving saving = new Saving();
+            saving.setName("Saving " + i);
+            saving.setAccountType("hysa");
+            saving.setBalance(new BigDecimal("1000.00"));
+            saving.setDescription("d".repeat(8_000));
+            saving.setCustomer(customer);
+            savings.add(saving);
+        }
+        savingRepository.saveAll(savings);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        double entities = medianMillis(() -> tx.execute(status -> {
+            List<Saving> list = savingRepository.findByCustomer(customer);
+            list.forEach(Saving::getDescription);
+            return list.size();
+        }));
+        double summaries = medianMillis(() -> tx.execute(status -> {
+            List<SavingResponse> list = savingRepository.findSummariesByCustomerId(customer.getId());
+            return list.size();
+        }));
+        System.out.printf("savings list (%d rows): entities with description %.2f ms, summary projection %.2f ms%n",
+                SAVINGS, entities, summaries);
+    }
+
+    private static double medianMillis(Supplier<Integer> list) {
+        for (int i = 0; i < 10; i++)
+            assertEquals(SAVINGS, list.get());
+        double[] samples = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            list.get();
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2];
+    }
+}
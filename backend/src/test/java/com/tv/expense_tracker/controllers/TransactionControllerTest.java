@@ -1,10 +1,12 @@
 package com.tv.expense_tracker.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.controllers.dtos.TransactionRequest;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.models.Transaction;
 import com.tv.expense_tracker.repositories.*;
+import com.tv.expense_tracker.services.IdempotencyService;
 import com.tv.expense_tracker.services.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,8 +21,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -45,28 +50,11 @@ public class TransactionControllerTest {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
-
-    @Autowired
-    private SavingRepository savingRepository;
-
-    @Autowired
-    private BillRepository billRepository;
-
-    @Autowired
-    private BudgetRepository budgetRepository;
+    private TestDatabase testDatabase;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
     }
 
     @Test
@@ -133,4 +121,52 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[0].description").value("Test Transaction"));
     }
+
+    @Test
+    @WithMockUser(username = "test@example.com")
+    public void testCreateTransaction_IdempotentRetry() throws Exception {
+        Customer customer = new Customer();
+        customer.setFullName("Test User");
+        customer.setEmail("test@example.com");
+        customer.setPassword("password");
+        customerRepository.save(customer);
+
+        TransactionRequest transactionRequest = new TransactionRequest();
+        transactionRequest.setDescription("Coffee");
+        transactionRequest.setAmount(BigDecimal.valueOf(4.50));
+        transactionRequest.setDate(LocalDate.now());
+        transactionRequest.setCategory("Food");
+        transactionRequest.setType("expense");
+
+        Transaction transaction = new Transaction();
+        transaction.setId(7L);
+        transaction.setDescription("Coffee");
+        transaction.setAmount(BigDecimal.valueOf(4.50));
+        transaction.setDate(LocalDate.now());
+        transaction.setCategory("Food");
+        transaction.setType("expense");
+        transaction.setCustomer(customer);
+        when(transactionService.createTransaction(any(Transaction.class), any(String.class))).thenReturn(transaction);
+
+        String key = UUID.randomUUID().toString();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            mockMvc.perform(post("/api/transactions")
+                    .header(IdempotencyService.HEADER, key)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionRequest))
+                    .with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(7L))
+                    .andExpect(jsonPath("$.description").value("Coffee"));
+        }
+        verify(transactionService, times(1)).createTransaction(any(Transaction.class), any(String.class));
+
+        transactionRequest.setAmount(BigDecimal.valueOf(45.00));
+        mockMvc.perform(post("/api/transactions")
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transactionRequest))
+                .with(csrf()))
+                .andExpect(status().isUnprocessableEntity());
+    }
 }
@@ -1,6 +1,7 @@
 package com.tv.expense_tracker.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
 import com.tv.expense_tracker.models.Customer;
 import com.tv.expense_tracker.repositories.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,30 +33,13 @@ public class UserControllerTest {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private SavingTransactionRepository savingTransactionRepository;
-
-    @Autowired
-    private SavingRepository savingRepository;
-
-    @Autowired
-    private TransactionRepository transactionRepository;
-
-    @Autowired
-    private BillRepository billRepository;
-
-    @Autowired
-    private BudgetRepository budgetRepository;
+    private TestDatabase testDatabase;
 
     private Customer testCustomer;
 
     @BeforeEach
     public void setup() {
-        savingTransactionRepository.deleteAll();
-        savingRepository.deleteAll();
-        transactionRepository.deleteAll();
-        billRepository.deleteAll();
-        budgetRepository.deleteAll();
-        customerRepository.deleteAll();
+        testDatabase.clear();
 
         testCustomer = new Customer();
         testCustomer.setEmail("test@example.com");
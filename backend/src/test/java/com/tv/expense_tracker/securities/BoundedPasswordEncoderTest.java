@@ -0,0 +1,133 @@
+package com.tv.expense_tracker.securities;
+
+import com.tv.expense_tracker.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    @Test
+    public void testRejectsWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking(started, release), 1, 1, 10_000,
+                registry);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (registry.get("auth.password.queued").gauge().value() < 1)
+                Thread.sleep(1);
+
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("c"));
+            assertEquals(1, registry.get("auth.password.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("hashed-a", running.get(5, TimeUnit.SECONDS));
+            assertEquals("hashed-b", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testGivesUpAfterMaxWait() {
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking(new CountDownLatch(1), release), 1, 1,
+                20, registry);
+        try {
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("a", "hashed-a"));
+            assertEquals(1, registry.get("auth.password.rejected").counter().count());
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testArgon2EncoderHashesAndStillVerifiesBcrypt() {
+        String legacy = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("password");
+        BoundedPasswordEncoder encoder = (BoundedPasswordEncoder) new SecurityConfig(null, null)
+                .passwordEncoder(new SimpleMeterRegistry(), "argon2", 4, 1, 4, 10_000);
+        try {
+            String hash = encoder.encode("password");
+            assertTrue(hash.startsWith("{argon2}"));
+            assertTrue(encoder.matches("password", hash));
+            assertTrue(encoder.matches("password", legacy));
+            assertFalse(encoder.matches("wrong", hash));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    /**
+     * BCrypt hashes per second per core at the configured cost, with every core hashing.
+     * Run with {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkHashesPerSecondPerCore() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int strength = Integer.getInteger("bcrypt.strength", 10);
+        // callers never outnumber the queue, so nothing is rejected and the pool stays saturated
+        ExecutorService callers = Executors.newFixedThreadPool(cores * 2);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), cores,
+                cores * 2, 60_000, new SimpleMeterRegistry());
+        try {
+            int hashes = cores * 20;
+            long start = System.nanoTime();
+            List<Future<String>> pending = new ArrayList<>(hashes);
+            for (int i = 0; i < hashes; i++)
+                pending.add(callers.submit(() -> encoder.encode("correct horse battery staple")));
+            for (Future<String> hash : pending)
+                assertNotNull(hash.get());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("bcrypt cost=%d cores=%d hashes/sec=%.1f hashes/sec/core=%.1f%n", strength, cores,
+                    hashes / seconds, hashes / seconds / cores);
+        } finally {
+            callers.shutdownNow();
+            encoder.shutdown();
+        }
+    }
+
+    private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                await(release);
+                return "hashed-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
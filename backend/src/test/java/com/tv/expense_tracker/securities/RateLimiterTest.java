@@ -0,0 +1,90 @@
+package com.tv.expense_tracker.securities;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testBurstThenRefill() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimiter limiter = new RateLimiter(registry, true, new String[] { "POST /api/auth/login ip 3 60" });
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, limiter.acquire("POST", "/api/auth/login", "10.0.0.1", null, now));
+        long wait = limiter.acquire("POST", "/api/auth/login", "10.0.0.1", null, now);
+        assertEquals(SECOND, wait);
+        assertEquals(0, limiter.acquire("POST", "/api/auth/login", "10.0.0.2", null, now));
+        assertEquals(0, limiter.acquire("POST", "/api/auth/login", "10.0.0.1", null, now + wait));
+        assertEquals(1, registry.get("rate_limit.rejected").counter().count());
+    }
+
+    @Test
+    public void testFirstMatchingPolicyAndKeys() {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), true,
+                new String[] { "POST /api/auth/login ip 1 1", "POST|DELETE /api/** customer 1 1" });
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.acquire("POST", "/api/transactions", "10.0.0.1", "a@example.com", now));
+        assertTrue(limiter.acquire("DELETE", "/api/savings/1", "10.0.0.1", "a@example.com", now) > 0);
+        // another user behind the same address has their own bucket
+        assertEquals(0, limiter.acquire("POST", "/api/transactions", "10.0.0.1", "b@example.com", now));
+        // the login policy matches first and is keyed by address only
+        assertEquals(0, limiter.acquire("POST", "/api/auth/login", "10.0.0.1", null, now));
+        assertTrue(limiter.acquire("POST", "/api/auth/login", "10.0.0.1", null, now) > 0);
+        // reads and unmatched paths are not limited
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.acquire("GET", "/api/transactions", "10.0.0.1", "a@example.com", now));
+            assertEquals(0, limiter.acquire("POST", "/actuator/health", "10.0.0.1", null, now));
+        }
+    }
+
+    @Test
+    public void testDisabledAndInvalidPolicies() {
+        RateLimiter disabled = new RateLimiter(new SimpleMeterRegistry(), false,
+                new String[] { "POST /api/** ip 1 1" });
+        for (int i = 0; i < 5; i++)
+            assertEquals(0, disabled.acquire("POST", "/api/transactions", "10.0.0.1", null, 0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimiter(new SimpleMeterRegistry(), true, new String[] { "POST /api/** user 1 1" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimiter(new SimpleMeterRegistry(), true, new String[] { "POST /api/** ip 0 1" }));
+    }
+
+    /**
+     * Cost of one check on a hot bucket and on a spread of keys, from several threads. Run
+     * with {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkAcquire() throws Exception {
+        RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), true, new String[] {
+                "POST /api/auth/login ip 10 10", "POST|PUT|PATCH|DELETE /api/** customer 1000000 1000000" });
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int perThread = 2_000_000;
+        for (int round = 0; round < 2; round++) {
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++)
+                        limiter.acquire("POST", "/api/transactions", "10.0.0." + (i & 255),
+                                (i & 1) == 0 ? "hot@example.com" : "user" + id + "@example.com", System.nanoTime());
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers)
+                worker.join();
+            double nsPerOp = (System.nanoTime() - start) / (double) perThread;
+            System.out.printf("rate limiter round=%d threads=%d ns/op(per thread)=%.0f%n", round, threads, nsPerOp);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tv.expense_tracker.securities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevokedTokenIndexTest {
+
+    @Test
+    public void testRevokedIdsAreFoundAcrossResizes() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String id = UUID.randomUUID().toString();
+            index.revoke(id, 100);
+            revoked.add(id);
+        }
+
+        assertEquals(5000, index.size());
+        for (String id : revoked)
+            assertTrue(index.isRevoked(id));
+        assertTrue(index.isRevoked(revoked.get(0).toUpperCase()));
+        for (int i = 0; i < 5000; i++)
+            assertFalse(index.isRevoked(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    public void testMalformedIdsCountAsRevoked() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+
+        assertTrue(index.isRevoked(null));
+        assertTrue(index.isRevoked("not-a-token-id"));
+        assertTrue(index.isRevoked("00000000-0000-0000-0000-000000000000"));
+        assertTrue(index.isRevoked("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz"));
+        assertThrows(IllegalArgumentException.class, () -> index.revoke("not-a-token-id", 100));
+    }
+
+    @Test
+    public void testPurgeDropsExpiredIds() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        String expired = UUID.randomUUID().toString();
+        String live = UUID.randomUUID().toString();
+        index.revoke(expired, 100);
+        index.revoke(live, 200);
+
+        index.purgeExpired(150);
+
+        assertEquals(1, index.size());
+        assertFalse(index.isRevoked(expired));
+        assertTrue(index.isRevoked(live));
+    }
+}
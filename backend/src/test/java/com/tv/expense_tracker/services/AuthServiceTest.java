@@ -8,12 +8,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,12 +29,15 @@ public class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private RegisteredEmailFilter registeredEmails;
+
     @InjectMocks
     private AuthService authService;
 
     @Test
     public void testSignup_Success() {
-        when(customerRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
+        when(registeredEmails.mightContain("test@example.com")).thenReturn(false);
         when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
         when(customerRepository.save(any(Customer.class))).thenAnswer(i -> i.getArguments()[0]);
 
@@ -40,14 +47,32 @@ public class AuthServiceTest {
         assertEquals("Test User", customer.getFullName());
         assertEquals("test@example.com", customer.getEmail());
         assertEquals("encodedPassword", customer.getPassword());
+        verify(customerRepository, never()).findByEmail(anyString());
+        verify(registeredEmails).put("test@example.com");
     }
 
     @Test
     public void testSignup_EmailAlreadyExists() {
+        when(registeredEmails.mightContain("test@example.com")).thenReturn(true);
+        when(customerRepository.findByEmail("test@example.com")).thenReturn(Optional.of(new Customer()));
+
+        assertThrows(EmailAlreadyExistsException.class, () -> {
+            authService.signup("Test User", "test@example.com", "password");
+        });
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    public void testSignup_ConcurrentDuplicateIsConflict() {
+        when(registeredEmails.mightContain("test@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        when(customerRepository.save(any(Customer.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_customers_email"));
         when(customerRepository.findByEmail("test@example.com")).thenReturn(Optional.of(new Customer()));
 
         assertThrows(EmailAlreadyExistsException.class, () -> {
             authService.signup("Test User", "test@example.com", "password");
         });
+        verify(registeredEmails).put("test@example.com");
     }
 }
@@ -0,0 +1,198 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.BudgetAlert;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "spring.datasource.url=jdbc:h2:mem:budget_alerts;DB_CLOSE_DELAY=-1",
+        "domain-events.enabled=true", "domain-events.poll-interval-ms=50", "domain-events.gap-timeout-ms=200" })
+public class BudgetAlertEngineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BudgetAlertEngine engine;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private BudgetAlertRepository alertRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("alerts@example.com", "password", "Alerts User"));
+    }
+
+    @Test
+    @WithMockUser(username = "alerts@example.com")
+    public void testEachThresholdIsRecordedOnceWhenCrossed() throws Exception {
+        Budget budget = budgetRepository.save(new Budget("food", new BigDecimal("100.00"), "monthly", customer));
+        budgetService.budgetsChanged(customer);
+
+        expense("food", "50.00", LocalDate.now());
+        expense("travel", "500.00", LocalDate.now());
+        // last month's spending does not count towards this period
+        expense("food", "90.00", LocalDate.now().withDayOfMonth(1).minusDays(1));
+        expense("food", "35.00", LocalDate.now());
+        await(() -> alerts().size() == 1);
+        expense("food", "10.00", LocalDate.now());
+        expense("food", "10.00", LocalDate.now());
+        await(() -> alerts().size() == 2);
+
+        List<BudgetAlert> alerts = alerts();
+        assertEquals(100, alerts.get(0).getThreshold());
+        assertEquals(0, new BigDecimal("105.00").compareTo(alerts.get(0).getSpent()));
+        assertEquals(80, alerts.get(1).getThreshold());
+        assertEquals(0, new BigDecimal("85.00").compareTo(alerts.get(1).getSpent()));
+        assertEquals(budget.getId(), alerts.get(1).getBudgetId());
+        assertEquals(LocalDate.now().withDayOfMonth(1), alerts.get(1).getPeriodStart());
+
+        // further spending and a rebuild leave the recorded alerts alone
+        expense("food", "50.00", LocalDate.now());
+        engine.rebuild();
+        budgetService.budgetsChanged(customer);
+        Thread.sleep(300);
+        assertEquals(2, alerts().size());
+
+        mockMvc.perform(get("/api/alerts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].threshold").value(100));
+        mockMvc.perform(get("/api/alerts").param("after", String.valueOf(alerts.get(1).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        // polling pages forward from the cursor, so a burst larger than the page is not skipped
+        mockMvc.perform(get("/api/alerts").param("after", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].threshold").value(80));
+        mockMvc.perform(get("/api/alerts").param("before", String.valueOf(alerts.get(0).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].threshold").value(80));
+        mockMvc.perform(get("/api/alerts").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/alerts").param("after", "0").param("before", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testNewBudgetsAreTrackedAndExistingSpendIsCounted() {
+        expense("travel", "45.00", LocalDate.now());
+        budgetRepository.save(new Budget("travel", new BigDecimal("50.00"), "weekly", customer));
+        budgetService.budgetsChanged(customer);
+
+        await(() -> alerts().size() == 1);
+        assertEquals(80, alerts().get(0).getThreshold());
+        assertEquals(LocalDate.now().with(DayOfWeek.MONDAY), alerts().get(0).getPeriodStart());
+
+        expense("travel", "5.00", LocalDate.now());
+        await(() -> alerts().size() == 2);
+        assertEquals(100, alerts().get(0).getThreshold());
+    }
+
+    @Test
+    public void testExpenseCommittingDuringAReloadIsCountedOnce() throws Exception {
+        budgetRepository.save(new Budget("food", new BigDecimal("100.00"), "monthly", customer));
+        CountDownLatch inserted = new CountDownLatch(1);
+        Thread slow = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            expense("food", "85.00", LocalDate.now());
+            inserted.countDown();
+            try {
+                Thread.sleep(800);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        // reloads the totals while the expense, with a lower outbox id, is still uncommitted
+        budgetService.budgetsChanged(customer);
+        slow.join();
+
+        await(() -> alerts().size() == 1);
+        assertEquals(80, alerts().get(0).getThreshold());
+        assertEquals(0, new BigDecimal("85.00").compareTo(alerts().get(0).getSpent()));
+        expense("food", "10.00", LocalDate.now());
+        Thread.sleep(300);
+        assertEquals(1, alerts().size());
+    }
+
+    private List<BudgetAlert> alerts() {
+        return alertRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(customer.getId(), Long.MAX_VALUE, Limit.of(10));
+    }
+
+    private void expense(String category, String amount, LocalDate date) {
+        Transaction transaction = new Transaction();
+        transaction.setDescription("Spend");
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDate(date);
+        transaction.setCategory(category);
+        transaction.setType("expense");
+        transactionService.createTransaction(transaction, customer.getEmail());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for budget alerts");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+}
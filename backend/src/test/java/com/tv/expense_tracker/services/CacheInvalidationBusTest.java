@@ -0,0 +1,137 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.configs.EntityCacheConfig;
+import com.tv.expense_tracker.models.Budget;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "cache-coherence.flush-interval-ms=3600000",
+        "cache-coherence.max-ids-per-region=50" })
+public class CacheInvalidationBusTest {
+
+    @Autowired
+    private CacheInvalidationBus bus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    private final List<String> otherNode = new CopyOnWriteArrayList<>();
+    private final Consumer<String> otherNodeDelivery = otherNode::add;
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("bus@example.com", "password", "Bus User"));
+        bus.flush();
+        CacheInvalidationBus.LOCAL_NODES.add(otherNodeDelivery);
+    }
+
+    @AfterEach
+    public void teardown() {
+        CacheInvalidationBus.LOCAL_NODES.remove(otherNodeDelivery);
+    }
+
+    @Test
+    public void testCommittedWritesAreCoalescedIntoOneMessage() {
+        Budget budget = budgetRepository.save(new Budget("food", new BigDecimal("100.00"), "monthly", customer));
+        for (int i = 0; i < 3; i++) {
+            budget.setBudgetLimit(new BigDecimal(200 + i));
+            budget = budgetRepository.save(budget);
+        }
+        Saving saving = saving("10.00");
+        assertTrue(otherNode.isEmpty());
+
+        bus.flush();
+
+        assertEquals(List.of(bus.nodeId() + " budgets:" + budget.getId() + " savings:" + saving.getId()), otherNode);
+    }
+
+    @Test
+    public void testMessagesFromOtherNodesEvictStaleEntries() {
+        Saving saving = saving("10.00");
+        savingRepository.findById(saving.getId()).orElseThrow();
+        // another node writes the row; this node still serves its cached copy
+        jdbcTemplate.update("update savings set balance = 99 where id = ?", saving.getId());
+        assertEquals(0, new BigDecimal("10.00").compareTo(balanceOf(saving)));
+
+        bus.receive(bus.nodeId() + " savings:" + saving.getId());
+        assertEquals(0, new BigDecimal("10.00").compareTo(balanceOf(saving)));
+
+        bus.receive("other-node budgets:1 savings:" + saving.getId());
+        assertEquals(0, new BigDecimal("99").compareTo(balanceOf(saving)));
+    }
+
+    @Test
+    public void testBulkDeletesArePublishedExplicitly() {
+        Budget budget = budgetRepository.save(new Budget("food", new BigDecimal("100.00"), "monthly", customer));
+        bus.flush();
+        otherNode.clear();
+
+        budgetRepository.deleteByIdAndCustomerId(budget.getId(), customer.getId());
+        bus.publish(EntityCacheConfig.BUDGETS, List.of(budget.getId()));
+        bus.publish("unknown-region", List.of(1L));
+        bus.flush();
+
+        assertEquals(List.of(bus.nodeId() + " budgets:" + budget.getId()), otherNode);
+    }
+
+    @Test
+    public void testEncodeCollapsesLargeRegionsAndSplitsLongMessages() {
+        Set<Long> many = new TreeSet<>();
+        LongStream.rangeClosed(1, 51).forEach(many::add);
+        assertEquals(List.of("n budgets:1,2 savings:*"),
+                CacheInvalidationBus.encode("n", Map.of("savings", many, "budgets", Set.of(2L, 1L)), 50, 100));
+
+        assertEquals(List.of("n savings:1000,2000", "n savings:3000"),
+                CacheInvalidationBus.encode("n", Map.of("savings", Set.of(1000L, 2000L, 3000L)), 50, 21));
+    }
+
+    private Saving saving(String balance) {
+        Saving saving = new Saving();
+        saving.setName("Savings");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal(balance));
+        saving.setCustomer(customer);
+        return savingRepository.save(saving);
+    }
+
+    private BigDecimal balanceOf(Saving saving) {
+        return savingRepository.findById(saving.getId()).orElseThrow().getBalance();
+    }
+}
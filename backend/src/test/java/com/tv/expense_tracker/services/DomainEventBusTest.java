@@ -0,0 +1,278 @@
+package com.tv.expense_tracker.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.OutboxOffset;
+import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.repositories.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "spring.datasource.url=jdbc:h2:mem:domain_events;DB_CLOSE_DELAY=-1",
+        "domain-events.enabled=true", "domain-events.poll-interval-ms=50", "domain-events.gap-timeout-ms=200",
+        "domain-events.retry-backoff-ms=50", "domain-events.max-attempts=3", "domain-events.lease-ms=1000" })
+public class DomainEventBusTest {
+
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        public Recorder recorder() {
+            return new Recorder("test-recorder");
+        }
+    }
+
+    @Autowired
+    private DomainEventBus bus;
+
+    @Autowired
+    private Recorder recorder;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OutboxEventRepository outboxRepository;
+
+    @Autowired
+    private OutboxOffsetRepository offsetRepository;
+
+    @Autowired
+    private OutboxLeaseRepository leaseRepository;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("events@example.com", "password", "Events User"));
+        recorder.events.clear();
+        recorder.failuresLeft.set(0);
+        recorder.poisoned.clear();
+    }
+
+    @Test
+    public void testCommittedWritesReachConsumerInOrder() {
+        for (int i = 1; i <= 5; i++)
+            transactionService.createTransaction(expense(i + ".10"), customer.getEmail());
+
+        await(() -> recorder.events.size() == 5);
+        List<DomainEvent> events = List.copyOf(recorder.events);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(DomainEvent.TRANSACTION_CREATED, events.get(i).type());
+            assertEquals(customer.getId(), events.get(i).customerId());
+            assertEquals(new BigDecimal((i + 1) + ".10"), events.get(i).decimal("amount"));
+            assertEquals(LocalDate.of(2026, 3, 1), events.get(i).date("date"));
+            if (i > 0)
+                assertTrue(events.get(i).id() > events.get(i - 1).id());
+        }
+        long last = events.get(4).id();
+        await(() -> offsetRepository.findById("test-recorder").orElseThrow().getLastEventId() >= last);
+        await(() -> meterRegistry.get("domain_events.lag").tag("consumer", "test-recorder").gauge().value() == 0);
+    }
+
+    @Test
+    public void testRolledBackEventsAreNeverDelivered() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 1L, "amount", new BigDecimal("1.00"));
+            status.setRollbackOnly();
+        });
+        bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 2L, "amount", new BigDecimal("2.00"));
+
+        // dispatch waits out the gap the rolled-back id left, then continues
+        await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 2L));
+        assertTrue(recorder.events.stream().noneMatch(e -> e.aggregateId() == 1L));
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedAndUnacceptedEventsAreSkipped() {
+        double failuresBefore = meterRegistry.get("domain_events.failures").tag("consumer", "test-recorder")
+                .counter().count();
+        recorder.failuresLeft.set(2);
+        bus.publish(DomainEvent.BILL_PAID, customer.getId(), 7L, "amount", new BigDecimal("9.99"));
+        bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 8L, "amount", new BigDecimal("3.00"));
+
+        await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 8L));
+        assertTrue(recorder.events.stream().noneMatch(e -> DomainEvent.BILL_PAID.equals(e.type())));
+        assertEquals(failuresBefore + 2, meterRegistry.get("domain_events.failures").tag("consumer", "test-recorder")
+                .counter().count());
+    }
+
+    @Test
+    public void testTransactionCommittingAfterTheGapTimeoutIsDeliveredLate() throws Exception {
+        AtomicLong slowId = new AtomicLong();
+        CountDownLatch inserted = new CountDownLatch(1);
+        Thread slow = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 20L, "amount", new BigDecimal("1.00"));
+            slowId.set(outboxRepository.findMaxId());
+            inserted.countDown();
+            try {
+                // e.g. waiting on a customer row lock, well past gap-timeout-ms
+                Thread.sleep(800);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        slow.start();
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 21L, "amount", new BigDecimal("1.00"));
+
+        await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 21L));
+        DomainEvent after = recorder.events.stream().filter(e -> e.aggregateId() == 21L).findFirst().orElseThrow();
+        assertTrue(recorder.events.stream().noneMatch(e -> e.aggregateId() == 20L));
+        // the stored offset stays below the outstanding id, so a restart would still see it
+        assertTrue(after.committedUpTo() < slowId.get());
+        await(() -> offsetRepository.findById("test-recorder").orElseThrow().getLastEventId() == after
+                .committedUpTo());
+
+        slow.join();
+        await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 20L));
+        DomainEvent late = recorder.events.stream().filter(e -> e.aggregateId() == 20L).findFirst().orElseThrow();
+        assertEquals(slowId.get(), late.id());
+        assertTrue(late.committedUpTo() >= after.id());
+    }
+
+    @Test
+    public void testEventThatKeepsFailingIsSkippedAfterMaxAttempts() {
+        double skippedBefore = meterRegistry.get("domain_events.skipped").tag("consumer", "test-recorder")
+                .counter().count();
+        recorder.poisoned.add(30L);
+        bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 30L, "amount", new BigDecimal("1.00"));
+        bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 31L, "amount", new BigDecimal("1.00"));
+
+        await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 31L));
+        assertTrue(recorder.events.stream().noneMatch(e -> e.aggregateId() == 30L));
+        assertEquals(skippedBefore + 1, meterRegistry.get("domain_events.skipped").tag("consumer", "test-recorder")
+                .counter().count());
+    }
+
+    @Test
+    public void testStandbyNodeTakesOverFromStoredOffsets() throws Exception {
+        Recorder replayed = new Recorder("replayed");
+        DomainEventBus standby = new DomainEventBus(outboxRepository, offsetRepository, leaseRepository,
+                new StaticListableBeanFactory(Map.of("replayed", replayed)).getBeanProvider(DomainEventConsumer.class),
+                shardDirectory, objectMapper, new SimpleMeterRegistry(), true, 16, 10, 50, 200, 60_000, 50, 3, 168,
+                1000);
+        try {
+            standby.start();
+            bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 10L, "amount", new BigDecimal("1.00"));
+            await(() -> recorder.events.stream().anyMatch(e -> e.aggregateId() == 10L));
+            // the standby waits while this node holds the lease
+            Thread.sleep(500);
+            assertTrue(replayed.events.isEmpty());
+
+            long offset = outboxRepository.findMaxId();
+            bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 11L, "amount", new BigDecimal("1.00"));
+            bus.publish(DomainEvent.SAVING_DEPOSITED, customer.getId(), 12L, "amount", new BigDecimal("1.00"));
+            // as if the consumer had handled event 10 during an earlier turn of the standby
+            offsetRepository.save(new OutboxOffset("replayed", offset));
+            bus.shutdown();
+
+            await(() -> replayed.events.size() == 2);
+            assertEquals(List.of(11L, 12L), replayed.events.stream().map(DomainEvent::aggregateId).toList());
+        } finally {
+            standby.shutdown();
+            bus.start();
+            offsetRepository.deleteById("replayed");
+        }
+    }
+
+    private Transaction expense(String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setDescription("Lunch");
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDate(LocalDate.of(2026, 3, 1));
+        transaction.setCategory("food");
+        transaction.setType("expense");
+        return transaction;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for event delivery");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+
+    static class Recorder implements DomainEventConsumer {
+        private final String name;
+        final List<DomainEvent> events = new CopyOnWriteArrayList<>();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final Set<Long> poisoned = ConcurrentHashMap.newKeySet();
+
+        Recorder(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean accepts(String type) {
+            return !DomainEvent.BILL_PAID.equals(type);
+        }
+
+        @Override
+        public void handle(List<DomainEvent> batch) {
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+                throw new IllegalStateException("consumer unavailable");
+            if (batch.stream().anyMatch(event -> poisoned.contains(event.aggregateId())))
+                throw new IllegalArgumentException("cannot handle this event");
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.InterestAccrualCheckpoint;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.models.SavingTransaction;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "savings.interest.accrual-chunk-size=2")
+public class InterestAccrualServiceTest {
+
+    @Autowired
+    private InterestAccrualService accrualService;
+
+    @Autowired
+    private InterestAccrualCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private SavingTransactionRepository savingTransactionRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("test@example.com", "password", "Test User"));
+    }
+
+    @Test
+    public void testAccruesEachSavingOncePerDate() {
+        Saving a = saving("36500.00", "1.00");
+        Saving b = saving("1000.00", "4.50");
+        Saving c = saving("500.00", "5.00");
+        Saving noRate = saving("800.00", null);
+        LocalDate date = LocalDate.of(2026, 1, 15);
+
+        assertEquals(3, accrualService.accrue(date));
+        assertEquals(0, accrualService.accrue(date));
+
+        assertEquals(new BigDecimal("36501.00"), balanceOf(a));
+        assertEquals(new BigDecimal("1000.12"), balanceOf(b));
+        assertEquals(new BigDecimal("500.07"), balanceOf(c));
+        assertEquals(new BigDecimal("800.00"), balanceOf(noRate));
+
+        List<SavingTransaction> ledger = savingTransactionRepository.findAll();
+        assertEquals(3, ledger.size());
+        assertTrue(ledger.stream().allMatch(t -> "interest".equals(t.getType())));
+
+        InterestAccrualCheckpoint checkpoint = checkpointRepository.findById(date).orElseThrow();
+        assertTrue(checkpoint.isCompleted());
+        assertEquals(3, checkpoint.getAccountsAccrued());
+    }
+
+    @Test
+    public void testResumesAfterLastCommittedChunk() {
+        Saving a = saving("1000.00", "3.65");
+        Saving b = saving("2000.00", "3.65");
+        LocalDate date = LocalDate.of(2026, 1, 16);
+        InterestAccrualCheckpoint checkpoint = new InterestAccrualCheckpoint(date);
+        checkpoint.setLastSavingId(a.getId());
+        checkpointRepository.save(checkpoint);
+
+        assertEquals(1, accrualService.accrue(date));
+
+        assertEquals(new BigDecimal("1000.00"), balanceOf(a));
+        assertEquals(new BigDecimal("2000.20"), balanceOf(b));
+    }
+
+    private Saving saving(String balance, String rate) {
+        Saving saving = new Saving();
+        saving.setName("Savings");
+        saving.setAccountType("hysa");
+        saving.setBalance(new BigDecimal(balance));
+        saving.setInterestRate(rate == null ? null : new BigDecimal(rate));
+        saving.setCustomer(customer);
+        return savingRepository.save(saving);
+    }
+
+    private BigDecimal balanceOf(Saving saving) {
+        return savingRepository.findById(saving.getId()).orElseThrow().getBalance().setScale(2);
+    }
+}
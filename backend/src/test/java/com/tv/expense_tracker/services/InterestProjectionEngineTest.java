@@ -0,0 +1,72 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry;
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestProjectionEngineTest {
+
+    private static final BigDecimal BALANCE = new BigDecimal("10000.00");
+    private static final BigDecimal RATE = new BigDecimal("4.50");
+
+    private InterestProjectionEngine engine;
+
+    @BeforeEach
+    public void setup() {
+        engine = new InterestProjectionEngine(360, 1200, 16, new SingleFlight(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testProjectRejectsUnboundedHorizon() {
+        assertThrows(IllegalArgumentException.class, () -> engine.project(1L, BALANCE, RATE, 0));
+        assertThrows(IllegalArgumentException.class, () -> engine.project(1L, BALANCE, RATE, 361));
+        assertThrows(IllegalArgumentException.class, () -> engine.stream(BALANCE, RATE, 10_000_000));
+        assertThrows(IllegalArgumentException.class, () -> engine.summarize(BALANCE, RATE, 1201));
+    }
+
+    @Test
+    public void testProjectIsCachedUntilInvalidated() {
+        List<InterestProjectionEntry> first = engine.project(1L, BALANCE, RATE, 24);
+        assertSame(first, engine.project(1L, new BigDecimal("10000.0"), RATE, 24));
+        assertNotSame(first, engine.project(1L, new BigDecimal("10001.00"), RATE, 24));
+
+        engine.invalidate(1L);
+        List<InterestProjectionEntry> recomputed = engine.project(1L, BALANCE, RATE, 24);
+        assertNotSame(first, recomputed);
+        assertEquals(first, recomputed);
+    }
+
+    @Test
+    public void testStreamMatchesMaterializedProjection() {
+        List<InterestProjectionEntry> listed = engine.project(1L, BALANCE, RATE, 120);
+        List<InterestProjectionEntry> streamed = engine.stream(BALANCE, RATE, 120).toList();
+
+        assertEquals(listed, streamed);
+    }
+
+    @Test
+    public void testSummaryMatchesWalkWithinRounding() {
+        List<InterestProjectionEntry> listed = engine.project(1L, BALANCE, RATE, 360);
+        InterestProjectionSummary summary = engine.summarize(BALANCE, RATE, 360);
+
+        BigDecimal walked = listed.get(listed.size() - 1).getBalance();
+        assertTrue(walked.subtract(summary.getFinalBalance()).abs().compareTo(BigDecimal.ONE) < 0,
+                "closed form " + summary.getFinalBalance() + " vs walk " + walked);
+        assertEquals(summary.getFinalBalance().subtract(BALANCE), summary.getTotalInterest());
+    }
+
+    @Test
+    public void testNullRateProjectsNoInterest() {
+        InterestProjectionSummary summary = engine.summarize(BALANCE, null, 12);
+
+        assertEquals(0, summary.getTotalInterest().signum());
+        assertEquals(0, engine.project(2L, BALANCE, null, 12).get(11).getBalance().compareTo(BALANCE));
+    }
+}
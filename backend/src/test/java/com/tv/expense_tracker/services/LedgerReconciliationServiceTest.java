@@ -0,0 +1,113 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.controllers.dtos.SavingRequest;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.ReconciliationMismatch;
+import com.tv.expense_tracker.models.ReconciliationRun;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "savings.reconciliation.shard-size=2", "savings.reconciliation.parallelism=2" })
+public class LedgerReconciliationServiceTest {
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private ReconciliationMismatchRepository mismatchRepository;
+
+    @Autowired
+    private SavingService savingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("test@example.com", "password", "Test User"));
+    }
+
+    @Test
+    public void testReportsSavingsWhoseBalanceDriftedFromLedger() {
+        for (int i = 0; i < 4; i++) {
+            Long id = create("100.00");
+            savingService.depositToSaving(savingRepository.findById(id).orElseThrow(), new BigDecimal("25.00"), null);
+        }
+        Long drifted = create("300.00");
+        jdbcTemplate.update("update savings set balance = balance + 1 where id = ?", drifted);
+        Saving legacy = new Saving();
+        legacy.setName("Legacy");
+        legacy.setAccountType("other");
+        legacy.setBalance(new BigDecimal("50.00"));
+        legacy.setCustomer(customer);
+        legacy = savingRepository.save(legacy);
+
+        ReconciliationRun run = reconciliationService.reconcile();
+
+        assertEquals(6, run.getAccountsChecked());
+        assertEquals(3, run.getShards());
+        assertEquals(1, run.getMismatches());
+        List<ReconciliationMismatch> mismatches = mismatchRepository.findByRunIdAndCustomerId(run.getId(),
+                customer.getId());
+        assertEquals(List.of(drifted), mismatches.stream().map(ReconciliationMismatch::getSavingId).toList());
+        assertEquals(0, new BigDecimal("301.00").compareTo(mismatches.get(0).getStoredBalance()));
+        assertEquals(0, new BigDecimal("300.00").compareTo(mismatches.get(0).getLedgerBalance()));
+        assertEquals(run.getId(), reconciliationService.latestRun().getId());
+    }
+
+    @Test
+    public void testLegacySavingsGetOneBaselineBeforeTheyAreChecked() {
+        Saving legacy = new Saving();
+        legacy.setName("Legacy");
+        legacy.setAccountType("other");
+        legacy.setBalance(new BigDecimal("50.00"));
+        legacy.setCustomer(customer);
+        legacy = savingRepository.save(legacy);
+        jdbcTemplate.update("insert into saving_transactions (saving_id, type, amount, created_at) "
+                + "values (?, 'deposit', 20.00, current_timestamp)", legacy.getId());
+
+        assertEquals(0, reconciliationService.reconcile().getMismatches());
+        assertEquals(0, reconciliationService.reconcile().getMismatches());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from saving_balance_snapshots where saving_id = ?", Integer.class, legacy.getId()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(jdbcTemplate.queryForObject(
+                "select balance from saving_balance_snapshots where saving_id = ?", BigDecimal.class,
+                legacy.getId())));
+    }
+
+    private Long create(String balance) {
+        SavingRequest request = new SavingRequest();
+        request.setAccountName("Savings");
+        request.setAccountType("hysa");
+        request.setBalance(new BigDecimal(balance));
+        return savingService.createForCustomer(customer, request).getId();
+    }
+}
@@ -0,0 +1,208 @@
+package com.tv.expense_tracker.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.controllers.dtos.NetWorthPoint;
+import com.tv.expense_tracker.controllers.dtos.SavingRequest;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.models.Transaction;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "spring.datasource.url=jdbc:h2:mem:net_worth;DB_CLOSE_DELAY=-1",
+        "domain-events.enabled=true", "domain-events.poll-interval-ms=50", "domain-events.gap-timeout-ms=200" })
+public class NetWorthServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NetWorthService netWorthService;
+
+    @Autowired
+    private SavingService savingService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private InterestAccrualService accrualService;
+
+    @Autowired
+    private NetWorthDayRepository netWorthDayRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Customer customer;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("test@example.com", "password", "Test User"));
+    }
+
+    @Test
+    public void testBackfillOnFirstReadThenIncrementalUpdates() {
+        Saving saving = createSaving("100.00");
+        record("income", "1000.00", today.minusDays(10));
+        record("expense", "200.00", today.minusDays(5));
+        assertFalse(netWorthDayRepository.existsByCustomerId(customer.getId()));
+
+        List<NetWorthPoint> series = netWorthService.series(customer.getId(), today.minusDays(11), today);
+        assertEquals(12, series.size());
+        assertPoint(series.get(0), "0.00", "0.00");
+        assertPoint(series.get(1), "0.00", "1000.00");
+        assertPoint(series.get(6), "0.00", "800.00");
+        assertPoint(series.get(11), "100.00", "800.00");
+
+        savingService.depositToSaving(savingRepository.findById(saving.getId()).orElseThrow(),
+                new BigDecimal("50.00"), null);
+        record("expense", "100.00", today.minusDays(7));
+        await(() -> netWorthOn(today).compareTo(new BigDecimal("850.00")) == 0);
+
+        series = netWorthService.series(customer.getId(), today.minusDays(11), today);
+        assertPoint(series.get(1), "0.00", "1000.00");
+        assertPoint(series.get(4), "0.00", "900.00");
+        assertPoint(series.get(6), "0.00", "700.00");
+        assertPoint(series.get(11), "150.00", "700.00");
+        assertAmount("850.00", series.get(11).getNetWorth());
+
+        // the incrementally maintained series matches a full rebuild
+        netWorthService.backfill(customer.getId());
+        assertEquals(series, netWorthService.series(customer.getId(), today.minusDays(11), today));
+    }
+
+    @Test
+    public void testDeletingSavingRemovesItsBalance() {
+        Saving saving = createSaving("250.00");
+        Timestamp opened = Timestamp.valueOf(today.minusDays(5).atTime(12, 0));
+        jdbcTemplate.update("update savings set created_at = ? where id = ?", opened, saving.getId());
+        jdbcTemplate.update("update saving_transactions set created_at = ? where saving_id = ?", opened,
+                saving.getId());
+        record("income", "40.00", today.minusDays(3));
+        assertPoint(netWorthService.series(customer.getId(), today.minusDays(5), today).get(1), "250.00", "0.00");
+
+        savingService.deleteForCustomer(saving.getId(), customer);
+        await(() -> netWorthOn(today).compareTo(new BigDecimal("40.00")) == 0);
+
+        // the saving's earlier days go too, matching what a back-fill produces
+        List<NetWorthPoint> series = netWorthService.series(customer.getId(), today.minusDays(5), today);
+        assertPoint(series.get(1), "0.00", "0.00");
+        assertPoint(series.get(5), "0.00", "40.00");
+        netWorthService.backfill(customer.getId());
+        assertEquals(series, netWorthService.series(customer.getId(), today.minusDays(5), today));
+    }
+
+    @Test
+    public void testAccruedInterestLandsOnTheDayABackfillCountsIt() {
+        Saving saving = createSaving("36500.00");
+        jdbcTemplate.update("update savings set interest_rate = 10 where id = ?", saving.getId());
+        netWorthService.series(customer.getId(), today.minusDays(1), today);
+
+        accrualService.accrue(today.minusDays(1));
+        await(() -> netWorthOn(today).compareTo(new BigDecimal("36510.00")) == 0);
+
+        List<NetWorthPoint> series = netWorthService.series(customer.getId(), today.minusDays(1), today);
+        assertPoint(series.get(1), "36510.00", "0.00");
+        netWorthService.backfill(customer.getId());
+        assertEquals(series, netWorthService.series(customer.getId(), today.minusDays(1), today));
+    }
+
+    @Test
+    public void testRedeliveredEventIsNotCountedTwice() throws Exception {
+        netWorthService.series(customer.getId(), today, today);
+        record("income", "10.00", today);
+        await(() -> netWorthOn(today).compareTo(new BigDecimal("10.00")) == 0);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("select * from outbox_events where customer_id = ? "
+                + "and type = ? order by id desc limit 1", customer.getId(), DomainEvent.TRANSACTION_CREATED);
+        long id = ((Number) row.get("id")).longValue();
+        netWorthService.handle(List.of(new DomainEvent(id, 0, DomainEvent.TRANSACTION_CREATED, customer.getId(),
+                ((Number) row.get("aggregate_id")).longValue(), objectMapper.readTree((String) row.get("payload")),
+                Instant.now(), id)));
+
+        assertAmount("10.00", netWorthOn(today));
+    }
+
+    @Test
+    public void testRejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> netWorthService.series(customer.getId(), today, today.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> netWorthService.series(customer.getId(), today.minusYears(20), today));
+    }
+
+    private Saving createSaving(String balance) {
+        SavingRequest request = new SavingRequest();
+        request.setAccountName("Savings");
+        request.setAccountType("hysa");
+        request.setBalance(new BigDecimal(balance));
+        return savingRepository.findById(savingService.createForCustomer(customer, request).getId()).orElseThrow();
+    }
+
+    private void record(String type, String amount, LocalDate date) {
+        Transaction transaction = new Transaction();
+        transaction.setDescription(type);
+        transaction.setCategory("general");
+        transaction.setType(type);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setDate(date);
+        transactionService.createTransaction(transaction, customer.getEmail());
+    }
+
+    private BigDecimal netWorthOn(LocalDate day) {
+        return netWorthService.series(customer.getId(), day, day).get(0).getNetWorth();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for net worth events");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+
+    private static void assertPoint(NetWorthPoint point, String savings, String cash) {
+        assertAmount(savings, point.getSavings());
+        assertAmount(cash, point.getCash());
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}
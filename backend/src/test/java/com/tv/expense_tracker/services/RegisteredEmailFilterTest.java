@@ -0,0 +1,38 @@
+package com.tv.expense_tracker.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class RegisteredEmailFilterTest {
+
+    @Test
+    public void testEverythingMightBeRegisteredUntilWarmed() {
+        RegisteredEmailFilter filter = new RegisteredEmailFilter(mock(JdbcTemplate.class), new SimpleMeterRegistry(),
+                1000, 0.01);
+
+        assertTrue(filter.mightContain("new@example.com"));
+        filter.warm();
+        assertFalse(filter.mightContain("new@example.com"));
+    }
+
+    @Test
+    public void testNoFalseNegativesAndFewFalsePositives() {
+        RegisteredEmailFilter filter = new RegisteredEmailFilter(mock(JdbcTemplate.class), new SimpleMeterRegistry(),
+                10_000, 0.01);
+        filter.warm();
+        for (int i = 0; i < 10_000; i++)
+            filter.put("user" + i + "@example.com");
+
+        for (int i = 0; i < 10_000; i++)
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++)
+            if (filter.mightContain("other" + i + "@example.com"))
+                falsePositives++;
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
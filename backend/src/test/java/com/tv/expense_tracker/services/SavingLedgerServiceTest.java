@@ -0,0 +1,148 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.TestDatabase;
+import com.tv.expense_tracker.controllers.dtos.BalancePoint;
+import com.tv.expense_tracker.controllers.dtos.SavingRequest;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "savings.ledger.event-sourced=true", "savings.ledger.snapshot-every=3" })
+public class SavingLedgerServiceTest {
+
+    @Autowired
+    private SavingService savingService;
+
+    @Autowired
+    private SavingLedgerService ledgerService;
+
+    @Autowired
+    private SavingBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SavingRepository savingRepository;
+
+    @Autowired
+    private SavingTransactionRepository savingTransactionRepository;
+
+    @Autowired
+    private TestDatabase testDatabase;
+
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        testDatabase.clear();
+        customer = customerRepository.save(new Customer("test@example.com", "password", "Test User"));
+    }
+
+    @Test
+    public void testBalanceDerivedFromSnapshotsAndLedger() throws Exception {
+        Saving saving = create("100.00");
+        Instant beforeDeposits = tick();
+        savingService.depositToSaving(load(saving), new BigDecimal("50.00"), null);
+        Instant afterFirstDeposit = tick();
+        for (int i = 0; i < 3; i++)
+            savingService.depositToSaving(load(saving), new BigDecimal("50.00"), null);
+        savingService.withdrawFromSaving(load(saving), new BigDecimal("30.00"), null);
+
+        assertTrue(snapshotRepository.existsBySavingId(saving.getId()));
+        assertAmount("270.00", ledgerService.balanceAsOf(saving.getId(), Instant.now()));
+        assertAmount("270.00", load(saving).getBalance());
+        assertAmount("100.00", ledgerService.balanceAsOf(saving.getId(), beforeDeposits));
+        assertAmount("150.00", ledgerService.balanceAsOf(saving.getId(), afterFirstDeposit));
+        assertAmount("0.00", ledgerService.balanceAsOf(saving.getId(), Instant.EPOCH));
+
+        List<BalancePoint> history = ledgerService.dailyBalances(saving.getId(), LocalDate.now().minusDays(2),
+                LocalDate.now(), ZoneId.systemDefault());
+        assertEquals(3, history.size());
+        assertAmount("0.00", history.get(0).getBalance());
+        assertAmount("270.00", history.get(2).getBalance());
+    }
+
+    @Test
+    public void testChangesApplyToLedgerBalanceNotStaleEntity() {
+        Saving saving = create("100.00");
+        Saving first = load(saving);
+        Saving second = load(saving);
+
+        savingService.depositToSaving(first, new BigDecimal("10.00"), null);
+        savingService.depositToSaving(second, new BigDecimal("10.00"), null);
+
+        assertAmount("120.00", load(saving).getBalance());
+    }
+
+    @Test
+    public void testEditsAreRecordedAsAdjustments() {
+        Saving saving = create("100.00");
+        SavingRequest edit = new SavingRequest();
+        edit.setAccountName("Renamed");
+        edit.setAccountType("hysa");
+        edit.setBalance(new BigDecimal("80.00"));
+        savingService.updateForCustomer(load(saving), edit);
+
+        assertAmount("80.00", ledgerService.balanceAsOf(saving.getId(), Instant.now()));
+        assertTrue(savingTransactionRepository.existsBySavingIdAndType(saving.getId(), SavingLedgerService.ADJUSTMENT));
+    }
+
+    @Test
+    public void testLegacySavingGetsBaselineSnapshot() {
+        Saving legacy = new Saving();
+        legacy.setName("Legacy");
+        legacy.setAccountType("hysa");
+        legacy.setBalance(new BigDecimal("500.00"));
+        legacy.setCustomer(customer);
+        legacy = savingRepository.save(legacy);
+
+        savingService.depositToSaving(load(legacy), new BigDecimal("10.00"), null);
+
+        assertAmount("510.00", ledgerService.balanceAsOf(legacy.getId(), Instant.now()));
+        assertAmount("510.00", load(legacy).getBalance());
+    }
+
+    private Saving create(String balance) {
+        SavingRequest request = new SavingRequest();
+        request.setAccountName("Savings");
+        request.setAccountType("hysa");
+        request.setBalance(new BigDecimal(balance));
+        return load(savingService.createForCustomer(customer, request).getId());
+    }
+
+    private Saving load(Saving saving) {
+        return load(saving.getId());
+    }
+
+    private Saving load(Long id) {
+        return savingRepository.findById(id).orElseThrow();
+    }
+
+    private static Instant tick() throws InterruptedException {
+        Thread.sleep(5);
+        Instant now = Instant.now();
+        Thread.sleep(5);
+        return now;
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "expected " + expected + " but was " + actual);
+    }
+}
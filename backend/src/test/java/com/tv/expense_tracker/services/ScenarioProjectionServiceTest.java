@@ -0,0 +1,115 @@
+package com.tv.expense_tracker.services;
+
+import com.tv.expense_tracker.controllers.dtos.InterestProjectionEntry;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionRequest;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionRequest.Scenario;
+import com.tv.expense_tracker.controllers.dtos.ScenarioProjectionResult;
+import com.tv.expense_tracker.models.Customer;
+import com.tv.expense_tracker.models.Saving;
+import com.tv.expense_tracker.repositories.SavingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ScenarioProjectionServiceTest {
+
+    @Mock
+    private SavingRepository savingRepository;
+
+    private ScenarioProjectionService service;
+    private Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        service = new ScenarioProjectionService(savingRepository, 360, 200, 2);
+        customer = new Customer(1L, "test@example.com", "password", "Test User");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testFixedPointMatchesBigDecimalProjection() {
+        Saving saving = saving(10L, "12345.67", "4.35");
+        when(savingRepository.findByIdInAndCustomerId(any(), eq(1L))).thenReturn(List.of(saving));
+
+        ScenarioProjectionResult result = service.project(customer, request(List.of(10L), scenario(null, null, 360)))
+                .get(0);
+
+        InterestProjectionEngine engine = new InterestProjectionEngine(360, 1200, 16,
+                new SingleFlight(new SimpleMeterRegistry()));
+        List<InterestProjectionEntry> expected = engine.project(10L, saving.getBalance(), saving.getInterestRate(), 360);
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals(0, expected.get(i).getBalance().compareTo(result.getBalances().get(i)), "month " + i);
+    }
+
+    @Test
+    public void testBatchEvaluatesEverySavingAndScenario() {
+        when(savingRepository.findByIdInAndCustomerId(any(), eq(1L)))
+                .thenReturn(List.of(saving(10L, "1000.00", "0"), saving(11L, "500.00", "5.00")));
+
+        List<ScenarioProjectionResult> results = service.project(customer, request(List.of(10L, 11L),
+                scenario("base", null, 12), scenario("save more", new BigDecimal("100.00"), 12)));
+
+        assertEquals(4, results.size());
+        ScenarioProjectionResult saveMore = results.get(1);
+        assertEquals(10L, saveMore.getSavingId());
+        assertEquals("save more", saveMore.getScenario());
+        assertEquals(new BigDecimal("2200.00"), saveMore.getFinalBalance());
+        assertEquals(new BigDecimal("1200.00"), saveMore.getTotalContributions());
+        assertEquals(0, saveMore.getTotalInterest().signum());
+        assertEquals(11L, results.get(2).getSavingId());
+        assertTrue(results.get(2).getTotalInterest().signum() > 0);
+    }
+
+    @Test
+    public void testRejectsForeignSavingAndOversizedHorizon() {
+        when(savingRepository.findByIdInAndCustomerId(any(), eq(1L))).thenReturn(List.of());
+
+        assertThrows(NoSuchElementException.class,
+                () -> service.project(customer, request(List.of(99L), scenario(null, null, 12))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.project(customer, request(List.of(10L), scenario(null, null, 361))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.project(customer, request(List.of(10L), scenario(null, new BigDecimal("-1"), 12))));
+    }
+
+    private static Saving saving(Long id, String balance, String rate) {
+        Saving saving = new Saving();
+        saving.setId(id);
+        saving.setBalance(new BigDecimal(balance));
+        saving.setInterestRate(new BigDecimal(rate));
+        return saving;
+    }
+
+    private static Scenario scenario(String name, BigDecimal contribution, int months) {
+        Scenario scenario = new Scenario();
+        scenario.setName(name);
+        scenario.setMonthlyContribution(contribution);
+        scenario.setMonths(months);
+        return scenario;
+    }
+
+    private static ScenarioProjectionRequest request(List<Long> savingIds, Scenario... scenarios) {
+        ScenarioProjectionRequest request = new ScenarioProjectionRequest();
+        request.setSavingIds(savingIds);
+        request.setScenarios(List.of(scenarios));
+        return request;
+    }
+}
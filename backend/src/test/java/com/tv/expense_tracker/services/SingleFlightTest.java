@@ -0,0 +1,117 @@
+package com.tv.expense_tracker.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry);
+    }
+
+    @Test
+    public void testConcurrentCallsShareOneComputation() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(pool.submit(() -> singleFlight.execute("test", 1L, () -> {
+                runs.incrementAndGet();
+                await(release);
+                return 42;
+            })));
+            // wait for the leader to be in flight before the followers arrive
+            while (coalesced() + leader() < 1)
+                Thread.onSpinWait();
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> singleFlight.execute("test", 1L, () -> {
+                    runs.incrementAndGet();
+                    return -1;
+                })));
+            }
+            while (coalesced() < 3)
+                Thread.onSpinWait();
+            release.countDown();
+
+            for (Future<Integer> result : results)
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+            assertEquals(1.0, leader());
+            assertEquals(3.0, coalesced());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletedComputationIsNotCached() {
+        AtomicInteger runs = new AtomicInteger();
+        singleFlight.execute("test", 1L, runs::incrementAndGet);
+        singleFlight.execute("test", 1L, runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testFailurePropagatesAndClearsKey() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("test", 1L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("ok", singleFlight.execute("test", 1L, () -> "ok"));
+    }
+
+    @Test
+    public void testVersionMovesAgainWhenTheWriteCommits() {
+        DataVersionTracker versions = new DataVersionTracker();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.bump(7L);
+            // a flight keyed by this version may start now and read the uncommitted write's old data
+            assertEquals(1L, versions.current(7L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2L, versions.current(7L));
+
+        versions.bump(7L);
+        assertEquals(3L, versions.current(7L));
+    }
+
+    private double leader() {
+        return meterRegistry.counter(SingleFlight.METRIC_NAME, "name", "test", "outcome", "leader").count();
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter(SingleFlight.METRIC_NAME, "name", "test", "outcome", "coalesced").count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
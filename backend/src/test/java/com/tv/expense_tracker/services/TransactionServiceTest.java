@@ -28,6 +28,12 @@ public class TransactionServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private DataVersionTracker dataVersions;
+
+    @Mock
+    private DomainEventBus domainEvents;
+
     @InjectMocks
     private TransactionService transactionService;
 
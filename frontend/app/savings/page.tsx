@@ -64,6 +64,8 @@ function SavingsContent() {
 
   const [showHistoryModal, setShowHistoryModal] = useState(false)
   const [transactionHistory, setTransactionHistory] = useState<SavingTransaction[]>([])
+  const [historyCursor, setHistoryCursor] = useState<string | null>(null)
+  const [loadingMoreHistory, setLoadingMoreHistory] = useState(false)
 
   const [showProjectionModal, setShowProjectionModal] = useState(false)
   const [projectionData, setProjectionData] = useState<InterestProjection[]>([])
@@ -95,7 +97,6 @@ function SavingsContent() {
         balance: saving.balance,
         interestRate: saving.interestRate,
         goal: saving.goal,
-        description: saving.description,
         lastUpdated: saving.updatedAt,
       }));
       setSavings(transformedSavings);
@@ -152,7 +153,16 @@ function SavingsContent() {
     }
   }
 
-  const handleEdit = (saving: Saving) => {
+  const handleEdit = async (saving: Saving) => {
+    // The list leaves descriptions out; fetch this one before the form can save over it.
+    let description = ""
+    try {
+      const full = await apiClient.getSaving(saving.id)
+      description = full.description || ""
+    } catch (err) {
+      console.error("Failed to load savings account", err)
+      return
+    }
     setEditingSaving(saving)
     setFormData({
       accountName: saving.name,
@@ -160,7 +170,7 @@ function SavingsContent() {
       balance: saving.balance.toString(),
       interestRate: saving.interestRate?.toString() || "",
       goal: saving.goal?.toString() || "",
-      description: saving.description || "",
+      description,
     })
     setShowModal(true)
   }
@@ -206,14 +216,29 @@ function SavingsContent() {
   const viewHistory = async (saving: Saving) => {
     setSelectedSaving(saving)
     try {
-      const history = await apiClient.getSavingTransactions(saving.id)
-      setTransactionHistory(history)
+      const page = await apiClient.getSavingTransactions(saving.id)
+      setTransactionHistory(page.items)
+      setHistoryCursor(page.nextCursor)
       setShowHistoryModal(true)
     } catch (err) {
       console.error("Failed to load transaction history", err)
     }
   }
 
+  const loadMoreHistory = async () => {
+    if (!selectedSaving || !historyCursor) return
+    setLoadingMoreHistory(true)
+    try {
+      const page = await apiClient.getSavingTransactions(selectedSaving.id, historyCursor)
+      setTransactionHistory((history) => [...history, ...page.items])
+      setHistoryCursor(page.nextCursor)
+    } catch (err) {
+      console.error("Failed to load more transaction history", err)
+    } finally {
+      setLoadingMoreHistory(false)
+    }
+  }
+
   const viewProjection = async (saving: Saving) => {
     setSelectedSaving(saving)
     try {
@@ -505,12 +530,6 @@ function SavingsContent() {
                         )}
                       </div>
 
-                      {saving.description && (
-                        <p className="text-xs text-muted-foreground pt-2 border-t border-border">
-                          {saving.description}
-                        </p>
-                      )}
-
                       <div className="text-xs text-muted-foreground pt-2 border-t border-border">
                         Last updated: {new Date(saving.lastUpdated).toLocaleDateString()}
                       </div>
@@ -802,6 +821,16 @@ function SavingsContent() {
                       </div>
                     </div>
                   ))}
+                  {historyCursor && (
+                    <Button
+                      variant="outline"
+                      className="w-full"
+                      onClick={loadMoreHistory}
+                      disabled={loadingMoreHistory}
+                    >
+                      {loadingMoreHistory ? "Loading..." : "Load more"}
+                    </Button>
+                  )}
                 </div>
               )}
             </CardContent>
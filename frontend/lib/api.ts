@@ -14,6 +14,7 @@ export interface ApiResponse<T> {
 export interface AuthTokens {
   token: string;
   refreshToken?: string;
+  expiresIn?: number;
 }
 
 export interface UserProfile {
@@ -112,6 +113,25 @@ export interface SavingTransaction {
   createdAt?: string
 }
 
+export interface SavingTransactionPage {
+  items: SavingTransaction[]
+  // pass back to fetch the next (older) page; null on the last page
+  nextCursor: string | null
+}
+
+export interface SavingGoalProgress {
+  id: number
+  name: string
+  balance: number
+  interestRate?: number
+  goal?: number
+  recentContributions: number
+  monthlyContribution: number
+  progressPercent?: number
+  monthsToGoal?: number
+  projectedCompletionDate?: string
+}
+
 export interface InterestProjection {
   month: string
   interest: number
@@ -158,12 +178,58 @@ class ApiClient {
     localStorage.setItem('token', token);
   }
 
+  private getRefreshToken(): string | null {
+    if (typeof window === 'undefined') return null;
+    return localStorage.getItem('refreshToken');
+  }
+
+  /**
+   * Store the access token and, when present, the refresh token that came with it
+   */
+  private setTokens(tokens: AuthTokens): void {
+    if (typeof window === 'undefined') return;
+    if (tokens.token) this.setToken(tokens.token);
+    if (tokens.refreshToken) localStorage.setItem('refreshToken', tokens.refreshToken);
+  }
+
   /**
    * Remove the JWT token from localStorage
    */
   public removeToken(): void {
     if (typeof window === 'undefined') return;
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
+  }
+
+  private refreshing: Promise<boolean> | null = null;
+
+  /**
+   * Exchange the refresh token for a new token pair. Concurrent callers share one
+   * request, since each refresh token can only be used once.
+   */
+  private refreshTokens(): Promise<boolean> {
+    const refreshToken = this.getRefreshToken();
+    if (!refreshToken) return Promise.resolve(false);
+    if (!this.refreshing) {
+      this.refreshing = fetch(`${this.baseUrl}/api/auth/refresh`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+      })
+        .then(async (response) => {
+          if (!response.ok) {
+            this.removeToken();
+            return false;
+          }
+          this.setTokens((await response.json()) as AuthTokens);
+          return true;
+        })
+        .catch(() => false)
+        .finally(() => {
+          this.refreshing = null;
+        });
+    }
+    return this.refreshing;
   }
 
   /**
@@ -185,12 +251,15 @@ class ApiClient {
   }
 
   /**
-   * Generic fetch method with error handling
+   * Generic fetch method with error handling. `onResponse` sees the successful response,
+   * e.g. to read paging headers.
    */
   private async request<T>(
     endpoint: string,
     options: RequestInit = {},
-    withAuth = true
+    withAuth = true,
+    retried = false,
+    onResponse?: (response: Response) => void
   ): Promise<T> {
     // Build URL robustly even if endpoint does not have leading slash
     const url = (() => {
@@ -212,6 +281,11 @@ class ApiClient {
         headers: this.getHeaders(withAuth),
       });
 
+      // Access tokens are short-lived: refresh once and retry
+      if (response.status === 401 && withAuth && !retried && (await this.refreshTokens())) {
+        return this.request<T>(endpoint, options, withAuth, true, onResponse);
+      }
+
       if (!response.ok) {
         // Try parse error body if present, otherwise throw generic
         const text = await response.text().catch(() => '');
@@ -226,6 +300,7 @@ class ApiClient {
         }
         throw new Error(errorMsg);
       }
+      onResponse?.(response);
 
       // Some successful responses (e.g. 204 No Content) have empty bodies.
       // Safely handle empty response bodies to avoid `Unexpected end of JSON input`.
@@ -256,8 +331,8 @@ class ApiClient {
    * Auth Endpoints
    */
 
-  async login(email: string, password: string): Promise<{ token: string }> {
-    const response = await this.request<{ token: string }>(
+  async login(email: string, password: string): Promise<AuthTokens> {
+    const response = await this.request<AuthTokens>(
       '/api/auth/login',
       {
         method: 'POST',
@@ -267,7 +342,7 @@ class ApiClient {
     );
 
     if (response.token) {
-      this.setToken(response.token);
+      this.setTokens(response);
     }
 
     return response;
@@ -277,8 +352,8 @@ class ApiClient {
     fullName: string,
     email: string,
     password: string
-  ): Promise<{ token: string }> {
-    const response = await this.request<{ token: string }>(
+  ): Promise<AuthTokens> {
+    const response = await this.request<AuthTokens>(
       '/api/auth/signup',
       {
         method: 'POST',
@@ -288,7 +363,7 @@ class ApiClient {
     );
 
     if (response.token) {
-      this.setToken(response.token);
+      this.setTokens(response);
     }
 
     return response;
@@ -440,6 +515,18 @@ class ApiClient {
     });
   }
 
+  async getSavingGoals(): Promise<SavingGoalProgress[]> {
+    return this.request<SavingGoalProgress[]>('/api/savings/goals', {
+      method: 'GET',
+    });
+  }
+
+  async getSaving(id: string): Promise<Saving> {
+    return this.request<Saving>(`/api/savings/${id}`, {
+      method: 'GET',
+    });
+  }
+
   async updateSaving(id: string, data: Partial<SavingRequest>): Promise<Saving> {
     return this.request<Saving>(`/api/savings/${id}`, {
       method: 'PUT',
@@ -467,10 +554,22 @@ class ApiClient {
     });
   }
 
-  async getSavingTransactions(id: string): Promise<SavingTransaction[]> {
-    return this.request<SavingTransaction[]>(`/api/savings/${id}/transactions`, {
-      method: 'GET',
-    });
+  /**
+   * One page of a saving's history, newest first; the server caps the page size.
+   */
+  async getSavingTransactions(id: string, cursor?: string | null): Promise<SavingTransactionPage> {
+    let nextCursor: string | null = null;
+    const after = cursor ? `&cursor=${encodeURIComponent(cursor)}` : '';
+    const items = await this.request<SavingTransaction[]>(
+      `/api/savings/${id}/transactions?includeDescription=true${after}`,
+      { method: 'GET' },
+      true,
+      false,
+      (response) => {
+        nextCursor = response.headers.get('X-Next-Cursor');
+      }
+    );
+    return { items: items ?? [], nextCursor };
   }
 
   async getInterestProjection(id: string, months = 12): Promise<InterestProjection[]> {
@@ -497,7 +596,20 @@ class ApiClient {
    * Logout
    */
   logout(): void {
+    const token = this.getToken();
+    const refreshToken = this.getRefreshToken();
     this.removeToken();
+    if (token || refreshToken) {
+      // best effort: revoke server-side, the local tokens are already gone
+      fetch(`${this.baseUrl}/api/auth/logout`, {
+        method: 'POST',
+        headers: {
+          'Content-Type': 'application/json',
+          ...(token ? { Authorization: `Bearer ${token}` } : {}),
+        },
+        body: JSON.stringify({ refreshToken }),
+      }).catch(() => undefined);
+    }
   }
 }
 